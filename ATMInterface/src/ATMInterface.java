@@ -1,88 +1,46 @@
+import com.codsoft.common.BoundedLogModel;
+import com.codsoft.common.NumberParser;
+
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
-
-// Represents a simple bank account
-class BankAccount {
-    private String accountHolder;
-    private String accountNumber;
-    private double balance;
-    private List<String> transactionHistory;
-
-    public BankAccount(String accountHolder, String accountNumber, double initialBalance) {
-        this.accountHolder = accountHolder;
-        this.accountNumber = accountNumber;
-        this.balance = initialBalance;
-        this.transactionHistory = new ArrayList<>();
-        transactionHistory.add("Account created with initial balance ₹" + initialBalance);
-    }
-
-    public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            transactionHistory.add("Deposited ₹" + amount);
-        }
-    }
-
-    public void withdraw(double amount) {
-        if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            transactionHistory.add("Withdrawn ₹" + amount);
-        }
-    }
-
-    public double getBalance() {
-        transactionHistory.add("Checked balance: ₹" + balance);
-        return balance;
-    }
-
-    // Masked account number for privacy
-    public String getMaskedAccountNumber() {
-        if (accountNumber.length() > 5) {
-            return accountNumber.substring(0, 3) + "****" + accountNumber.substring(accountNumber.length() - 2);
-        }
-        return "****"; // fallback if account number too short
-    }
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
 
-    public String getAccountDetails() {
-        return "👤 Account Holder: " + accountHolder +
-               "\n🏦 Account Number: " + getMaskedAccountNumber() +
-               "\n💰 Current Balance: ₹" + balance;
-    }
-
-    public List<String> getTransactionHistory() {
-        return transactionHistory;
-    }
-}
-
-// Swing based ATM UI
+// Swing based ATM UI (a thin client of AtmService)
 public class ATMInterface extends JFrame {
-    private BankAccount account;
-    private JTextArea outputArea;
+    static final String JOURNAL_FILE = "atm-journal.dat";
+    private static final String ACCOUNT_NUMBER = "COD12345"; // card inserted at this terminal
+    // Output lines kept on screen; older ones scroll away for good (-Datm.output.lines)
+    private static final int OUTPUT_LINES = Integer.getInteger("atm.output.lines", 1000);
+
+    private final AtmService service;
+    private final AtmService.Session session;
+    private final BoundedLogModel<String> output = new BoundedLogModel<>(OUTPUT_LINES);
+    private JList<String> outputList;
     private JTextField amountField;
-    private final String correctPin = "1234"; // demo PIN
-
-    public ATMInterface() {
-        // PIN Authentication at startup
-        String pin = JOptionPane.showInputDialog(this, "Enter 4-digit PIN:");
-        if (pin == null || pin.trim().isEmpty() || !correctPin.equals(pin)) {
-            JOptionPane.showMessageDialog(this, "❌ Wrong or empty PIN! Access Denied.");
-            System.exit(0);
-        }
-
-        account = new BankAccount("Neha Shinde", "COD12345", 5000);
+    private final JButton depositBtn = new JButton("Deposit");
+    private final JButton withdrawBtn = new JButton("Withdraw");
+    private final JButton balanceBtn = new JButton("Check Balance");
+    private final JButton detailsBtn = new JButton("Account Details");
+    private final JButton historyBtn = new JButton("Transaction History");
+    // Amounts as the user types them, in their locale's format ("1,250.50", "1.250,50")
+    private final NumberParser amountParser = new NumberParser(Locale.getDefault(Locale.Category.FORMAT));
+
+    private ATMInterface(AtmService service, AtmService.Session session) {
+        this.service = service;
+        this.session = session;
 
         setTitle("CODSOFT ATM Interface");
         setSize(600, 400);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        // Output area
-        outputArea = new JTextArea();
-        outputArea.setEditable(false);
-        outputArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
-        add(new JScrollPane(outputArea), BorderLayout.CENTER);
+        // Output area: a bounded log, only visible rows are painted
+        outputList = createLogList(output);
+        add(new JScrollPane(outputList), BorderLayout.CENTER);
 
         // Input panel
         JPanel inputPanel = new JPanel(new FlowLayout());
@@ -91,12 +49,6 @@ public class ATMInterface extends JFrame {
         inputPanel.add(new JLabel("Amount:"));
         inputPanel.add(amountField);
 
-        JButton depositBtn = new JButton("Deposit");
-        JButton withdrawBtn = new JButton("Withdraw");
-        JButton balanceBtn = new JButton("Check Balance");
-        JButton detailsBtn = new JButton("Account Details");
-        JButton historyBtn = new JButton("Transaction History");
-
         inputPanel.add(depositBtn);
         inputPanel.add(withdrawBtn);
         inputPanel.add(balanceBtn);
@@ -104,65 +56,150 @@ public class ATMInterface extends JFrame {
         inputPanel.add(historyBtn);
 
         add(inputPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Asks for the PIN, then builds the ATM for the card at this terminal,
+     * wires its buttons and shows it. Exits if access is denied.
+     */
+    public static ATMInterface open(AtmService service) {
+        ATMInterface atm = new ATMInterface(service, authenticate(service));
+        atm.wireActions();
+        atm.setVisible(true);
+        return atm;
+    }
 
-        // Button actions
+    // PIN Authentication at startup, before the frame exists
+    private static AtmService.Session authenticate(AtmService service) {
+        String pin = JOptionPane.showInputDialog(null, "Enter 4-digit PIN:");
+        if (pin == null || pin.trim().isEmpty()) {
+            JOptionPane.showMessageDialog(null, "❌ Wrong or empty PIN! Access Denied.");
+            System.exit(0);
+        }
+        AtmService.AuthResult auth = service.authenticate(ACCOUNT_NUMBER, pin.trim());
+        if (auth.status() == AtmService.Status.LOCKED) {
+            JOptionPane.showMessageDialog(null, "🔒 Too many wrong PINs! Card temporarily locked.");
+            System.exit(0);
+        }
+        if (auth.status() != AtmService.Status.OK) {
+            JOptionPane.showMessageDialog(null, "❌ Wrong or empty PIN! Access Denied.");
+            System.exit(0);
+        }
+        return auth.session();
+    }
+
+    // Button actions, wired once the frame is fully built
+    private void wireActions() {
         depositBtn.addActionListener(e -> {
-            try {
-                double amt = Double.parseDouble(amountField.getText());
-                if (amt <= 0) {
-                    outputArea.append("❌ Invalid deposit amount!\n");
-                } else {
-                    account.deposit(amt);
-                    outputArea.append("✅ Deposited ₹" + amt + "\n");
-                }
-            } catch (Exception ex) {
-                outputArea.append("❌ Please enter a valid number!\n");
+            if (!parseAmount()) {
+                return;
+            }
+            long amt = amountParser.value();
+            AtmService.TxResult result = service.deposit(session, amt);
+            if (result.status() == AtmService.Status.OK) {
+                println("✅ Deposited ₹" + AccountLedger.format(amt));
+            } else if (result.status() == AtmService.Status.OVER_LIMIT) {
+                println("❌ Deposit would take the balance over the account limit!");
+            } else if (result.status() == AtmService.Status.DENIED) {
+                println("❌ Session expired! Please restart the ATM.");
+            } else {
+                println("❌ Invalid deposit amount!");
             }
         });
 
         withdrawBtn.addActionListener(e -> {
-            try {
-                double amt = Double.parseDouble(amountField.getText());
-                if (amt <= 0) {
-                    outputArea.append("❌ Invalid withdrawal amount!\n");
-                } else if (amt > account.getBalance()) {
-                    outputArea.append("❌ Insufficient balance!\n");
-                } else {
-                    account.withdraw(amt);
-                    outputArea.append("✅ Withdrawn ₹" + amt + "\n");
-                }
-            } catch (Exception ex) {
-                outputArea.append("❌ Please enter a valid number!\n");
+            if (!parseAmount()) {
+                return;
+            }
+            long amt = amountParser.value();
+            AtmService.TxResult result = service.withdraw(session, amt);
+            if (result.status() == AtmService.Status.OK) {
+                println("✅ Withdrawn ₹" + AccountLedger.format(amt));
+            } else if (result.status() == AtmService.Status.INSUFFICIENT_FUNDS) {
+                println("❌ Insufficient balance!");
+            } else if (result.status() == AtmService.Status.DENIED) {
+                println("❌ Session expired! Please restart the ATM.");
+            } else {
+                println("❌ Invalid withdrawal amount!");
             }
         });
 
         balanceBtn.addActionListener(e -> {
-            outputArea.append("💰 Current Balance: ₹" + account.getBalance() + "\n");
+            AtmService.BalanceResult result = service.balance(session);
+            if (result.status() == AtmService.Status.OK) {
+                println("💰 Current Balance: ₹" + AccountLedger.format(result.balanceMinor()));
+            } else {
+                println("❌ Session expired! Please restart the ATM.");
+            }
         });
 
+        // Details and history reuse the session opened at startup instead of re-asking the PIN
         detailsBtn.addActionListener(e -> {
-            String pinCheck = JOptionPane.showInputDialog(this, "Enter PIN to view details:");
-            if (pinCheck != null && correctPin.equals(pinCheck)) {
-                outputArea.append(account.getAccountDetails() + "\n");
+            AtmService.DetailsResult result = service.details(session);
+            if (result.status() == AtmService.Status.OK) {
+                println(result.details());
             } else {
-                outputArea.append("❌ Access Denied!\n");
+                println("❌ Access Denied!");
             }
         });
 
-        historyBtn.addActionListener(e -> {
-            String pinCheck = JOptionPane.showInputDialog(this, "Enter PIN to view history:");
-            if (pinCheck != null && correctPin.equals(pinCheck)) {
-                outputArea.append("\n📜 Transaction History:\n");
-                for (String record : account.getTransactionHistory()) {
-                    outputArea.append("- " + record + "\n");
-                }
-            } else {
-                outputArea.append("❌ Access Denied!\n");
+        historyBtn.addActionListener(e -> showHistory());
+    }
+
+    /** A list over a model with a fixed row size, so Swing measures and paints only visible rows. */
+    private static JList<String> createLogList(ListModel<String> model) {
+        JList<String> list = new JList<>(model);
+        list.setFont(new Font("Monospaced", Font.PLAIN, 14));
+        list.setPrototypeCellValue("M".repeat(100));
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        return list;
+    }
+
+    /** Parses the amount field into {@code amountParser.value()}; false, with a message, if it won't do. */
+    private boolean parseAmount() {
+        NumberParser.Status status = AccountLedger.parseAmount(amountParser, amountField.getText());
+        if (status == NumberParser.Status.OUT_OF_RANGE) {
+            println("❌ Amount must be between ₹0.01 and ₹" + AccountLedger.format(AccountLedger.MAX_BALANCE) + "!");
+        } else if (status != NumberParser.Status.OK) {
+            println("❌ Please enter a valid number!");
+        }
+        return status == NumberParser.Status.OK;
+    }
+
+    /** Appends a message to the output log, one row per line, and scrolls to it. */
+    private void println(String text) {
+        for (String line : text.split("\n")) {
+            output.add(line);
+        }
+        outputList.ensureIndexIsVisible(output.getSize() - 1);
+    }
+
+    /** Opens the whole history in its own window, read page by page as it is scrolled. */
+    private void showHistory() {
+        if (service.historyHead(session).status() != AtmService.Status.OK) {
+            println("❌ Access Denied!");
+            return;
+        }
+        HistoryListModel model = HistoryListModel.open(service, session);
+        println("📜 Transaction History: " + model.getSize() + " entries, newest first");
+
+        JDialog dialog = new JDialog(this, "📜 Transaction History (" + model.getSize() + " entries)");
+        dialog.add(new JScrollPane(createLogList(model)));
+        dialog.setSize(560, 400);
+        dialog.setLocationRelativeTo(this);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                model.close();
             }
         });
+        dialog.setVisible(true);
     }
 
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new ATMInterface().setVisible(true));
+    public static void main(String[] args) throws IOException {
+        // Replays the journal so balances survive restarts
+        AtmService service = AtmService.start(Paths.get(JOURNAL_FILE));
+        SwingUtilities.invokeLater(() -> open(service));
     }
 }
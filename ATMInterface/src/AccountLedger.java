@@ -0,0 +1,567 @@
+import com.codsoft.common.Metrics;
+import com.codsoft.common.Money;
+import com.codsoft.common.NumberParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared ledger holding every account balance, keyed by account number.
+ * Balances are fixed-point paise (1/100 ₹) changed with compare-and-set, so
+ * many terminals can work on the same accounts without a global lock.
+ * When a {@link TransactionJournal} is attached every money movement is
+ * journaled and the call returns once its group commit reached the disk.
+ */
+public class AccountLedger {
+
+    public static final String CURRENCY = "INR";
+    private static final int EXPONENT = Money.exponentOf(CURRENCY);
+    public static final long MINOR_PER_UNIT = 100; // paise per rupee
+
+    private static final int STRIPE_COUNT = 1024; // power of two
+
+    /**
+     * Largest balance an account may hold: ₹10 lakh crore, in paise. Deposits
+     * and credits that would pass it are refused, which keeps every balance
+     * (even with an in-flight refund on top) far below {@link #HELD} and any
+     * sum of two balances inside a long.
+     */
+    public static final long MAX_BALANCE = 1_000_000_000_000_000L;
+
+    // Set in a balance while a batch has reserved it (see hold); balances stay far below it
+    private static final long HELD = 1L << 62;
+    private static final AccountLedger DEFAULT = new AccountLedger();
+
+    // Every terminal, the service and the server go through the ledger, so it is timed here
+    private static final Metrics.Timer DEPOSIT = Metrics.timer("atm.deposit");
+    private static final Metrics.Timer WITHDRAW = Metrics.timer("atm.withdraw");
+    private static final Metrics.Timer BALANCE = Metrics.timer("atm.balance");
+
+    private final ConcurrentHashMap<String, Entry> accounts;
+    private final ReentrantLock[] stripes;
+    private final TransactionJournal journal; // null = in-memory only
+    private volatile BalanceAuditSampler auditSampler; // null = enquiries not audited
+
+    public AccountLedger() {
+        this(1 << 16, null);
+    }
+
+    public AccountLedger(TransactionJournal journal) {
+        this(1 << 16, journal);
+    }
+
+    public AccountLedger(int expectedAccounts, TransactionJournal journal) {
+        this.accounts = new ConcurrentHashMap<>(expectedAccounts);
+        this.journal = journal;
+        this.stripes = new ReentrantLock[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /** Ledger used by terminals that don't bring their own. */
+    public static AccountLedger getDefault() {
+        return DEFAULT;
+    }
+
+    // --- Account lifecycle ---
+
+    /**
+     * Opens an account with the given starting balance.
+     * Returns false if the account already exists (its balance is left untouched).
+     */
+    public boolean open(String accountNumber, long initialMinor) {
+        if (initialMinor < 0 || initialMinor > MAX_BALANCE) {
+            throw new IllegalArgumentException("Initial balance out of range: " + initialMinor);
+        }
+        Entry entry = new Entry(accountNumber, initialMinor, stripeIndex(accountNumber));
+        if (accounts.putIfAbsent(accountNumber, entry) != null) {
+            return false;
+        }
+        record(TransactionJournal.RecordType.OPEN, entry, initialMinor, initialMinor);
+        return true;
+    }
+
+    /**
+     * Rebuilds balances by replaying the journal. Records carry signed amounts,
+     * so the replay order of concurrent writers doesn't affect the result.
+     */
+    public void recover() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        journal.replay(record -> {
+            if (record.type().isMarker()) {
+                return;
+            }
+            Entry entry = accounts.computeIfAbsent(record.accountNumber(),
+                    number -> new Entry(number, 0, stripeIndex(number)));
+            entry.balance.addAndGet(record.type().sign * record.amountMinor());
+            entry.lastSlot.set(record.slot());
+            entry.records.incrementAndGet();
+        });
+    }
+
+    public boolean exists(String accountNumber) {
+        return accounts.containsKey(accountNumber);
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+
+    /** Every account number at the time of the call, in no particular order. */
+    public List<String> accountNumbers() {
+        return new ArrayList<>(accounts.keySet());
+    }
+
+    boolean isJournaled() {
+        return journal != null;
+    }
+
+    // --- Single-account operations (lock-free) ---
+
+    /**
+     * Adds the amount and returns the new balance, or -1 (changing nothing) if
+     * the amount is not positive or the balance would pass {@link #MAX_BALANCE}.
+     */
+    public long deposit(String accountNumber, long amountMinor) {
+        if (amountMinor <= 0) {
+            return -1;
+        }
+        long start = DEPOSIT.start();
+        try {
+            Entry entry = entry(accountNumber);
+            long balance = add(entry, amountMinor);
+            if (balance < 0) {
+                return -1;
+            }
+            record(TransactionJournal.RecordType.DEPOSIT, entry, amountMinor, balance);
+            return balance;
+        } finally {
+            DEPOSIT.stop(start);
+        }
+    }
+
+    /**
+     * Checks the balance and withdraws in one atomic step.
+     * Returns false (and changes nothing) if the amount is not positive or the
+     * account does not hold enough money.
+     */
+    public boolean tryWithdraw(String accountNumber, long amountMinor) {
+        if (amountMinor <= 0) {
+            return false;
+        }
+        long start = WITHDRAW.start();
+        try {
+            Entry entry = entry(accountNumber);
+            long balance = debit(entry, amountMinor);
+            if (balance < 0) {
+                return false;
+            }
+            record(TransactionJournal.RecordType.WITHDRAW, entry, amountMinor, balance);
+            return true;
+        } finally {
+            WITHDRAW.stop(start);
+        }
+    }
+
+    /** Pure balance read: no history, no allocation. */
+    public long balance(String accountNumber) {
+        long start = BALANCE.start();
+        try {
+            return entry(accountNumber).balance.get() & ~HELD;
+        } finally {
+            BALANCE.stop(start);
+        }
+    }
+
+    // --- Balance enquiry auditing (opt-in) ---
+
+    public void setAuditSampler(BalanceAuditSampler sampler) {
+        this.auditSampler = sampler;
+    }
+
+    public BalanceAuditSampler getAuditSampler() {
+        return auditSampler;
+    }
+
+    /** Balance read on behalf of a customer enquiry; sampled into the audit counter if enabled. */
+    public long checkBalance(String accountNumber) {
+        long start = BALANCE.start();
+        try {
+            Entry entry = entry(accountNumber);
+            BalanceAuditSampler sampler = auditSampler;
+            if (sampler != null && sampler.sample()) {
+                Entry.AUDITED_CHECKS.incrementAndGet(entry);
+            }
+            return entry.balance.get() & ~HELD;
+        } finally {
+            BALANCE.stop(start);
+        }
+    }
+
+    /** Number of sampled balance enquiries recorded for the account. */
+    public long auditedChecks(String accountNumber) {
+        return entry(accountNumber).auditedChecks;
+    }
+
+    // --- Multi-account operations (striped locks) ---
+
+    /**
+     * Moves money between two accounts. The stripes of both accounts are taken
+     * in index order so concurrent transfers can never deadlock; the debit itself
+     * is still a CAS so single-account withdrawals stay lock-free. Returns false
+     * (changing nothing) if the source can't cover the amount or the target
+     * would pass {@link #MAX_BALANCE}.
+     */
+    public boolean transfer(String fromAccount, String toAccount, long amountMinor) {
+        if (amountMinor <= 0 || fromAccount.equals(toAccount)) {
+            return false;
+        }
+        Entry from = entry(fromAccount);
+        Entry to = entry(toAccount);
+        long lastSlot;
+        ReentrantLock first = stripes[Math.min(from.stripe, to.stripe)];
+        ReentrantLock second = stripes[Math.max(from.stripe, to.stripe)];
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                long fromBalance = debit(from, amountMinor);
+                if (fromBalance < 0) {
+                    return false;
+                }
+                long toBalance = add(to, amountMinor);
+                if (toBalance < 0) {
+                    from.balance.addAndGet(amountMinor); // refund; nothing journaled yet
+                    return false;
+                }
+                append(TransactionJournal.RecordType.TRANSFER_OUT, from, amountMinor, fromBalance);
+                lastSlot = append(TransactionJournal.RecordType.TRANSFER_IN, to, amountMinor, toBalance);
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+        awaitDurable(lastSlot); // wait for fsync outside the stripes
+        return true;
+    }
+
+    // --- Batch primitives (callers hold the stripes and await durability once) ---
+
+    /** Index of the lock stripe guarding compound operations on this account. */
+    int stripeOf(String accountNumber) {
+        return entry(accountNumber).stripe;
+    }
+
+    ReentrantLock stripe(int index) {
+        return stripes[index];
+    }
+
+    /**
+     * Reserves funds for a batch debit: marks the balance held if it covers
+     * {@code amountMinor}, else returns false. Reads and credits carry on as
+     * usual, but single-account debits wait for the account's stripe (which
+     * the batch holds) until the hold is settled or released, so nobody
+     * spends against a balance the batch might still take, and a batch that
+     * gives up changes nothing anyone saw.
+     */
+    boolean hold(String accountNumber, long amountMinor) {
+        AtomicLong balance = entry(accountNumber).balance;
+        while (true) {
+            long current = balance.get();
+            if ((current & HELD) != 0 || current < amountMinor) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current | HELD)) {
+                return true;
+            }
+        }
+    }
+
+    /** Drops a hold without debiting. */
+    void release(String accountNumber) {
+        AtomicLong balance = entry(accountNumber).balance;
+        long current;
+        do {
+            current = balance.get();
+        } while (!balance.compareAndSet(current, current & ~HELD));
+    }
+
+    /** Debits a held balance (which covers the amount) and drops the hold; returns the new balance. */
+    long settle(String accountNumber, long amountMinor) {
+        AtomicLong balance = entry(accountNumber).balance;
+        while (true) {
+            long current = balance.get();
+            long settled = (current & ~HELD) - amountMinor;
+            if (balance.compareAndSet(current, settled)) {
+                return settled;
+            }
+        }
+    }
+
+    /**
+     * Reserves room for a batch credit: marks the balance held if the amount
+     * fits under {@link #MAX_BALANCE}, else returns false. Deposits wait for
+     * the stripe while the hold is on, as debits do, so the room can't be
+     * taken before {@link #credit} uses it.
+     */
+    boolean holdCredit(String accountNumber, long amountMinor) {
+        AtomicLong balance = entry(accountNumber).balance;
+        while (true) {
+            long current = balance.get();
+            if ((current & HELD) != 0 || amountMinor > MAX_BALANCE - current) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current | HELD)) {
+                return true;
+            }
+        }
+    }
+
+    /** Credits a balance held by {@link #holdCredit} and drops the hold; returns the new balance. */
+    long credit(String accountNumber, long amountMinor) {
+        AtomicLong balance = entry(accountNumber).balance;
+        while (true) {
+            long current = balance.get();
+            long credited = (current & ~HELD) + amountMinor;
+            if (balance.compareAndSet(current, credited)) {
+                return credited;
+            }
+        }
+    }
+
+    /**
+     * Credit journaled without waiting; returns the journal slot. Throws
+     * {@link IllegalStateException} if the balance would pass
+     * {@link #MAX_BALANCE}: an account that close to the ceiling needs a look
+     * from a person, not an automatic posting.
+     */
+    long postCredit(String accountNumber, long amountMinor, TransactionJournal.RecordType type) {
+        Entry entry = entry(accountNumber);
+        long balance = amountMinor > 0 ? add(entry, amountMinor) : -1;
+        if (balance < 0) {
+            throw new IllegalStateException("Cannot credit " + format(amountMinor) + " to " + accountNumber
+                    + ": balance limit");
+        }
+        return append(type, entry, amountMinor, balance);
+    }
+
+    /**
+     * Journals records {@code 0..count-1} as one batch (see
+     * {@link TransactionJournal#appendBatch}) without waiting; returns the
+     * slot to await, or -1 without a journal.
+     */
+    long journalBatch(int count, TransactionJournal.RecordType[] types, String[] accountNumbers,
+                      long[] amountsMinor, long[] balancesAfterMinor) {
+        if (journal == null) {
+            return -1;
+        }
+        AtomicLong[] lastSlots = new AtomicLong[count];
+        for (int i = 0; i < count; i++) {
+            lastSlots[i] = entry(accountNumbers[i]).lastSlot;
+        }
+        long slot = journal.appendBatch(count, types, accountNumbers, amountsMinor, balancesAfterMinor, lastSlots);
+        for (int i = 0; i < count; i++) {
+            entry(accountNumbers[i]).records.incrementAndGet();
+        }
+        return slot;
+    }
+
+    // --- History ---
+
+    /**
+     * Returns up to {@code limit} journal records of one account, newest first,
+     * skipping the {@code offset} most recent ones.
+     */
+    public List<TransactionJournal.JournalRecord> history(String accountNumber, int offset, int limit) {
+        if (journal == null) {
+            return Collections.emptyList();
+        }
+        List<TransactionJournal.JournalRecord> page = new ArrayList<>(limit);
+        long slot = entry(accountNumber).lastSlot.get();
+        for (int skipped = 0; slot >= 0 && page.size() < limit; skipped++) {
+            TransactionJournal.JournalRecord record = journal.read(slot);
+            if (skipped >= offset) {
+                page.add(record);
+            }
+            slot = record.previousSlot();
+        }
+        return page;
+    }
+
+    /** Number of journal records of one account (0 without a journal). */
+    public int historySize(String accountNumber) {
+        return entry(accountNumber).records.get();
+    }
+
+    /** Slot of the account's newest journal record, or -1 if it has none. */
+    public long latestSlot(String accountNumber) {
+        return entry(accountNumber).lastSlot.get();
+    }
+
+    /**
+     * Returns up to {@code limit} records of one account, newest first,
+     * starting at {@code slot} (as returned by {@link #latestSlot} or a
+     * record's {@code previousSlot}). Unlike {@link #history} this does not
+     * re-walk the newer records, so paging through a long history costs the
+     * same for every page. Stops early at a slot of another account.
+     */
+    public List<TransactionJournal.JournalRecord> historyFrom(String accountNumber, long slot, int limit) {
+        if (journal == null) {
+            return Collections.emptyList();
+        }
+        List<TransactionJournal.JournalRecord> page = new ArrayList<>(limit);
+        while (slot >= 0 && page.size() < limit) {
+            TransactionJournal.JournalRecord record = journal.read(slot);
+            if (!record.accountNumber().equals(accountNumber)) {
+                break;
+            }
+            page.add(record);
+            slot = record.previousSlot();
+        }
+        return page;
+    }
+
+    // --- Helpers ---
+
+    /** Parses user input such as "1250.50" exactly into paise (no binary floating point). */
+    public static long parseAmount(String text) {
+        return Money.parse(text, CURRENCY).getMinor();
+    }
+
+    /**
+     * As {@link #parseAmount(String)}, leaving the paise in {@code parser.value()} instead of throwing.
+     * An amount must be at least one paisa and at most {@link #MAX_BALANCE}; anything else is
+     * {@code OUT_OF_RANGE}.
+     */
+    public static NumberParser.Status parseAmount(NumberParser parser, CharSequence text) {
+        return parser.parseDecimal(text, EXPONENT, 1, MAX_BALANCE);
+    }
+
+    /** Formats paise as rupees with exactly two decimals. */
+    public static String format(long amountMinor) {
+        return Money.ofMinor(CURRENCY, amountMinor).format();
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * MINOR_PER_UNIT);
+    }
+
+    public static double toMajor(long amountMinor) {
+        return amountMinor / (double) MINOR_PER_UNIT;
+    }
+
+    /**
+     * CAS debit; returns the new balance, or -1 if funds are insufficient.
+     * A balance held by a batch is waited out on its stripe.
+     */
+    private long debit(Entry entry, long amountMinor) {
+        AtomicLong balance = entry.balance;
+        while (true) {
+            long current = balance.get();
+            if ((current & HELD) != 0) {
+                ReentrantLock stripe = stripes[entry.stripe];
+                stripe.lock(); // the batch releases its holds before its stripes
+                stripe.unlock();
+                continue;
+            }
+            if (current < amountMinor) {
+                return -1;
+            }
+            if (balance.compareAndSet(current, current - amountMinor)) {
+                return current - amountMinor;
+            }
+        }
+    }
+
+    /**
+     * CAS credit; returns the new balance, or -1 if it would pass
+     * {@link #MAX_BALANCE}. A balance held by a batch is waited out on its
+     * stripe, as in {@link #debit}.
+     */
+    private long add(Entry entry, long amountMinor) {
+        AtomicLong balance = entry.balance;
+        while (true) {
+            long current = balance.get();
+            if ((current & HELD) != 0) {
+                ReentrantLock stripe = stripes[entry.stripe];
+                stripe.lock();
+                stripe.unlock();
+                continue;
+            }
+            if (amountMinor > MAX_BALANCE - current) {
+                return -1;
+            }
+            if (balance.compareAndSet(current, current + amountMinor)) {
+                return current + amountMinor;
+            }
+        }
+    }
+
+    private void record(TransactionJournal.RecordType type, Entry entry, long amountMinor, long balanceAfter) {
+        awaitDurable(append(type, entry, amountMinor, balanceAfter));
+    }
+
+    /** Journals a record without waiting; returns its slot, or -1 without a journal. */
+    private long append(TransactionJournal.RecordType type, Entry entry, long amountMinor, long balanceAfter) {
+        if (journal == null) {
+            return -1;
+        }
+        long slot = journal.append(type, entry.accountNumber, amountMinor, balanceAfter, entry.lastSlot);
+        entry.records.incrementAndGet();
+        return slot;
+    }
+
+    void awaitDurable(long slot) {
+        if (slot >= 0) {
+            journal.awaitDurable(slot);
+        }
+    }
+
+    private Entry entry(String accountNumber) {
+        Entry entry = accounts.get(accountNumber);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown account: " + accountNumber);
+        }
+        return entry;
+    }
+
+    private static int stripeIndex(String accountNumber) {
+        int h = accountNumber.hashCode();
+        h ^= (h >>> 16);
+        return h & (STRIPE_COUNT - 1);
+    }
+
+    /** One account's live state. */
+    static final class Entry {
+        static final AtomicLongFieldUpdater<Entry> AUDITED_CHECKS =
+                AtomicLongFieldUpdater.newUpdater(Entry.class, "auditedChecks");
+
+        final String accountNumber;
+        final AtomicLong balance;
+        final int stripe;
+        final AtomicLong lastSlot = new AtomicLong(-1); // newest journal record
+        final AtomicInteger records = new AtomicInteger(); // journal records in the lastSlot chain
+        volatile long auditedChecks; // sampled balance enquiries, plain field to stay compact
+
+        Entry(String accountNumber, long initialMinor, int stripe) {
+            this.accountNumber = accountNumber;
+            this.balance = new AtomicLong(initialMinor);
+            this.stripe = stripe;
+        }
+    }
+}
@@ -0,0 +1,615 @@
+import com.codsoft.common.LatencyHistogram;
+import com.codsoft.common.Log;
+import com.codsoft.common.bench.BenchmarkRunner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * Synthetic ATM traffic for sizing hardware. Requests arrive at a fixed
+ * rate (open loop) whether or not earlier ones have finished, pick accounts
+ * with a Zipf distribution (a few hot accounts get most of the traffic),
+ * follow a configurable deposit/withdraw/balance/history mix, and can come
+ * in payday bursts at a multiple of the rate.
+ *
+ * Latency is measured from when a request was scheduled to arrive, not from
+ * when a worker got round to sending it. A closed-loop tester that waits for
+ * each reply before sending the next sends less while the system stalls and
+ * so never sees the queue build up (coordinated omission); here the queueing
+ * time is part of the latency, as a customer would feel it. The service time
+ * alone is reported next to it for comparison. Requests still queued when a
+ * saturated step is cut off count with the time they had waited.
+ *
+ * Each step runs one rate with a number of worker threads (terminals) over a
+ * number of accounts; the sweep over all of them prints throughput against
+ * latency as each is scaled. Two targets:
+ * <ul>
+ *   <li>{@code inprocess}: {@link BankAccount}s over an {@link AccountLedger}
+ *       in this JVM, journaled to a temporary file like production unless
+ *       {@code -Dload.journal=none};</li>
+ *   <li>{@code server}: a stand-in {@link AtmServer} on a loopback port,
+ *       driven over its line protocol with one authenticated connection per
+ *       account. Every PIN is hashed and checked (about 6 ms each) while
+ *       setting up, so keep this to a few thousand accounts.</li>
+ * </ul>
+ *
+ * Configured with system properties, lists comma-separated:
+ * {@code load.target} (inprocess), {@code load.accounts} (1000),
+ * {@code load.threads} (1,4,16), {@code load.rates} (requests per second,
+ * 1000,5000,20000), {@code load.seconds} per step (10) after
+ * {@code load.warmup} (2), {@code load.zipf} exponent (1.0, 0 is uniform),
+ * {@code load.mix} (deposit:30,withdraw:30,balance:35,history:5),
+ * {@code load.payday.every} and {@code load.payday.seconds} (a burst of that
+ * length at the end of every period; 0, off) at {@code load.payday.factor}
+ * times the rate (5), {@code load.journal} (temp, none or a file) and
+ * {@code load.csv} to also write the results to a file.
+ */
+public class AtmLoadGenerator {
+
+    enum Operation { DEPOSIT, WITHDRAW, BALANCE, HISTORY }
+
+    /** Executes operations against the system under test. */
+    interface Target extends Closeable {
+        /** Runs one operation on account number {@code account}; returns false if it was refused. */
+        boolean execute(Operation operation, int account, long amountMinor) throws IOException;
+    }
+
+    /** Outcome of one step of the sweep; the rate is requests finished per second of the step. */
+    record StepResult(int accounts, int threads, double targetRate, double achievedRate,
+                      long completed, long refused, long unserved,
+                      LatencyHistogram latency, LatencyHistogram serviceTime, LatencyHistogram burstLatency) {
+    }
+
+    static final String PIN = "2468";
+    static final long INITIAL_BALANCE_MINOR = AccountLedger.toMinor(50_000);
+    static final int HISTORY_PAGE = 10;
+
+    private static final long WARMUP_START_DELAY_NANOS = 10_000_000;
+    private static final long SPIN_NANOS = 50_000; // below this, yield instead of parking to start on time
+
+    private final String target = System.getProperty("load.target", "inprocess");
+    private final int[] accountCounts = intList("load.accounts", "1000");
+    private final int[] threadCounts = intList("load.threads", "1,4,16");
+    private final int[] rates = intList("load.rates", "1000,5000,20000");
+    private final long stepNanos = secondsProperty("load.seconds", "10");
+    private final long warmupNanos = secondsProperty("load.warmup", "2");
+    private final double zipfExponent = Double.parseDouble(System.getProperty("load.zipf", "1.0"));
+    private final Mix mix = Mix.parse(System.getProperty("load.mix", "deposit:30,withdraw:30,balance:35,history:5"));
+    private final long paydayEveryNanos = secondsProperty("load.payday.every", "0");
+    private final long paydayNanos = secondsProperty("load.payday.seconds", "0");
+    private final double paydayFactor = Double.parseDouble(System.getProperty("load.payday.factor", "5"));
+    private final String journal = System.getProperty("load.journal", "temp");
+
+    public static void main(String[] args) throws Exception {
+        // One log line per refused or failed session would swamp the console
+        Log.get("AtmServer").setLevel(Log.Level.ERROR);
+        new AtmLoadGenerator().run();
+    }
+
+    void run() throws Exception {
+        if (!target.equals("inprocess") && !target.equals("server")) {
+            throw new IllegalArgumentException("load.target must be inprocess or server: " + target);
+        }
+        if (paydayNanos > 0 && (paydayEveryNanos <= paydayNanos || !(paydayFactor > 0))) {
+            throw new IllegalArgumentException("A payday burst must be shorter than load.payday.every, at a positive factor");
+        }
+        System.out.printf("# target=%s zipf=%.2f mix=%s payday=%s, %.1f s per step after %.1f s warmup%n",
+                target, zipfExponent, mix, paydayNanos > 0
+                        ? String.format("%.1f s of %.1fx every %.1f s", paydayNanos / 1e9,
+                                paydayFactor, paydayEveryNanos / 1e9)
+                        : "off",
+                stepNanos / 1e9, warmupNanos / 1e9);
+        System.out.printf("%9s %7s %8s %9s %7s %9s %9s %9s %9s %9s %10s%n", "accounts", "threads", "base/s",
+                "served/s", "refused", "p50", "p99", "p99.9", "max", "svc p99", "burst p99");
+
+        List<StepResult> results = new ArrayList<>();
+        for (int accounts : accountCounts) {
+            Zipf zipf = new Zipf(accounts, zipfExponent);
+            try (Target system = open(accounts)) {
+                for (int threads : threadCounts) {
+                    for (int rate : rates) {
+                        StepResult result = step(system, zipf, accounts, threads, rate);
+                        results.add(result);
+                        print(result);
+                    }
+                }
+            }
+        }
+        String csv = System.getProperty("load.csv");
+        if (csv != null) {
+            writeCsv(Paths.get(csv), results);
+            System.out.println("Wrote " + csv);
+        }
+    }
+
+    // --- One step ---
+
+    StepResult step(Target system, Zipf zipf, int accounts, int threads, double rate) throws InterruptedException {
+        long start = System.nanoTime() + WARMUP_START_DELAY_NANOS;
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + stepNanos;
+        long cutoff = end + stepNanos; // a saturated step stops here rather than draining its backlog
+        Schedule schedule = new Schedule(start, rate, paydayEveryNanos, paydayNanos, paydayFactor);
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram serviceTime = new LatencyHistogram();
+        LatencyHistogram burstLatency = new LatencyHistogram();
+        AtomicLong completed = new AtomicLong(); // by finishing time, for throughput
+        AtomicLong refused = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong unserved = new AtomicLong();
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long intended;
+                while ((intended = schedule.claim(end)) >= 0) {
+                    long now = waitUntil(intended);
+                    if (now > cutoff) {
+                        recordUnserved(schedule, intended, measureFrom, cutoff, latency, burstLatency, unserved);
+                        return;
+                    }
+                    Operation operation = mix.pick(random);
+                    int account = zipf.sample(random);
+                    boolean ok;
+                    try {
+                        ok = system.execute(operation, account, amountFor(operation, random));
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                        ok = false;
+                    }
+                    long done = System.nanoTime();
+                    if (intended >= measureFrom) { // latency belongs to the arrival time
+                        latency.record(done - intended);
+                        if (schedule.inBurst(intended)) {
+                            burstLatency.record(done - intended);
+                        }
+                    }
+                    if (done >= measureFrom && done < end) { // throughput to the finishing time
+                        serviceTime.record(done - now);
+                        (ok ? completed : refused).incrementAndGet();
+                    }
+                }
+            }, "load-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long stopped = Math.min(System.nanoTime(), cutoff);
+
+        for (long intended; (intended = schedule.claim(end)) >= 0; ) {
+            recordUnserved(schedule, intended, measureFrom, stopped, latency, burstLatency, unserved);
+        }
+        if (failed.get() > 0) {
+            System.out.println("# " + failed.get() + " requests failed with an I/O error");
+        }
+        return new StepResult(accounts, threads, rate, (completed.get() + refused.get()) / (stepNanos / 1e9),
+                completed.get(), refused.get(), unserved.get(), latency, serviceTime, burstLatency);
+    }
+
+    /** A request that was due but never started waited at least until the step stopped. */
+    private static void recordUnserved(Schedule schedule, long intended, long measureFrom, long stopped,
+                                       LatencyHistogram latency, LatencyHistogram burstLatency, AtomicLong unserved) {
+        if (intended >= measureFrom) {
+            latency.record(stopped - intended);
+            if (schedule.inBurst(intended)) {
+                burstLatency.record(stopped - intended);
+            }
+            unserved.incrementAndGet();
+        }
+    }
+
+    /** Sleeps until the scheduled time; returns the time it actually woke. */
+    private static long waitUntil(long intended) {
+        long now = System.nanoTime();
+        while (now < intended) {
+            long remaining = intended - now;
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.yield();
+            }
+            now = System.nanoTime();
+        }
+        return now;
+    }
+
+    /** Deposits of ₹100 to ₹5,000; withdrawals in ₹100 notes up to ₹2,000. */
+    private static long amountFor(Operation operation, ThreadLocalRandom random) {
+        switch (operation) {
+            case DEPOSIT:
+                return AccountLedger.toMinor(random.nextInt(100, 5_001));
+            case WITHDRAW:
+                return AccountLedger.toMinor(100 * random.nextInt(1, 21));
+            default:
+                return 0;
+        }
+    }
+
+    private void print(StepResult r) {
+        System.out.printf("%9d %7d %8.0f %9.0f %7d %9s %9s %9s %9s %9s %10s%s%n", r.accounts(), r.threads(),
+                r.targetRate(), r.achievedRate(), r.refused(),
+                format(r.latency(), 50), format(r.latency(), 99), format(r.latency(), 99.9),
+                r.latency().getCount() == 0 ? "-" : BenchmarkRunner.formatNanos(r.latency().getMaxNanos()),
+                format(r.serviceTime(), 99), format(r.burstLatency(), 99),
+                r.unserved() > 0 ? "  saturated, " + r.unserved() + " unserved" : "");
+    }
+
+    private static String format(LatencyHistogram histogram, double percentile) {
+        return histogram.getCount() == 0 ? "-" : BenchmarkRunner.formatNanos(histogram.percentile(percentile));
+    }
+
+    private static void writeCsv(Path file, List<StepResult> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("accounts,threads,target_rate,served_rate,completed,refused,unserved,"
+                    + "p50_ns,p99_ns,p999_ns,max_ns,service_p99_ns,burst_p99_ns");
+            for (StepResult r : results) {
+                out.printf("%d,%d,%.0f,%.1f,%d,%d,%d,%d,%d,%d,%d,%d,%d%n", r.accounts(), r.threads(),
+                        r.targetRate(), r.achievedRate(), r.completed(), r.refused(), r.unserved(),
+                        r.latency().percentile(50), r.latency().percentile(99), r.latency().percentile(99.9),
+                        r.latency().getMaxNanos(), r.serviceTime().percentile(99), r.burstLatency().percentile(99));
+            }
+        }
+    }
+
+    // --- Targets ---
+
+    private Target open(int accounts) throws IOException {
+        TransactionJournal transactionJournal = openJournal();
+        AccountLedger ledger = new AccountLedger(accounts, transactionJournal);
+        Target system = target.equals("server")
+                ? new ServerTarget(ledger, accounts)
+                : new InProcessTarget(ledger, accounts);
+        if (transactionJournal == null) {
+            return system;
+        }
+        return new Target() {
+            @Override
+            public boolean execute(Operation operation, int account, long amountMinor) throws IOException {
+                return system.execute(operation, account, amountMinor);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try (transactionJournal) {
+                    system.close();
+                }
+            }
+        };
+    }
+
+    private TransactionJournal openJournal() throws IOException {
+        switch (journal) {
+            case "none":
+                return null;
+            case "temp": {
+                Path file = Files.createTempFile("atm-load", ".journal");
+                file.toFile().deleteOnExit();
+                Files.delete(file); // the journal creates its own file
+                return TransactionJournal.open(file);
+            }
+            default:
+                return TransactionJournal.open(Paths.get(journal));
+        }
+    }
+
+    static String accountNumber(int account) {
+        return String.format("LOAD%07d", account);
+    }
+
+    /** {@link BankAccount}s in this JVM. */
+    static final class InProcessTarget implements Target {
+
+        private final BankAccount[] accounts;
+
+        InProcessTarget(AccountLedger ledger, int count) {
+            accounts = new BankAccount[count];
+            for (int i = 0; i < count; i++) {
+                accounts[i] = new BankAccount(ledger, "Load Customer", accountNumber(i),
+                        AccountLedger.toMajor(INITIAL_BALANCE_MINOR));
+            }
+        }
+
+        @Override
+        public boolean execute(Operation operation, int account, long amountMinor) {
+            BankAccount bankAccount = accounts[account];
+            switch (operation) {
+                case DEPOSIT:
+                    bankAccount.deposit(AccountLedger.toMajor(amountMinor));
+                    return true;
+                case WITHDRAW:
+                    return bankAccount.withdraw(AccountLedger.toMajor(amountMinor));
+                case BALANCE:
+                    return bankAccount.checkBalance() >= 0;
+                default:
+                    return bankAccount.getTransactionHistory(0, HISTORY_PAGE) != null;
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * A stand-in {@link AtmServer} on a loopback port. Each account has its
+     * own connection, authenticated once; requests for one account take
+     * turns on it, like customers queueing at one terminal.
+     */
+    static final class ServerTarget implements Target {
+
+        private final AtmServer server;
+        private final Connection[] connections;
+
+        ServerTarget(AccountLedger ledger, int count) throws IOException {
+            AtmService service = new AtmService(ledger);
+            server = new AtmServer(service, 0);
+            Thread acceptor = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (IOException e) {
+                    Log.get("AtmLoadGenerator").error("Stand-in server stopped: %s", e.getMessage());
+                }
+            }, "atm-load-server");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            System.out.printf("# enrolling and signing in %d accounts on port %d...%n", count, server.getPort());
+            connections = new Connection[count];
+            IOException[] failure = new IOException[1];
+            IntStream.range(0, count).parallel().forEach(i -> {
+                try {
+                    service.openAccount("Load Customer", accountNumber(i), INITIAL_BALANCE_MINOR, PIN);
+                    connections[i] = new Connection(server.getPort(), accountNumber(i));
+                } catch (IOException e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                close();
+                throw failure[0];
+            }
+        }
+
+        @Override
+        public boolean execute(Operation operation, int account, long amountMinor) throws IOException {
+            switch (operation) {
+                case DEPOSIT:
+                    return connections[account].request("DEPOSIT " + AccountLedger.format(amountMinor), false);
+                case WITHDRAW:
+                    return connections[account].request("WITHDRAW " + AccountLedger.format(amountMinor), false);
+                case BALANCE:
+                    return connections[account].request("BALANCE", false);
+                default:
+                    return connections[account].request("HISTORY 0 " + HISTORY_PAGE, true);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Connection connection : connections) {
+                if (connection != null) {
+                    connection.close();
+                }
+            }
+            server.close();
+        }
+    }
+
+    /** One terminal's connection, signed in to one account. */
+    static final class Connection implements Closeable {
+
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Connection(int port, String accountNumber) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            if (!request("AUTH " + accountNumber + " " + PIN, false)) {
+                socket.close();
+                throw new IOException("Could not sign in to " + accountNumber);
+            }
+        }
+
+        /** Sends one command and reads its reply (and the lines it announces); true if it was OK. */
+        synchronized boolean request(String command, boolean multiLine) throws IOException {
+            out.write(command + "\n");
+            out.flush();
+            String reply = in.readLine();
+            if (reply == null) {
+                throw new IOException("Connection closed");
+            }
+            boolean ok = reply.startsWith("OK");
+            if (ok && multiLine) {
+                int lines = Integer.parseInt(reply.substring(3).trim());
+                for (int i = 0; i < lines; i++) {
+                    in.readLine();
+                }
+            }
+            return ok;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    // --- Arrivals ---
+
+    /**
+     * Hands out the arrival times of an open-loop schedule: evenly spaced at
+     * the rate, closer together during payday bursts. Shared by all workers.
+     */
+    static final class Schedule {
+
+        private final long start;
+        private final double intervalNanos;
+        private final long everyNanos;
+        private final long burstNanos;
+        private final double burstFactor;
+        private double next;
+
+        Schedule(long start, double rate, long everyNanos, long burstNanos, double burstFactor) {
+            if (!(rate > 0)) {
+                throw new IllegalArgumentException("Rate must be positive: " + rate);
+            }
+            this.start = start;
+            this.intervalNanos = 1e9 / rate;
+            this.everyNanos = everyNanos;
+            this.burstNanos = burstNanos;
+            this.burstFactor = burstFactor;
+            this.next = start;
+        }
+
+        /** The next arrival before {@code end}, or -1 when the step's arrivals are used up. */
+        synchronized long claim(long end) {
+            long at = (long) next;
+            if (at >= end) {
+                return -1;
+            }
+            next += inBurst(at) ? intervalNanos / burstFactor : intervalNanos;
+            return at;
+        }
+
+        /** Whether a time falls in a payday burst: the last {@code burstNanos} of every period. */
+        boolean inBurst(long at) {
+            return burstNanos > 0 && (at - start) % everyNanos >= everyNanos - burstNanos;
+        }
+    }
+
+    /** Which operation each request is, by weight. */
+    static final class Mix {
+
+        private final Operation[] operations;
+        private final int[] cumulative;
+
+        private Mix(Operation[] operations, int[] cumulative) {
+            this.operations = operations;
+            this.cumulative = cumulative;
+        }
+
+        /** Parses "deposit:30,withdraw:30,balance:35,history:5"; weights need not add up to 100. */
+        static Mix parse(String text) {
+            String[] parts = text.split(",");
+            Operation[] operations = new Operation[parts.length];
+            int[] cumulative = new int[parts.length];
+            int total = 0;
+            for (int i = 0; i < parts.length; i++) {
+                String[] pair = parts[i].trim().split(":");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("load.mix entries are operation:weight, not " + parts[i]);
+                }
+                try {
+                    operations[i] = Operation.valueOf(pair[0].trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown operation in load.mix: " + pair[0]
+                            + " (one of " + Arrays.toString(Operation.values()) + ")");
+                }
+                int weight = Integer.parseInt(pair[1].trim());
+                if (weight < 0) {
+                    throw new IllegalArgumentException("load.mix weights cannot be negative: " + parts[i]);
+                }
+                total += weight;
+                cumulative[i] = total;
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("load.mix needs a positive weight");
+            }
+            return new Mix(operations, cumulative);
+        }
+
+        Operation pick(ThreadLocalRandom random) {
+            int roll = random.nextInt(cumulative[cumulative.length - 1]);
+            int i = 0;
+            while (roll >= cumulative[i]) {
+                i++;
+            }
+            return operations[i];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < operations.length; i++) {
+                sb.append(i == 0 ? "" : ",").append(operations[i].name().toLowerCase())
+                  .append(':').append(cumulative[i] - (i == 0 ? 0 : cumulative[i - 1]));
+            }
+            return sb.toString();
+        }
+    }
+
+    /** Account picker where the k-th most popular account is chosen in proportion to 1/k^s. */
+    static final class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int accounts, double exponent) {
+            if (accounts < 1 || exponent < 0) {
+                throw new IllegalArgumentException("Need at least one account and a non-negative exponent");
+            }
+            cumulative = new double[accounts];
+            double total = 0;
+            for (int k = 0; k < accounts; k++) {
+                total += 1 / Math.pow(k + 1, exponent);
+                cumulative[k] = total;
+            }
+            for (int k = 0; k < accounts; k++) {
+                cumulative[k] /= total;
+            }
+        }
+
+        int sample(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+
+    // --- Configuration ---
+
+    private static int[] intList(String property, String defaults) {
+        String[] parts = System.getProperty(property, defaults).split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+            if (values[i] < 1) {
+                throw new IllegalArgumentException(property + " values must be positive: " + parts[i]);
+            }
+        }
+        return values;
+    }
+
+    private static long secondsProperty(String property, String defaults) {
+        double seconds = Double.parseDouble(System.getProperty(property, defaults));
+        if (seconds < 0) {
+            throw new IllegalArgumentException(property + " cannot be negative: " + seconds);
+        }
+        return (long) (seconds * 1e9);
+    }
+}
@@ -0,0 +1,214 @@
+import com.codsoft.common.Log;
+import com.codsoft.common.NumberParser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback socket front end for {@link AtmService}. Each terminal connection is
+ * served on its own virtual thread, so one JVM can hold tens of thousands of
+ * simulated terminals. Line protocol (amounts in rupees):
+ * <pre>
+ * AUTH &lt;account&gt; &lt;pin&gt;   -&gt; OK | DENIED | LOCKED
+ * DEPOSIT &lt;amount&gt;         -&gt; OK &lt;balance&gt; | INVALID_AMOUNT | OVER_LIMIT ...
+ * WITHDRAW &lt;amount&gt;        -&gt; OK &lt;balance&gt; | INSUFFICIENT_FUNDS ...
+ * BALANCE                  -&gt; OK &lt;balance&gt;
+ * DETAILS                  -&gt; OK &lt;n&gt; followed by n lines
+ * HISTORY &lt;offset&gt; &lt;limit&gt; -&gt; OK &lt;n&gt; followed by n lines
+ * QUIT
+ * </pre>
+ * A malformed amount or HISTORY argument gets INVALID_AMOUNT; a well-formed
+ * one outside its bounds (an amount of 0.01 up to the ledger's maximum
+ * balance, an offset of 0 or more, a limit of 1 to {@value #MAX_HISTORY_PAGE})
+ * gets OUT_OF_RANGE.
+ * A connection's session ends when the terminal authenticates again, quits,
+ * disconnects or fails; sessions of terminals that simply go quiet expire
+ * and are purged every {@value #PURGE_SECONDS} seconds while serving.
+ */
+public class AtmServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7070;
+    static final int PURGE_SECONDS = 60;
+    static final int MAX_HISTORY_PAGE = 100;
+
+    private static final Log LOG = Log.get("AtmServer");
+    private static final String INVALID_AMOUNT = AtmService.Status.INVALID_AMOUNT + "\n";
+    private static final String OUT_OF_RANGE = NumberParser.Status.OUT_OF_RANGE + "\n";
+
+    private final AtmService service;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "session-purger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AtmServer(AtmService service, int port) throws IOException {
+        this.service = service;
+        this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /** Accepts connections until the server is closed. */
+    public void serve() throws IOException {
+        purger.scheduleAtFixedRate(service::purgeExpiredSessions, PURGE_SECONDS, PURGE_SECONDS, TimeUnit.SECONDS);
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sessions.execute(() -> handle(socket));
+            } catch (SocketException e) {
+                if (!serverSocket.isClosed()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        AtmService.Session session = null;
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            NumberParser parser = new NumberParser(); // one per connection; it is not thread-safe
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                String command = parts[0].toUpperCase();
+                if (command.equals("QUIT")) {
+                    break;
+                }
+                if (command.equals("AUTH") && parts.length == 3) {
+                    service.logout(session); // a new AUTH replaces the connection's session
+                    session = null;
+                    AtmService.AuthResult result = service.authenticate(parts[1], parts[2]);
+                    session = result.session();
+                    out.write(result.status() + "\n");
+                } else {
+                    out.write(execute(session, parser, command, parts));
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            LOG.warn("Session ended: %s", e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.error("Session failed: %s", e);
+        } finally {
+            service.logout(session);
+        }
+    }
+
+    private String execute(AtmService.Session session, NumberParser parser, String command, String[] parts) {
+        switch (command) {
+            case "DEPOSIT":
+                NumberParser.Status depositStatus = parseAmount(parser, parts);
+                if (depositStatus != NumberParser.Status.OK) {
+                    return rejection(depositStatus);
+                }
+                return reply(service.deposit(session, parser.value()));
+            case "WITHDRAW":
+                NumberParser.Status withdrawStatus = parseAmount(parser, parts);
+                if (withdrawStatus != NumberParser.Status.OK) {
+                    return rejection(withdrawStatus);
+                }
+                return reply(service.withdraw(session, parser.value()));
+            case "BALANCE": {
+                AtmService.BalanceResult result = service.balance(session);
+                if (result.status() != AtmService.Status.OK) {
+                    return result.status() + "\n";
+                }
+                return "OK " + AccountLedger.format(result.balanceMinor()) + "\n";
+            }
+            case "DETAILS": {
+                AtmService.DetailsResult result = service.details(session);
+                if (result.status() != AtmService.Status.OK) {
+                    return result.status() + "\n";
+                }
+                String[] lines = result.details().split("\n");
+                return "OK " + lines.length + "\n" + String.join("\n", lines) + "\n";
+            }
+            case "HISTORY": {
+                int offset = 0;
+                int limit = 10;
+                if (parts.length > 1) {
+                    NumberParser.Status offsetStatus = parser.parseInt(parts[1], 0, Integer.MAX_VALUE);
+                    if (offsetStatus != NumberParser.Status.OK) {
+                        return rejection(offsetStatus);
+                    }
+                    offset = (int) parser.value();
+                }
+                if (parts.length > 2) {
+                    NumberParser.Status limitStatus = parser.parseInt(parts[2], 1, MAX_HISTORY_PAGE);
+                    if (limitStatus != NumberParser.Status.OK) {
+                        return rejection(limitStatus);
+                    }
+                    limit = (int) parser.value();
+                }
+                AtmService.HistoryResult result = service.history(session, offset, limit);
+                if (result.status() != AtmService.Status.OK) {
+                    return result.status() + "\n";
+                }
+                StringBuilder sb = new StringBuilder("OK ").append(result.records().size()).append('\n');
+                for (TransactionJournal.JournalRecord record : result.records()) {
+                    sb.append(BankAccount.describe(record)).append('\n');
+                }
+                return sb.toString();
+            }
+            default:
+                return "UNKNOWN_COMMAND\n";
+        }
+    }
+
+    /** Parses the amount argument into {@code parser.value()}; EMPTY if missing. */
+    private static NumberParser.Status parseAmount(NumberParser parser, String[] parts) {
+        return parts.length >= 2 ? AccountLedger.parseAmount(parser, parts[1]) : NumberParser.Status.EMPTY;
+    }
+
+    /** The reply to an argument the parser refused: OUT_OF_RANGE if well formed, INVALID_AMOUNT if not. */
+    private static String rejection(NumberParser.Status status) {
+        return status == NumberParser.Status.OUT_OF_RANGE ? OUT_OF_RANGE : INVALID_AMOUNT;
+    }
+
+    private static String reply(AtmService.TxResult result) {
+        if (result.status() == AtmService.Status.DENIED) {
+            return result.status() + "\n";
+        }
+        return result.status() + " " + AccountLedger.format(result.balanceMinor()) + "\n";
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdown();
+        purger.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        AtmService service = AtmService.start(Paths.get(ATMInterface.JOURNAL_FILE));
+        try (AtmServer server = new AtmServer(service, port)) {
+            LOG.info("ATM server listening on 127.0.0.1:%d", server.getPort());
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+import com.codsoft.common.Log;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Headless ATM operations. Every call returns a typed result instead of writing
+ * to a text area, so the same API serves the Swing frame, the socket front end
+ * ({@link AtmServer}) and load tests. All amounts are in paise.
+ * Operations take the {@link Session} returned by {@link #authenticate}; an
+ * expired or forged session is answered with {@link Status#DENIED}.
+ */
+public class AtmService {
+
+    private static final String DEMO_PIN = "1234";
+
+    /** Outcome of an ATM operation. */
+    public enum Status { OK, DENIED, LOCKED, INVALID_AMOUNT, INSUFFICIENT_FUNDS, OVER_LIMIT }
+
+    /** An authenticated card session. */
+    public record Session(String token, String accountNumber) {
+    }
+
+    public record AuthResult(Status status, Session session) {
+    }
+
+    public record TxResult(Status status, long amountMinor, long balanceMinor) {
+    }
+
+    public record BalanceResult(Status status, long balanceMinor) {
+    }
+
+    public record DetailsResult(Status status, String details) {
+    }
+
+    /** One page of history, newest first; {@code nextOffset} fetches the following page. */
+    public record HistoryResult(Status status, List<TransactionJournal.JournalRecord> records, int nextOffset) {
+    }
+
+    /** Where an account's history starts: its newest slot and how many records the chain holds. */
+    public record HistoryHead(Status status, long latestSlot, int size) {
+    }
+
+    /** One page read from a slot, newest first; {@code nextSlot} continues with older records (-1 at the end). */
+    public record HistoryPage(Status status, List<TransactionJournal.JournalRecord> records, long nextSlot) {
+    }
+
+    private final AccountLedger ledger;
+    private final CredentialStore credentials;
+    private final ConcurrentHashMap<String, BankAccount> accounts = new ConcurrentHashMap<>();
+
+    public AtmService(AccountLedger ledger) {
+        this(ledger, new CredentialStore());
+    }
+
+    public AtmService(AccountLedger ledger, CredentialStore credentials) {
+        this.ledger = ledger;
+        this.credentials = credentials;
+    }
+
+    /**
+     * Opens the journal, replays it and registers the demo account.
+     * The journal is closed by a shutdown hook.
+     */
+    public static AtmService start(Path journalFile) throws IOException {
+        TransactionJournal journal = TransactionJournal.open(journalFile);
+        AccountLedger ledger = new AccountLedger(journal);
+        ledger.recover();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                Log.get("AtmService").warn("Could not close journal: %s", e.getMessage());
+            }
+        }));
+
+        // Balance enquiry auditing is opt-in, e.g. -Datm.balanceAuditRate=64
+        Integer auditRate = Integer.getInteger("atm.balanceAuditRate");
+        if (auditRate != null) {
+            ledger.setAuditSampler(new BalanceAuditSampler(auditRate, 1000));
+        }
+
+        AtmService service = new AtmService(ledger);
+        service.openAccount("Neha Shinde", "COD12345", AccountLedger.toMinor(5000), DEMO_PIN);
+        return service;
+    }
+
+    public AccountLedger getLedger() {
+        return ledger;
+    }
+
+    /**
+     * Registers an account and its PIN (opening it on the ledger is a no-op
+     * if it was recovered from the journal).
+     */
+    public BankAccount openAccount(String holder, String accountNumber, long initialMinor, String pin) {
+        BankAccount account = accounts.computeIfAbsent(accountNumber,
+                number -> new BankAccount(ledger, holder, number, AccountLedger.toMajor(initialMinor)));
+        credentials.enroll(accountNumber, pin);
+        return account;
+    }
+
+    // --- Operations ---
+
+    public AuthResult authenticate(String accountNumber, String pin) {
+        CredentialStore.Verification verification = credentials.verify(accountNumber, pin);
+        switch (verification.outcome()) {
+            case OK:
+                return new AuthResult(Status.OK, new Session(verification.token(), accountNumber));
+            case LOCKED:
+                return new AuthResult(Status.LOCKED, null);
+            default: // a wrong PIN and an unknown account look the same to the caller
+                return new AuthResult(Status.DENIED, null);
+        }
+    }
+
+    public void logout(Session session) {
+        if (session != null) {
+            credentials.endSession(session.token());
+        }
+    }
+
+    /** Drops sessions that went idle past their timeout; run periodically by long-lived front ends. */
+    public void purgeExpiredSessions() {
+        credentials.purgeExpiredSessions();
+    }
+
+    public TxResult deposit(Session session, long amountMinor) {
+        if (!isValid(session)) {
+            return new TxResult(Status.DENIED, amountMinor, 0);
+        }
+        if (amountMinor <= 0) {
+            return new TxResult(Status.INVALID_AMOUNT, amountMinor, ledger.balance(session.accountNumber()));
+        }
+        long balance = ledger.deposit(session.accountNumber(), amountMinor);
+        if (balance < 0) {
+            return new TxResult(Status.OVER_LIMIT, amountMinor, ledger.balance(session.accountNumber()));
+        }
+        return new TxResult(Status.OK, amountMinor, balance);
+    }
+
+    public TxResult withdraw(Session session, long amountMinor) {
+        if (!isValid(session)) {
+            return new TxResult(Status.DENIED, amountMinor, 0);
+        }
+        String number = session.accountNumber();
+        if (amountMinor <= 0) {
+            return new TxResult(Status.INVALID_AMOUNT, amountMinor, ledger.balance(number));
+        }
+        if (!ledger.tryWithdraw(number, amountMinor)) {
+            return new TxResult(Status.INSUFFICIENT_FUNDS, amountMinor, ledger.balance(number));
+        }
+        return new TxResult(Status.OK, amountMinor, ledger.balance(number));
+    }
+
+    public BalanceResult balance(Session session) {
+        if (!isValid(session)) {
+            return new BalanceResult(Status.DENIED, 0);
+        }
+        return new BalanceResult(Status.OK, ledger.checkBalance(session.accountNumber()));
+    }
+
+    public DetailsResult details(Session session) {
+        if (!isValid(session)) {
+            return new DetailsResult(Status.DENIED, null);
+        }
+        return new DetailsResult(Status.OK, accounts.get(session.accountNumber()).getAccountDetails());
+    }
+
+    public HistoryResult history(Session session, int offset, int limit) {
+        if (!isValid(session)) {
+            return new HistoryResult(Status.DENIED, Collections.emptyList(), offset);
+        }
+        List<TransactionJournal.JournalRecord> page =
+                ledger.history(session.accountNumber(), Math.max(0, offset), Math.max(0, limit));
+        return new HistoryResult(Status.OK, page, Math.max(0, offset) + page.size());
+    }
+
+    public HistoryHead historyHead(Session session) {
+        if (!isValid(session)) {
+            return new HistoryHead(Status.DENIED, -1, 0);
+        }
+        // Size first: a record appended in between only makes the chain longer than reported
+        int size = ledger.historySize(session.accountNumber());
+        return new HistoryHead(Status.OK, ledger.latestSlot(session.accountNumber()), size);
+    }
+
+    /** Pages through history by slot, for views that keep their place in a long history. */
+    public HistoryPage historyFrom(Session session, long slot, int limit) {
+        if (!isValid(session)) {
+            return new HistoryPage(Status.DENIED, Collections.emptyList(), slot);
+        }
+        List<TransactionJournal.JournalRecord> page =
+                ledger.historyFrom(session.accountNumber(), slot, Math.max(0, limit));
+        long nextSlot = page.isEmpty() ? -1 : page.get(page.size() - 1).previousSlot();
+        return new HistoryPage(Status.OK, page, nextSlot);
+    }
+
+    // Session check is a map lookup; the PIN hash is only computed in authenticate
+    private boolean isValid(Session session) {
+        return session != null && session.accountNumber().equals(credentials.resolve(session.token()));
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in auditing of balance enquiries. Instead of writing a history line per
+ * enquiry, one in {@code sampleRate} enquiries is counted against the account,
+ * and at most {@code maxSamplesPerSecond} samples are taken across the ledger.
+ * Deciding whether to sample allocates nothing.
+ */
+public class BalanceAuditSampler {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int sampleMask;
+    private final long maxSamplesPerSecond;
+    private final long startNanos = System.nanoTime(); // seconds count from here: nanoTime may be negative
+
+    // (current second << COUNT_BITS) | samples taken in that second
+    private final AtomicLong window = new AtomicLong();
+
+    /**
+     * @param sampleRate          sample one in this many enquiries (rounded up to a power of two)
+     * @param maxSamplesPerSecond cap on samples per second across all accounts
+     */
+    public BalanceAuditSampler(int sampleRate, long maxSamplesPerSecond) {
+        if (sampleRate < 1 || sampleRate > (1 << 30)) {
+            throw new IllegalArgumentException("Sample rate out of range: " + sampleRate);
+        }
+        if (maxSamplesPerSecond < 1 || maxSamplesPerSecond > COUNT_MASK) {
+            throw new IllegalArgumentException("Samples per second out of range: " + maxSamplesPerSecond);
+        }
+        int rate = sampleRate == 1 ? 1 : Integer.highestOneBit(sampleRate - 1) << 1;
+        this.sampleMask = rate - 1;
+        this.maxSamplesPerSecond = maxSamplesPerSecond;
+    }
+
+    /** Effective sampling rate (power of two). */
+    public int getSampleRate() {
+        return sampleMask + 1;
+    }
+
+    /** Decides whether this enquiry is recorded. */
+    boolean sample() {
+        if ((ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return false;
+        }
+        long second = (System.nanoTime() - startNanos) / 1_000_000_000L;
+        while (true) {
+            long current = window.get();
+            long count = (current >>> COUNT_BITS) == second ? current & COUNT_MASK : 0;
+            if (count >= maxSamplesPerSecond) {
+                return false;
+            }
+            if (window.compareAndSet(current, (second << COUNT_BITS) | (count + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /** Rough number of enquiries represented by a sampled count. */
+    public long estimateChecks(long sampledCount) {
+        return sampledCount * getSampleRate();
+    }
+}
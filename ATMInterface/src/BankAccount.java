@@ -0,0 +1,93 @@
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Represents a simple bank account (a view over the shared AccountLedger)
+class BankAccount {
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final AccountLedger ledger;
+    private String accountHolder;
+    private String accountNumber;
+
+    public BankAccount(String accountHolder, String accountNumber, double initialBalance) {
+        this(AccountLedger.getDefault(), accountHolder, accountNumber, initialBalance);
+    }
+
+    public BankAccount(AccountLedger ledger, String accountHolder, String accountNumber, double initialBalance) {
+        this.ledger = ledger;
+        this.accountHolder = accountHolder;
+        this.accountNumber = accountNumber;
+        // Opening is a no-op if the account was already recovered from the journal
+        ledger.open(accountNumber, AccountLedger.toMinor(initialBalance));
+    }
+
+    public void deposit(double amount) {
+        if (amount > 0) {
+            ledger.deposit(accountNumber, AccountLedger.toMinor(amount));
+        }
+    }
+
+    // Balance check and debit happen in one atomic ledger step
+    public boolean withdraw(double amount) {
+        return amount > 0 && ledger.tryWithdraw(accountNumber, AccountLedger.toMinor(amount));
+    }
+
+    // Pure read, used for validation and display
+    public double getBalance() {
+        return AccountLedger.toMajor(ledger.balance(accountNumber));
+    }
+
+    // Customer balance enquiry (counted by the audit sampler when enabled)
+    public double checkBalance() {
+        return AccountLedger.toMajor(ledger.checkBalance(accountNumber));
+    }
+
+    // Masked account number for privacy
+    public String getMaskedAccountNumber() {
+        if (accountNumber.length() > 5) {
+            return accountNumber.substring(0, 3) + "****" + accountNumber.substring(accountNumber.length() - 2);
+        }
+        return "****"; // fallback if account number too short
+    }
+
+    public String getAccountDetails() {
+        return "👤 Account Holder: " + accountHolder +
+               "\n🏦 Account Number: " + getMaskedAccountNumber() +
+               "\n💰 Current Balance: ₹" + AccountLedger.format(ledger.balance(accountNumber));
+    }
+
+    // One page of history, newest first, read from the journal
+    public List<String> getTransactionHistory(int offset, int limit) {
+        List<String> page = new ArrayList<>();
+        for (TransactionJournal.JournalRecord record : ledger.history(accountNumber, offset, limit)) {
+            page.add(describe(record));
+        }
+        return page;
+    }
+
+    static String describe(TransactionJournal.JournalRecord record) {
+        String when = TIME_FORMAT.format(Instant.ofEpochMilli(record.timestamp()));
+        String amount = "₹" + AccountLedger.format(record.amountMinor());
+        String balance = " (balance ₹" + AccountLedger.format(record.balanceAfterMinor()) + ")";
+        switch (record.type()) {
+            case OPEN:
+                return when + " Account created with initial balance " + amount;
+            case DEPOSIT:
+                return when + " Deposited " + amount + balance;
+            case WITHDRAW:
+                return when + " Withdrawn " + amount + balance;
+            case TRANSFER_IN:
+                return when + " Transfer received " + amount + balance;
+            case REVERSAL:
+                return when + " Reversed debit " + amount + balance;
+            case INTEREST:
+                return when + " Interest credited " + amount + balance;
+            default:
+                return when + " Transfer sent " + amount + balance;
+        }
+    }
+}
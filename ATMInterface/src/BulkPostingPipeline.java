@@ -0,0 +1,259 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Posts large streams of transfer instructions (salary credits, settlement
+ * files) to the {@link AccountLedger} in batches. Each batch is all or nothing:
+ * its legs are netted per account, the stripes of every touched account are
+ * locked in ascending order (so batches never deadlock each other), every
+ * debit is first reserved with {@link AccountLedger#hold} and every credit
+ * with {@link AccountLedger#holdCredit} (room under the balance limit). Only
+ * when all of them fit are the debits and credits applied; if one doesn't, the holds
+ * are dropped and no balance anyone could see has changed. The batch is then
+ * journaled as one framed group, so after a crash it is replayed whole or not
+ * at all. Batches run in parallel on a worker pool; batches touching
+ * different stripes don't wait for each other. The journal is awaited once
+ * per batch instead of once per posting.
+ */
+public class BulkPostingPipeline {
+
+    /**
+     * One instruction. A null {@code fromAccount} is an external credit
+     * (e.g. salary), a null {@code toAccount} an external debit.
+     */
+    public record Instruction(long id, String fromAccount, String toAccount, long amountMinor) {
+    }
+
+    public enum Outcome { APPLIED, INVALID_AMOUNT, UNKNOWN_ACCOUNT, INSUFFICIENT_FUNDS, BALANCE_LIMIT, BATCH_ROLLED_BACK }
+
+    public record Result(long instructionId, Outcome outcome) {
+    }
+
+    public record Summary(long instructions, long applied, long rejected, long batches, long elapsedNanos) {
+        public double instructionsPerSecond() {
+            return elapsedNanos == 0 ? 0 : instructions * 1e9 / elapsedNanos;
+        }
+    }
+
+    private final AccountLedger ledger;
+    private final int batchSize;
+    private final int parallelism;
+
+    public BulkPostingPipeline(AccountLedger ledger, int batchSize, int parallelism) {
+        if (batchSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Batch size and parallelism must be positive");
+        }
+        this.ledger = ledger;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Posts every instruction and reports one result per instruction to
+     * {@code results} (called from worker threads, so it must be thread-safe).
+     * At most {@code 2 * parallelism} batches are held in memory at once.
+     * If a batch fails unexpectedly (a netted amount overflowing, the journal
+     * failing) no further batches are started, the running ones finish, and
+     * an {@link IllegalStateException} carrying the first failure is thrown;
+     * batches already reported stay posted.
+     */
+    public Summary post(Iterator<Instruction> instructions, Consumer<Result> results) throws InterruptedException {
+        LongAdder applied = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        long total = 0;
+        long batches = 0;
+        long start = System.nanoTime();
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            while (instructions.hasNext() && failure.get() == null) {
+                List<Instruction> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && instructions.hasNext()) {
+                    batch.add(instructions.next());
+                }
+                total += batch.size();
+                batches++;
+
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        Outcome[] outcomes = postBatch(batch);
+                        for (int i = 0; i < outcomes.length; i++) {
+                            (outcomes[i] == Outcome.APPLIED ? applied : rejected).increment();
+                            results.accept(new Result(batch.get(i).id(), outcomes[i]));
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Bulk posting stopped after " + applied.sum()
+                    + " applied instruction(s): a batch failed", failure.get());
+        }
+        return new Summary(total, applied.sum(), rejected.sum(), batches, System.nanoTime() - start);
+    }
+
+    /** Applies one batch atomically; returns the outcome of each instruction in order. */
+    Outcome[] postBatch(List<Instruction> batch) {
+        Outcome[] outcomes = new Outcome[batch.size()];
+
+        // 1. Validate every instruction before touching any balance
+        boolean valid = true;
+        for (int i = 0; i < batch.size(); i++) {
+            outcomes[i] = validate(batch.get(i));
+            valid &= outcomes[i] == Outcome.APPLIED;
+        }
+        if (!valid) {
+            return rollBack(outcomes);
+        }
+
+        // 2. Net the legs per account, sorted by account number
+        Leg[] legs = netLegs(batch);
+
+        // 3. Lock the touched stripes in ascending order
+        int[] stripeIds = new int[legs.length];
+        for (int i = 0; i < legs.length; i++) {
+            stripeIds[i] = ledger.stripeOf(legs[i].account);
+        }
+        int[] order = Arrays.stream(stripeIds).sorted().distinct().toArray();
+        for (int stripe : order) {
+            ledger.stripe(stripe).lock();
+        }
+        int count = 0;
+        TransactionJournal.RecordType[] types = new TransactionJournal.RecordType[legs.length];
+        String[] accounts = new String[legs.length];
+        long[] amounts = new long[legs.length];
+        long[] balances = new long[legs.length];
+        boolean settled = false;
+        long slot;
+        try {
+            // 4. Reserve every debit and room for every credit; nothing has moved if one doesn't fit
+            for (Leg leg : legs) {
+                if (leg.delta < 0 && !ledger.hold(leg.account, -leg.delta)) {
+                    mark(batch, outcomes, leg.account, Outcome.INSUFFICIENT_FUNDS);
+                    return rollBack(outcomes);
+                }
+                if (leg.delta > 0 && !ledger.holdCredit(leg.account, leg.delta)) {
+                    mark(batch, outcomes, leg.account, Outcome.BALANCE_LIMIT);
+                    return rollBack(outcomes);
+                }
+                leg.held = leg.delta != 0;
+            }
+            // 5. Apply: settle the holds, which can't fail now
+            for (Leg leg : legs) {
+                if (leg.delta == 0) {
+                    continue;
+                }
+                types[count] = leg.delta < 0
+                        ? TransactionJournal.RecordType.TRANSFER_OUT : TransactionJournal.RecordType.TRANSFER_IN;
+                accounts[count] = leg.account;
+                amounts[count] = Math.abs(leg.delta);
+                balances[count] = leg.delta < 0
+                        ? ledger.settle(leg.account, -leg.delta) : ledger.credit(leg.account, leg.delta);
+                count++;
+            }
+            settled = true;
+            // 6. One framed journal group, so replay sees all of the batch or none
+            slot = ledger.journalBatch(count, types, accounts, amounts, balances);
+        } finally {
+            if (!settled) {
+                for (Leg leg : legs) {
+                    if (leg.held) {
+                        ledger.release(leg.account);
+                    }
+                }
+            }
+            for (int i = order.length - 1; i >= 0; i--) {
+                ledger.stripe(order[i]).unlock();
+            }
+        }
+        ledger.awaitDurable(slot); // wait for fsync outside the stripes
+        return outcomes;
+    }
+
+    private Outcome validate(Instruction instruction) {
+        if (instruction.amountMinor() <= 0 || instruction.amountMinor() > AccountLedger.MAX_BALANCE
+                || (instruction.fromAccount() == null && instruction.toAccount() == null)
+                || (instruction.fromAccount() != null && instruction.fromAccount().equals(instruction.toAccount()))) {
+            return Outcome.INVALID_AMOUNT;
+        }
+        if ((instruction.fromAccount() != null && !ledger.exists(instruction.fromAccount()))
+                || (instruction.toAccount() != null && !ledger.exists(instruction.toAccount()))) {
+            return Outcome.UNKNOWN_ACCOUNT;
+        }
+        return Outcome.APPLIED;
+    }
+
+    private static Leg[] netLegs(List<Instruction> batch) {
+        List<Leg> raw = new ArrayList<>(batch.size() * 2);
+        for (Instruction instruction : batch) {
+            if (instruction.fromAccount() != null) {
+                raw.add(new Leg(instruction.fromAccount(), -instruction.amountMinor()));
+            }
+            if (instruction.toAccount() != null) {
+                raw.add(new Leg(instruction.toAccount(), instruction.amountMinor()));
+            }
+        }
+        raw.sort((a, b) -> a.account.compareTo(b.account));
+
+        List<Leg> netted = new ArrayList<>();
+        for (Leg leg : raw) {
+            Leg last = netted.isEmpty() ? null : netted.get(netted.size() - 1);
+            if (last != null && last.account.equals(leg.account)) {
+                last.delta = Math.addExact(last.delta, leg.delta);
+            } else {
+                netted.add(new Leg(leg.account, leg.delta));
+            }
+        }
+        return netted.toArray(new Leg[0]);
+    }
+
+    /** Blames the instructions debiting (or, for a limit, crediting) the account that didn't fit. */
+    private static void mark(List<Instruction> batch, Outcome[] outcomes, String account, Outcome outcome) {
+        for (int i = 0; i < batch.size(); i++) {
+            Instruction instruction = batch.get(i);
+            if (account.equals(outcome == Outcome.BALANCE_LIMIT ? instruction.toAccount() : instruction.fromAccount())) {
+                outcomes[i] = outcome;
+            }
+        }
+    }
+
+    private static Outcome[] rollBack(Outcome[] outcomes) {
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == Outcome.APPLIED) {
+                outcomes[i] = Outcome.BATCH_ROLLED_BACK;
+            }
+        }
+        return outcomes;
+    }
+
+    /** Net movement of one account within a batch. */
+    private static final class Leg {
+        final String account;
+        long delta;
+        boolean held;
+
+        Leg(String account, long delta) {
+            this.account = account;
+            this.delta = delta;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Per-account PIN credentials. PINs are stored as salted PBKDF2 hashes and
+ * compared in constant time. A successful verification yields a session token,
+ * so later operations are checked with a map lookup instead of re-hashing.
+ * Each card is locked out after too many failures within a sliding window;
+ * attempts still being verified count towards the limit, so parallel guesses
+ * can't slip past it. An account number that isn't enrolled is verified
+ * against a dummy credential and locked out the same way, so its answer and
+ * its timing are those of a wrong PIN: callers can't probe which accounts
+ * exist. Its failures go to one of a fixed set of windows picked by hash, so
+ * guesses at made-up numbers can't grow the store.
+ */
+public class CredentialStore {
+
+    /** Result of a PIN verification. */
+    public enum Outcome { OK, WRONG_PIN, LOCKED }
+
+    /** Outcome plus the new session token when the PIN was correct. */
+    public record Verification(Outcome outcome, String token) {
+    }
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int ITERATIONS = 10_000;
+    private static final int HASH_BITS = 256;
+    private static final int SALT_BYTES = 16;
+    private static final int UNKNOWN_WINDOWS = 4096; // power of two
+
+    private final int maxFailures;
+    private final long failureWindowNanos;
+    private final long sessionIdleNanos;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<String, Credential> credentials = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, FailureWindow> failures = new ConcurrentHashMap<>(); // enrolled only
+    private final FailureWindow[] unknownFailures = new FailureWindow[UNKNOWN_WINDOWS];
+    private final ConcurrentHashMap<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+    private final Credential unknown; // never matches: its hash is of random bytes, not of any PIN
+
+    public CredentialStore() {
+        this(3, TimeUnit.MINUTES.toNanos(5), TimeUnit.MINUTES.toNanos(5));
+    }
+
+    public CredentialStore(int maxFailures, long failureWindowNanos, long sessionIdleNanos) {
+        this.maxFailures = maxFailures;
+        this.failureWindowNanos = failureWindowNanos;
+        this.sessionIdleNanos = sessionIdleNanos;
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] hash = new byte[HASH_BITS / 8];
+        random.nextBytes(salt);
+        random.nextBytes(hash);
+        this.unknown = new Credential(salt, hash);
+        for (int i = 0; i < UNKNOWN_WINDOWS; i++) {
+            unknownFailures[i] = new FailureWindow(maxFailures);
+        }
+    }
+
+    // --- Credentials ---
+
+    public void enroll(String accountNumber, String pin) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        credentials.put(accountNumber, new Credential(salt, hash(pin, salt)));
+    }
+
+    public boolean isEnrolled(String accountNumber) {
+        return credentials.containsKey(accountNumber);
+    }
+
+    /**
+     * Verifies a PIN and opens a session when it is correct. An unknown
+     * account costs the same hash and answers the same as a wrong PIN.
+     */
+    public Verification verify(String accountNumber, String pin) {
+        Credential credential = credentials.getOrDefault(accountNumber, unknown);
+        FailureWindow window;
+        FailureWindow.Begin begin;
+        do {
+            window = credential == unknown
+                    ? unknownFailures[accountNumber.hashCode() & (UNKNOWN_WINDOWS - 1)]
+                    : failures.computeIfAbsent(accountNumber, k -> new FailureWindow(maxFailures));
+            begin = window.tryBegin(System.nanoTime(), failureWindowNanos);
+        } while (begin == FailureWindow.Begin.RETIRED); // purged meanwhile: its replacement counts
+        if (begin == FailureWindow.Begin.LOCKED) {
+            return new Verification(Outcome.LOCKED, null);
+        }
+        boolean matches = false;
+        try {
+            byte[] attempt = hash(pin == null ? "" : pin, credential.salt);
+            matches = pin != null && credential != unknown && MessageDigest.isEqual(credential.hash, attempt);
+        } finally {
+            window.end(matches, System.nanoTime());
+        }
+        if (!matches) {
+            return new Verification(Outcome.WRONG_PIN, null);
+        }
+        String token = newToken();
+        sessions.put(token, new SessionEntry(accountNumber, System.nanoTime() + sessionIdleNanos));
+        return new Verification(Outcome.OK, token);
+    }
+
+    // --- Sessions ---
+
+    /** Returns the account a live session belongs to (extending its idle timeout), or null. */
+    public String resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+        SessionEntry entry = sessions.get(token);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.expiresAt > 0) {
+            sessions.remove(token, entry);
+            return null;
+        }
+        entry.expiresAt = now + sessionIdleNanos;
+        return entry.accountNumber;
+    }
+
+    public void endSession(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Drops expired sessions, and failure windows whose failures are all
+     * older than the window. A window is retired under its own lock before it
+     * leaves the map, so a verification that already holds it starts over on
+     * a fresh one rather than counting a failure nobody will see. Callers
+     * should run this periodically.
+     */
+    public void purgeExpiredSessions() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(entry -> now - entry.expiresAt > 0);
+        for (Map.Entry<String, FailureWindow> entry : failures.entrySet()) {
+            FailureWindow window = entry.getValue();
+            if (window.retireIfIdle(now, failureWindowNanos)) {
+                failures.remove(entry.getKey(), window);
+            }
+        }
+    }
+
+    // --- Helpers ---
+
+    private static byte[] hash(String pin, byte[] salt) {
+        char[] chars = pin.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, ITERATIONS, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static final class Credential {
+        final byte[] salt;
+        final byte[] hash;
+
+        Credential(byte[] salt, byte[] hash) {
+            this.salt = salt;
+            this.hash = hash;
+        }
+    }
+
+    private static final class SessionEntry {
+        final String accountNumber;
+        volatile long expiresAt;
+
+        SessionEntry(String accountNumber, long expiresAt) {
+            this.accountNumber = accountNumber;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** Sliding window of recent failure times for one card. */
+    private static final class FailureWindow {
+
+        enum Begin { BEGUN, LOCKED, RETIRED }
+
+        private final long[] failedAt; // ring of the newest failure timestamps
+        private int count;
+        private int next;
+        private int inFlight;
+        private boolean retired; // purged from the map: take a fresh window instead
+
+        FailureWindow(int maxFailures) {
+            this.failedAt = new long[maxFailures];
+        }
+
+        /** Reserves an attempt unless failures plus pending attempts already reach the limit. */
+        synchronized Begin tryBegin(long now, long windowNanos) {
+            if (retired) {
+                return Begin.RETIRED;
+            }
+            while (count > 0) {
+                int oldest = Math.floorMod(next - count, failedAt.length);
+                if (now - failedAt[oldest] <= windowNanos) {
+                    break;
+                }
+                count--;
+            }
+            if (count + inFlight >= failedAt.length) {
+                return Begin.LOCKED;
+            }
+            inFlight++;
+            return Begin.BEGUN;
+        }
+
+        /**
+         * Retires the window, and returns true, if no attempt is pending and
+         * every recorded failure has left the window.
+         */
+        synchronized boolean retireIfIdle(long now, long windowNanos) {
+            if (inFlight > 0) {
+                return false;
+            }
+            int newest = Math.floorMod(next - 1, failedAt.length);
+            retired = count == 0 || now - failedAt[newest] > windowNanos;
+            return retired;
+        }
+
+        synchronized void end(boolean success, long now) {
+            inFlight--;
+            if (success) {
+                count = 0;
+            } else {
+                failedAt[next] = now;
+                next = (next + 1) % failedAt.length;
+                count = Math.min(count + 1, failedAt.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,445 @@
+import com.codsoft.common.Log;
+import com.codsoft.common.MoneyMath;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * End-of-day batch: writes a statement for every account and credits
+ * interest on its daily balances for a closed period of whole days.
+ *
+ * Accounts are split into a fixed number of partitions by hash, and the
+ * partitions run in parallel on a fork-join pool. Each account's journal
+ * chain is walked once, newest first, back to the last record before the
+ * period; that one walk gives the opening balance, the period's
+ * transactions and the balance at the end of every day. Interest is the sum
+ * of the end-of-day balances times the yearly rate over 365 (Actual/365),
+ * rounded once, half-even, and is posted as an {@code INTEREST} record.
+ * The journal is awaited once per partition.
+ *
+ * Each partition writes its statements through a buffered writer to its own
+ * part file and forces it, then records a checkpoint. A run that is
+ * interrupted is resumed by starting it again with the same period and
+ * output directory: finished partitions are skipped, and an unfinished one
+ * recognises interest it already posted (an {@code INTEREST} record newer
+ * than the run's start) instead of posting it twice. When every partition is
+ * done the parts are concatenated with {@code transferTo} into
+ * {@code statements-<period>.txt}. Only one run may be unfinished in an
+ * output directory at a time.
+ *
+ * Usage: {@code EndOfDayBatch [yyyy-mm-dd] [outputDir]}, defaulting to
+ * yesterday and the working directory. It opens {@link ATMInterface#JOURNAL_FILE}
+ * itself, so no terminal or server may have it open. Configured with
+ * {@code -Deod.rate=percent} (yearly, default 3.5), {@code -Deod.partitions=N}
+ * (default 64) and {@code -Deod.parallelism=N} (default: CPUs).
+ */
+public class EndOfDayBatch {
+
+    /** Outcome of one run, including partitions finished by an earlier attempt. */
+    public record Summary(long accounts, long statements, long interestMinor, long alreadyCredited,
+                          int partitionsResumed, long elapsedNanos) {
+        public double accountsPerSecond() {
+            return elapsedNanos == 0 ? 0 : accounts * 1e9 / elapsedNanos;
+        }
+    }
+
+    /** One partition's totals, as kept in its checkpoint. */
+    private record Totals(long accounts, long statements, long interestMinor, long alreadyCredited) {
+    }
+
+    private static final int PAGE = 256;
+    private static final int OUT_BUFFER = 256 * 1024;
+    private static final long DAYS_PER_YEAR = 365;
+    private static final Log LOG = Log.get("EndOfDay");
+
+    private final AccountLedger ledger;
+    private final double ratePercent;
+    private final int partitions;
+    private final int parallelism;
+    private final ZoneId zone;
+
+    public EndOfDayBatch(AccountLedger ledger, double ratePercent, int partitions, int parallelism) {
+        this(ledger, ratePercent, partitions, parallelism, ZoneId.systemDefault());
+    }
+
+    public EndOfDayBatch(AccountLedger ledger, double ratePercent, int partitions, int parallelism, ZoneId zone) {
+        if (!ledger.isJournaled()) {
+            throw new IllegalArgumentException("Statements need a journaled ledger");
+        }
+        if (!(ratePercent >= 0) || ratePercent > 100) {
+            throw new IllegalArgumentException("Rate out of range: " + ratePercent);
+        }
+        if (partitions < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Partitions and parallelism must be positive");
+        }
+        this.ledger = ledger;
+        this.ratePercent = ratePercent;
+        this.partitions = partitions;
+        this.parallelism = parallelism;
+        this.zone = zone;
+    }
+
+    /**
+     * Runs (or resumes) the batch for the days {@code first} to {@code last}
+     * inclusive, which must be over. Throws {@link IllegalStateException} if
+     * this period was already completed or another run in the directory is
+     * unfinished.
+     */
+    public Summary run(LocalDate first, LocalDate last, Path outputDir) throws IOException {
+        long start = System.nanoTime();
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException("Period ends before it starts: " + first + " to " + last);
+        }
+        long from = first.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = last.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        if (to > System.currentTimeMillis()) {
+            throw new IllegalArgumentException("Period has not ended yet: " + last);
+        }
+
+        Files.createDirectories(outputDir);
+        String stem = "statements-" + (first.equals(last) ? first.toString() : first + "_" + last);
+        Path manifest = outputDir.resolve(stem + ".run");
+        Properties run = startOrResume(manifest, outputDir, first, last);
+        long startedMillis = Long.parseLong(run.getProperty("started"));
+        int count = Integer.parseInt(run.getProperty("partitions"));
+        long fixedRate = ratePercent == 0 ? 0 : MoneyMath.toFixedRate(ratePercent / 100);
+
+        // Partitioning by hash is stable, so a resumed run assigns accounts as the first attempt did
+        List<List<String>> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accounts.add(new ArrayList<>());
+        }
+        for (String account : ledger.accountNumbers()) {
+            accounts.get(Math.floorMod(account.hashCode(), count)).add(account);
+        }
+
+        Path[] parts = new Path[count];
+        Path[] checkpoints = new Path[count];
+        Totals[] totals = new Totals[count];
+        int resumed = 0;
+        for (int i = 0; i < count; i++) {
+            parts[i] = outputDir.resolve(stem + ".part-" + i);
+            checkpoints[i] = outputDir.resolve(stem + ".part-" + i + ".done");
+            if (Files.exists(checkpoints[i])) {
+                totals[i] = readTotals(checkpoints[i]);
+                resumed++;
+            }
+        }
+        if (resumed > 0) {
+            LOG.info("Resuming %s: %d of %d partitions already done", stem, resumed, count);
+        }
+
+        Period period = new Period(first, last, from, to, startedMillis, fixedRate);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new PartitionTask(period, accounts, parts, checkpoints, totals, 0, count));
+        } finally {
+            pool.shutdown();
+        }
+
+        Path statements = outputDir.resolve(stem + ".txt");
+        try (FileChannel out = FileChannel.open(statements, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long done = 0; done < size; ) {
+                        done += in.transferTo(done, size - done, out);
+                    }
+                }
+            }
+            out.force(true);
+        }
+        run.setProperty("complete", "true");
+        writeAtomically(manifest, run);
+        for (int i = 0; i < count; i++) {
+            Files.delete(parts[i]);
+            Files.delete(checkpoints[i]);
+        }
+
+        long accountTotal = 0;
+        long statementTotal = 0;
+        long interestTotal = 0;
+        long creditedTotal = 0;
+        for (Totals partition : totals) {
+            accountTotal += partition.accounts();
+            statementTotal += partition.statements();
+            interestTotal += partition.interestMinor();
+            creditedTotal += partition.alreadyCredited();
+        }
+        return new Summary(accountTotal, statementTotal, interestTotal, creditedTotal, resumed,
+                System.nanoTime() - start);
+    }
+
+    // --- Run manifest ---
+
+    /** Loads this period's manifest, or writes a new one; refuses finished and conflicting runs. */
+    private Properties startOrResume(Path manifest, Path outputDir, LocalDate first, LocalDate last)
+            throws IOException {
+        try (DirectoryStream<Path> runs = Files.newDirectoryStream(outputDir, "statements-*.run")) {
+            for (Path other : runs) {
+                if (!other.equals(manifest) && !Boolean.parseBoolean(readProperties(other).getProperty("complete"))) {
+                    throw new IllegalStateException("Unfinished run " + other.getFileName() + "; resume it first");
+                }
+            }
+        }
+        if (!Files.exists(manifest)) {
+            Properties run = new Properties();
+            run.setProperty("first", first.toString());
+            run.setProperty("last", last.toString());
+            run.setProperty("partitions", String.valueOf(partitions));
+            run.setProperty("rate", String.valueOf(ratePercent));
+            run.setProperty("started", String.valueOf(System.currentTimeMillis()));
+            run.setProperty("complete", "false");
+            writeAtomically(manifest, run);
+            return run;
+        }
+        Properties run = readProperties(manifest);
+        if (Boolean.parseBoolean(run.getProperty("complete"))) {
+            throw new IllegalStateException("Period " + first + " to " + last + " was already completed");
+        }
+        if (Double.parseDouble(run.getProperty("rate")) != ratePercent) {
+            throw new IllegalStateException("Run was started with eod.rate=" + run.getProperty("rate"));
+        }
+        return run;
+    }
+
+    private static Totals readTotals(Path checkpoint) throws IOException {
+        Properties done = readProperties(checkpoint);
+        return new Totals(Long.parseLong(done.getProperty("accounts")),
+                Long.parseLong(done.getProperty("statements")),
+                Long.parseLong(done.getProperty("interest")),
+                Long.parseLong(done.getProperty("alreadyCredited")));
+    }
+
+    private static Properties readProperties(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    /** Writes to a temporary file, forces it and renames it over {@code file}. */
+    private static void writeAtomically(Path file, Properties properties) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            properties.store(out, null);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // --- Partitions ---
+
+    /** The period in epoch millis plus what every account needs to know about the run. */
+    private record Period(LocalDate first, LocalDate last, long from, long to, long startedMillis, long fixedRate) {
+    }
+
+    private final class PartitionTask extends RecursiveAction {
+        private final Period period;
+        private final List<List<String>> accounts;
+        private final Path[] parts;
+        private final Path[] checkpoints;
+        private final Totals[] totals;
+        private final int from;
+        private final int to;
+
+        PartitionTask(Period period, List<List<String>> accounts, Path[] parts, Path[] checkpoints,
+                      Totals[] totals, int from, int to) {
+            this.period = period;
+            this.accounts = accounts;
+            this.parts = parts;
+            this.checkpoints = checkpoints;
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PartitionTask(period, accounts, parts, checkpoints, totals, from, mid),
+                        new PartitionTask(period, accounts, parts, checkpoints, totals, mid, to));
+                return;
+            }
+            if (totals[from] != null) {
+                return; // finished by an earlier attempt
+            }
+            try {
+                totals[from] = runPartition(period, accounts.get(from), parts[from], checkpoints[from]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the statements of one partition and posts its interest. The
+     * checkpoint is only written once both the part file and the interest
+     * records are on disk.
+     */
+    private Totals runPartition(Period period, List<String> accounts, Path part, Path checkpoint) throws IOException {
+        Collections.sort(accounts);
+        long statements = 0;
+        long interest = 0;
+        long alreadyCredited = 0;
+        long lastSlot = -1;
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedWriter out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), OUT_BUFFER);
+            for (String account : accounts) {
+                Accrual accrual = statement(period, account, out);
+                if (accrual == null) {
+                    continue;
+                }
+                statements++;
+                interest += accrual.interestMinor();
+                if (accrual.alreadyCredited()) {
+                    alreadyCredited++;
+                } else if (accrual.interestMinor() > 0) {
+                    lastSlot = Math.max(lastSlot, ledger.postCredit(account, accrual.interestMinor(),
+                            TransactionJournal.RecordType.INTEREST));
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        ledger.awaitDurable(lastSlot);
+
+        Properties done = new Properties();
+        done.setProperty("accounts", String.valueOf(accounts.size()));
+        done.setProperty("statements", String.valueOf(statements));
+        done.setProperty("interest", String.valueOf(interest));
+        done.setProperty("alreadyCredited", String.valueOf(alreadyCredited));
+        writeAtomically(checkpoint, done);
+        return new Totals(accounts.size(), statements, interest, alreadyCredited);
+    }
+
+    // --- Statements ---
+
+    /** Interest of one account for the period, and whether an earlier attempt already posted it. */
+    private record Accrual(long interestMinor, boolean alreadyCredited) {
+    }
+
+    /**
+     * Writes one account's statement and returns its interest, or null if
+     * the account didn't exist yet at the end of the period.
+     */
+    private Accrual statement(Period period, String account, Writer out) throws IOException {
+        // One walk back through the chain: undo everything after the period, collect the period itself
+        long balance = ledger.balance(account);
+        long credited = -1;
+        boolean existed = false;
+        List<TransactionJournal.JournalRecord> inPeriod = new ArrayList<>();
+        long slot = ledger.latestSlot(account);
+        walk:
+        while (slot >= 0) {
+            List<TransactionJournal.JournalRecord> page = ledger.historyFrom(account, slot, PAGE);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (TransactionJournal.JournalRecord record : page) {
+                if (record.timestamp() < period.from()) {
+                    existed = true;
+                    break walk;
+                }
+                if (record.timestamp() >= period.to()) {
+                    if (record.type() == TransactionJournal.RecordType.INTEREST
+                            && record.timestamp() >= period.startedMillis()) {
+                        credited = record.amountMinor(); // posted by an interrupted attempt of this run
+                    }
+                    balance -= record.type().sign * record.amountMinor();
+                } else {
+                    existed = true;
+                    inPeriod.add(record);
+                }
+            }
+            slot = page.get(page.size() - 1).previousSlot();
+        }
+        if (!existed) {
+            return null;
+        }
+        long opening = balance;
+        for (TransactionJournal.JournalRecord record : inPeriod) {
+            opening -= record.type().sign * record.amountMinor();
+        }
+
+        // Replay the period oldest first, summing the balance at the end of each day
+        int days = (int) ChronoUnit.DAYS.between(period.first(), period.last()) + 1;
+        long running = opening;
+        long balanceDays = 0;
+        int next = inPeriod.size() - 1;
+        for (int day = 1; day <= days; day++) {
+            long dayEnd = period.first().plusDays(day).atStartOfDay(zone).toInstant().toEpochMilli();
+            for (; next >= 0 && inPeriod.get(next).timestamp() < dayEnd; next--) {
+                TransactionJournal.JournalRecord record = inPeriod.get(next);
+                running += record.type().sign * record.amountMinor();
+            }
+            balanceDays = Math.addExact(balanceDays, running);
+        }
+        long interest = credited >= 0 ? credited
+                : period.fixedRate() == 0 ? 0
+                : MoneyMath.multiplyDivide(balanceDays, period.fixedRate(), DAYS_PER_YEAR);
+
+        out.write("==== Statement " + account + "  " + period.first() + " to " + period.last() + " ====\n");
+        out.write("Opening balance ₹" + AccountLedger.format(opening) + "\n");
+        for (int i = inPeriod.size() - 1; i >= 0; i--) {
+            out.write(BankAccount.describe(inPeriod.get(i)));
+            out.write('\n');
+        }
+        out.write("Closing balance ₹" + AccountLedger.format(balance) + "\n");
+        out.write("Average daily balance ₹" + AccountLedger.format(MoneyMath.divideHalfEven(balanceDays, days))
+                + " over " + days + (days == 1 ? " day\n" : " days\n"));
+        if (interest > 0) {
+            out.write(String.format("Interest at %.2f%% a year ₹%s, credited after the period\n",
+                    ratePercent, AccountLedger.format(interest)));
+        }
+        out.write('\n');
+        return new Accrual(interest, credited >= 0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        LocalDate day = args.length > 0 ? LocalDate.parse(args[0]) : LocalDate.now().minusDays(1);
+        Path outputDir = Paths.get(args.length > 1 ? args[1] : ".");
+        double rate = Double.parseDouble(System.getProperty("eod.rate", "3.5"));
+        int partitions = Integer.getInteger("eod.partitions", 64);
+        int parallelism = Integer.getInteger("eod.parallelism", Runtime.getRuntime().availableProcessors());
+
+        try (TransactionJournal journal = TransactionJournal.open(Paths.get(ATMInterface.JOURNAL_FILE))) {
+            AccountLedger ledger = new AccountLedger(journal);
+            ledger.recover();
+            Summary summary = new EndOfDayBatch(ledger, rate, partitions, parallelism).run(day, day, outputDir);
+            Log.get("Console").info("End of day %s: %d statements for %d accounts, interest %s "
+                            + "(%d already credited, %d partitions resumed) in %.2f s, %.0f accounts/s",
+                    day, summary.statements(), summary.accounts(), AccountLedger.format(summary.interestMinor()),
+                    summary.alreadyCredited(), summary.partitionsResumed(), summary.elapsedNanos() / 1e9,
+                    summary.accountsPerSecond());
+        }
+    }
+}
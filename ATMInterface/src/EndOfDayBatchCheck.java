@@ -0,0 +1,285 @@
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Check for {@link EndOfDayBatch}: builds a journal of random accounts whose
+ * records are backdated into the days before, during and after a three-day
+ * period (by rewriting the timestamp field of the record layout, since the
+ * journal stamps records with the time they are written), and compares every
+ * interest amount with the Actual/365 sum of end-of-day balances worked out
+ * here with {@link BigDecimal}. The first run is interrupted: one
+ * partition's checkpoint can't be written, after it has posted its interest.
+ * Running again must resume, recognise that interest instead of posting it
+ * twice, and leave every account with its transactions plus its interest
+ * exactly once, and one statement per account that existed in the period.
+ *
+ * Run from the ATMInterface folder, {@code java EndOfDayBatchCheck}; exits
+ * with status 1 on a failure. Configured with {@code -Dcheck.accounts=N}
+ * (default 500), {@code -Dcheck.partitions=N} (default 8) and
+ * {@code -Dcheck.seed=S} (default 42).
+ */
+public class EndOfDayBatchCheck {
+
+    private static final double RATE_PERCENT = 3.5;
+    private static final int PERIOD_DAYS = 3;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int BROKEN_PARTITION = 1;
+
+    /** When a journaled record happened: before, during or after the period. */
+    private enum When { BEFORE, DURING, AFTER }
+
+    /** One account's records as written, with the time each is backdated to (-1: left at now). */
+    private static final class Timeline {
+        final String account;
+        final List<Long> times = new ArrayList<>();
+        final List<Long> amounts = new ArrayList<>(); // signed
+        long balance;
+
+        Timeline(String account) {
+            this.account = account;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accountCount = Integer.getInteger("check.accounts", 500);
+        int partitions = Integer.getInteger("check.partitions", 8);
+        long seed = Long.getLong("check.seed", 42);
+        if (accountCount < 1 || partitions <= BROKEN_PARTITION) {
+            throw new IllegalArgumentException("Need at least 1 account and " + (BROKEN_PARTITION + 1) + " partitions");
+        }
+
+        LocalDate last = LocalDate.now(ZoneOffset.UTC).minusDays(2);
+        LocalDate first = last.minusDays(PERIOD_DAYS - 1);
+        long from = first.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long to = from + PERIOD_DAYS * DAY_MILLIS;
+
+        Path directory = Files.createTempDirectory("eod-check");
+        Path file = directory.resolve("journal.dat");
+        Path output = directory.resolve("out");
+        List<String> failures = new ArrayList<>();
+        try {
+            List<Timeline> timelines = writeJournal(file, accountCount, from, new Random(seed));
+
+            // Interrupted run: the broken partition posts its interest, then can't record its checkpoint
+            String stem = "statements-" + first + "_" + last;
+            Path blocker = output.resolve(stem + ".part-" + BROKEN_PARTITION + ".done.tmp");
+            Files.createDirectories(blocker);
+            try (TransactionJournal journal = TransactionJournal.open(file)) {
+                AccountLedger ledger = new AccountLedger(journal);
+                ledger.recover();
+                try {
+                    new EndOfDayBatch(ledger, RATE_PERCENT, partitions, 1, ZoneOffset.UTC).run(first, last, output);
+                    failures.add("First run was not interrupted");
+                } catch (IOException | RuntimeException expected) {
+                    System.out.println("First run interrupted: " + expected);
+                }
+            }
+            Files.delete(blocker);
+
+            try (TransactionJournal journal = TransactionJournal.open(file)) {
+                AccountLedger ledger = new AccountLedger(journal);
+                ledger.recover();
+                EndOfDayBatch.Summary summary = new EndOfDayBatch(ledger, RATE_PERCENT, partitions, 1, ZoneOffset.UTC)
+                        .run(first, last, output);
+                verify(ledger, timelines, summary, partitions, from, to, failures);
+                checkStatements(output.resolve(stem + ".txt"), timelines, to, failures);
+                System.out.printf("%d accounts, %d statements, interest %s (%d already credited, %d partitions"
+                                + " resumed)%n", summary.accounts(), summary.statements(),
+                        AccountLedger.format(summary.interestMinor()), summary.alreadyCredited(),
+                        summary.partitionsResumed());
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("OK: interest matches Actual/365, posted once across the resumed run");
+            return;
+        }
+        for (String failure : failures) {
+            System.out.println("FAIL: " + failure);
+        }
+        System.exit(1);
+    }
+
+    /**
+     * Opens the accounts and makes their deposits and withdrawals, one account at a
+     * time so each account's records are in time order, then backdates the records.
+     */
+    private static List<Timeline> writeJournal(Path file, int accountCount, long from, Random random)
+            throws IOException {
+        List<Timeline> timelines = new ArrayList<>();
+        List<Long> slotTimes = new ArrayList<>();
+        try (TransactionJournal journal = TransactionJournal.open(file)) {
+            AccountLedger ledger = new AccountLedger(accountCount, journal);
+            for (int i = 0; i < accountCount; i++) {
+                Timeline timeline = new Timeline(String.format("EOD%06d", i));
+                // Most accounts open before the period; some during it, some after it
+                int opened = random.nextInt(10);
+                When start = opened < 7 ? When.BEFORE : opened < 9 ? When.DURING : When.AFTER;
+                List<Long> times = new ArrayList<>();
+                int records = 1 + random.nextInt(12);
+                for (int r = 0; r < records; r++) {
+                    times.add(randomTime(start, from, random));
+                }
+                times.sort(null);
+                for (int r = 0; r < records; r++) {
+                    long time = times.get(r);
+                    long amount;
+                    if (r == 0) {
+                        amount = random.nextInt(10_000_000);
+                        ledger.open(timeline.account, amount);
+                    } else if (timeline.balance > 0 && random.nextBoolean()) {
+                        amount = -(1 + random.nextInt((int) Math.min(timeline.balance, Integer.MAX_VALUE)));
+                        if (!ledger.tryWithdraw(timeline.account, -amount)) {
+                            throw new IllegalStateException("Withdrawal within the balance refused");
+                        }
+                    } else {
+                        amount = 1 + random.nextInt(5_000_000);
+                        ledger.deposit(timeline.account, amount);
+                    }
+                    timeline.times.add(time);
+                    timeline.amounts.add(amount);
+                    timeline.balance += amount;
+                    slotTimes.add(time);
+                }
+                // Activity after the period, at the real time of writing
+                if (random.nextInt(4) == 0) {
+                    long amount = 1 + random.nextInt(1_000_000);
+                    ledger.deposit(timeline.account, amount);
+                    timeline.times.add(-1L);
+                    timeline.amounts.add(amount);
+                    timeline.balance += amount;
+                    slotTimes.add(-1L);
+                }
+                timelines.add(timeline);
+            }
+            if (journal.size() != slotTimes.size()) {
+                throw new IllegalStateException("Expected " + slotTimes.size() + " records, journal has " + journal.size());
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer timestamp = ByteBuffer.allocate(Long.BYTES);
+            for (int slot = 0; slot < slotTimes.size(); slot++) {
+                if (slotTimes.get(slot) >= 0) {
+                    timestamp.clear();
+                    timestamp.putLong(slotTimes.get(slot)).flip();
+                    channel.write(timestamp, (long) slot * TransactionJournal.RECORD_SIZE + 8);
+                }
+            }
+            channel.force(true);
+        }
+        return timelines;
+    }
+
+    /** A time before, during or after the period; "after" is still in the past, and before now. */
+    private static long randomTime(When when, long from, Random random) {
+        long day = random.nextLong(DAY_MILLIS);
+        switch (when) {
+            case BEFORE:
+                return from - (1 + random.nextInt(3)) * DAY_MILLIS + day;
+            case DURING:
+                // Either half of each day, and exactly the start of a day now and then
+                return from + random.nextInt(PERIOD_DAYS) * DAY_MILLIS + (random.nextInt(5) == 0 ? 0 : day);
+            default:
+                return from + PERIOD_DAYS * DAY_MILLIS + random.nextLong(DAY_MILLIS);
+        }
+    }
+
+    private static void verify(AccountLedger ledger, List<Timeline> timelines, EndOfDayBatch.Summary summary,
+                               int partitions, long from, long to, List<String> failures) {
+        long interestTotal = 0;
+        long statements = 0;
+        long brokenCredited = 0;
+        for (Timeline timeline : timelines) {
+            long interest = 0;
+            if (existed(timeline, to)) {
+                statements++;
+                interest = expectedInterest(timeline, from);
+                interestTotal += interest;
+                if (interest > 0 && Math.floorMod(timeline.account.hashCode(), partitions) == BROKEN_PARTITION) {
+                    brokenCredited++;
+                }
+            }
+            long balance = ledger.balance(timeline.account);
+            if (balance != timeline.balance + interest) {
+                failures.add(timeline.account + " ended at " + AccountLedger.format(balance) + ", expected "
+                        + AccountLedger.format(timeline.balance) + " plus interest " + AccountLedger.format(interest));
+            }
+        }
+        if (summary.interestMinor() != interestTotal) {
+            failures.add("Run reported interest " + AccountLedger.format(summary.interestMinor()) + ", expected "
+                    + AccountLedger.format(interestTotal));
+        }
+        if (summary.statements() != statements || summary.accounts() != timelines.size()) {
+            failures.add("Run reported " + summary.statements() + " statements for " + summary.accounts()
+                    + " accounts, expected " + statements + " for " + timelines.size());
+        }
+        if (summary.alreadyCredited() != brokenCredited) {
+            failures.add("Resumed run found " + summary.alreadyCredited() + " accounts already credited, expected "
+                    + brokenCredited + " (partition " + BROKEN_PARTITION + ")");
+        }
+        if (summary.partitionsResumed() < 1) {
+            failures.add("Resumed run skipped no finished partition");
+        }
+    }
+
+    private static boolean existed(Timeline timeline, long to) {
+        long opened = timeline.times.get(0);
+        return opened >= 0 && opened < to;
+    }
+
+    /** Sum of the balances at the end of each day of the period, times the rate over 365, half-even. */
+    private static long expectedInterest(Timeline timeline, long from) {
+        BigDecimal balanceDays = BigDecimal.ZERO;
+        for (int day = 1; day <= PERIOD_DAYS; day++) {
+            long dayEnd = from + day * DAY_MILLIS;
+            long balance = 0;
+            for (int r = 0; r < timeline.times.size(); r++) {
+                long time = timeline.times.get(r);
+                if (time >= 0 && time < dayEnd) {
+                    balance += timeline.amounts.get(r);
+                }
+            }
+            balanceDays = balanceDays.add(BigDecimal.valueOf(balance));
+        }
+        return balanceDays.multiply(BigDecimal.valueOf(RATE_PERCENT))
+                .divide(BigDecimal.valueOf(100 * 365), 0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    /** Every account that existed in the period has exactly one statement. */
+    private static void checkStatements(Path statements, List<Timeline> timelines, long to, List<String> failures)
+            throws IOException {
+        String text = Files.readString(statements, StandardCharsets.UTF_8);
+        for (Timeline timeline : timelines) {
+            String header = "==== Statement " + timeline.account + " ";
+            int at = text.indexOf(header);
+            int count = at < 0 ? 0 : text.indexOf(header, at + 1) < 0 ? 1 : 2;
+            int expected = existed(timeline, to) ? 1 : 0;
+            if (count != expected) {
+                failures.add(timeline.account + " has " + (count == 2 ? "more than one" : count)
+                        + " statement(s), expected " + expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * List model over one account's whole transaction history, newest first,
+ * that reads the journal lazily in pages. A {@link javax.swing.JList} with a
+ * fixed cell size only asks for visible rows; a row whose page is not loaded
+ * yet shows a placeholder while a background thread reads the page, so the
+ * EDT never touches the journal.
+ *
+ * The history is a chain of journal records linked newest to oldest. The
+ * model remembers the slot where each page it has seen starts, so scrolling
+ * back to a page costs one page of reads. A jump far past anything loaded
+ * walks the chain once from the nearest known page. Only the most recently
+ * used pages are kept.
+ *
+ * The row count is fixed when the model is created. Transactions made after
+ * that appear when the view is reopened.
+ */
+public class HistoryListModel extends AbstractListModel<String> {
+
+    static final int PAGE_SIZE = 200;
+    static final int MAX_CACHED_PAGES = 64;
+    static final String LOADING = "…";
+    // Queued by close(). The loader is never interrupted: an interrupt during a journal
+    // read closes the FileChannel, which the whole ledger shares.
+    private static final int CLOSE = -1;
+
+    private final AtmService service;
+    private final AtmService.Session session;
+    private final int size;
+
+    // EDT only
+    private final Map<Integer, String[]> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    // Loader thread only: first slot of pages [0, knownPages)
+    private final long[] pageStarts;
+    private int knownPages;
+
+    // Most recent request first, so the rows on screen now load before ones scrolled past
+    private final LinkedBlockingDeque<Integer> requests = new LinkedBlockingDeque<>();
+    private final Set<Integer> requested = ConcurrentHashMap.newKeySet();
+    private final Thread loader;
+    private volatile boolean closed;
+
+    private HistoryListModel(AtmService service, AtmService.Session session) {
+        this.service = service;
+        this.session = session;
+        AtmService.HistoryHead head = service.historyHead(session);
+        this.size = head.status() == AtmService.Status.OK ? head.size() : 0;
+        this.pageStarts = new long[(size + PAGE_SIZE - 1) / PAGE_SIZE];
+        if (pageStarts.length > 0) {
+            pageStarts[0] = head.latestSlot();
+            knownPages = 1;
+        }
+        this.loader = new Thread(this::loadPages, "history-loader");
+        loader.setDaemon(true);
+    }
+
+    /**
+     * Snapshot of the session's history with its loader running;
+     * {@link #getSize()} is 0 if the session is not valid.
+     */
+    public static HistoryListModel open(AtmService service, AtmService.Session session) {
+        HistoryListModel model = new HistoryListModel(service, session);
+        model.loader.start();
+        return model;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        int page = index / PAGE_SIZE;
+        String[] lines = pages.get(page);
+        if (lines == null) {
+            if (!closed && requested.add(page)) {
+                requests.addFirst(page);
+                if (requests.size() > MAX_CACHED_PAGES) {
+                    Integer stale = requests.pollLast(); // scrolled past long ago; asked again if seen again
+                    if (stale != null) {
+                        requested.remove(stale);
+                    }
+                }
+            }
+            return LOADING;
+        }
+        int row = index % PAGE_SIZE;
+        return row < lines.length ? lines[row] : "";
+    }
+
+    /** Stops the loader after the page it is reading, if any; call when the view is closed. */
+    public void close() {
+        closed = true;
+        requests.addFirst(CLOSE);
+    }
+
+    private void loadPages() {
+        try {
+            while (!closed) {
+                int page = requests.takeFirst();
+                if (page == CLOSE) {
+                    return;
+                }
+                String[] lines = load(page);
+                if (lines == null || closed) {
+                    return; // session expired, or the view was closed
+                }
+                SwingUtilities.invokeLater(() -> {
+                    pages.put(page, lines);
+                    requested.remove(page);
+                    int first = page * PAGE_SIZE;
+                    fireContentsChanged(this, first, Math.min(size, first + PAGE_SIZE) - 1);
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // not expected: close() queues CLOSE instead
+        }
+    }
+
+    /**
+     * Reads one page, walking forward from the nearest page whose start is
+     * known; null if the session expired or the view was closed on the way.
+     */
+    private String[] load(int page) {
+        while (knownPages <= page) {
+            if (closed) {
+                return null;
+            }
+            AtmService.HistoryPage skipped =
+                    service.historyFrom(session, pageStarts[knownPages - 1], PAGE_SIZE);
+            if (skipped.status() != AtmService.Status.OK) {
+                return null;
+            }
+            pageStarts[knownPages++] = skipped.nextSlot();
+        }
+        AtmService.HistoryPage result = service.historyFrom(session, pageStarts[page], PAGE_SIZE);
+        if (result.status() != AtmService.Status.OK) {
+            return null;
+        }
+        List<TransactionJournal.JournalRecord> records = result.records();
+        if (page + 1 < pageStarts.length && knownPages == page + 1) {
+            pageStarts[knownPages++] = result.nextSlot();
+        }
+        String[] lines = new String[records.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = (page * PAGE_SIZE + i + 1) + ". " + BankAccount.describe(records.get(i));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,255 @@
+import com.codsoft.common.bench.Benchmark;
+import com.codsoft.common.bench.BenchmarkRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks for deposits and withdrawals through {@link BankAccount}, over
+ * an in-memory {@link AccountLedger} (no journal, so the disk is not what is
+ * measured): spread over many accounts on one thread, and piled onto one
+ * account from several threads. Balance reads, plain and as audited
+ * enquiries, must not allocate at all; the run fails if they do.
+ *
+ * The bulk pair posts the same salary run (one funded employer paying many
+ * employees) through a journaled ledger twice: with {@link BulkPostingPipeline},
+ * which journals and fsyncs once per batch, and as the loop it replaces, a
+ * withdrawal and a deposit per instruction, each waiting for its own commit.
+ * An operation is one run of {@link #BULK_RUN} instructions.
+ *
+ * The journal benchmarks write one deposit record per operation to a
+ * {@link TransactionJournal} in a temporary file: {@code atm.journal.append}
+ * without waiting (the flusher forces the file in the background; a fresh
+ * journal replaces the file every {@link #JOURNAL_ROLL} records, so the run
+ * does not fill the disk), and {@code atm.journal.commit} waiting for each
+ * record to be forced, alone and from several threads that share forces.
+ *
+ * Run from the ATMInterface folder, {@code java LedgerBenchmarks}, to compare
+ * with {@code bench/baseline.properties}; see {@link BenchmarkRunner} for
+ * options.
+ */
+public class LedgerBenchmarks {
+
+    static final int ACCOUNTS = 1024; // power of two
+    static final int CONTENDING_THREADS = 4;
+    static final double FUNDED = 1e12; // enough that withdrawals never run dry
+
+    public static void main(String[] args) throws Exception {
+        new BenchmarkRunner("atm", LedgerBenchmarks.class)
+                .add("atm.deposit", 1, () -> deposit(open(ACCOUNTS, 0)))
+                .add("atm.withdraw", 1, () -> withdraw(open(ACCOUNTS, FUNDED)))
+                .add("atm.deposit.contended", CONTENDING_THREADS, () -> deposit(open(1, 0)))
+                .add("atm.withdraw.contended", CONTENDING_THREADS, () -> withdraw(open(1, FUNDED)))
+                .addAllocationFree("atm.balance", () -> balance(open(ACCOUNTS, FUNDED)))
+                .addAllocationFree("atm.checkBalance.audited", LedgerBenchmarks::auditedEnquiry)
+                .add("atm.bulk.batch", 1, () -> bulkBatch(journaledLedger()))
+                .add("atm.bulk.loop", 1, () -> bulkLoop(journaledLedger()))
+                .add("atm.journal.append", 1, LedgerBenchmarks::journalAppend)
+                .add("atm.journal.commit", 1, LedgerBenchmarks::journalCommit)
+                .add("atm.journal.commit.contended", CONTENDING_THREADS, LedgerBenchmarks::journalCommit)
+                .run();
+    }
+
+    private static BankAccount[] open(int count, double balance) {
+        return open(new AccountLedger(count, null), count, balance);
+    }
+
+    private static BankAccount[] open(AccountLedger ledger, int count, double balance) {
+        BankAccount[] accounts = new BankAccount[count];
+        for (int i = 0; i < count; i++) {
+            accounts[i] = new BankAccount(ledger, "Bench Holder", String.format("BENCH%06d", i), balance);
+        }
+        return accounts;
+    }
+
+    private static Benchmark deposit(BankAccount[] accounts) {
+        int mask = accounts.length - 1;
+        return (thread, operations) -> {
+            int next = thread * 7; // threads start on different accounts
+            for (long i = 0; i < operations; i++) {
+                accounts[next++ & mask].deposit(1.00);
+            }
+            return next;
+        };
+    }
+
+    private static Benchmark balance(BankAccount[] accounts) {
+        int mask = accounts.length - 1;
+        return (thread, operations) -> {
+            double sum = 0;
+            for (long i = 0; i < operations; i++) {
+                sum += accounts[(int) i & mask].getBalance();
+            }
+            return (long) sum;
+        };
+    }
+
+    /** Enquiries with a sampler auditing one in 64 (uncapped, so the counting path is taken too). */
+    private static Benchmark auditedEnquiry() {
+        AccountLedger ledger = new AccountLedger(ACCOUNTS, null);
+        ledger.setAuditSampler(new BalanceAuditSampler(64, 1 << 23));
+        BankAccount[] accounts = open(ledger, ACCOUNTS, FUNDED);
+        int mask = accounts.length - 1;
+        return (thread, operations) -> {
+            double sum = 0;
+            for (long i = 0; i < operations; i++) {
+                sum += accounts[(int) i & mask].checkBalance();
+            }
+            return (long) sum;
+        };
+    }
+
+    private static Benchmark withdraw(BankAccount[] accounts) {
+        int mask = accounts.length - 1;
+        return (thread, operations) -> {
+            int next = thread * 7;
+            long withdrawn = 0;
+            for (long i = 0; i < operations; i++) {
+                if (accounts[next++ & mask].withdraw(1.00)) {
+                    withdrawn++;
+                }
+            }
+            return withdrawn;
+        };
+    }
+
+    // --- Bulk posting ---
+
+    static final int BULK_RUN = 256; // instructions per operation, posted as one pipeline batch
+    static final String EMPLOYER = "EMPLOYER";
+    static final long SALARY_MINOR = 100;
+    private static final String[] EMPLOYEES = new String[ACCOUNTS];
+
+    static {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            EMPLOYEES[i] = String.format("BENCH%06d", i);
+        }
+    }
+
+    /** A ledger journaling to a temporary file, with a funded employer and {@link #ACCOUNTS} employees. */
+    private static AccountLedger journaledLedger() throws IOException {
+        Path file = Files.createTempFile("bench-journal", ".dat");
+        file.toFile().deleteOnExit();
+        AccountLedger ledger = new AccountLedger(ACCOUNTS + 1, TransactionJournal.open(file));
+        ledger.open(EMPLOYER, AccountLedger.MAX_BALANCE);
+        for (String employee : EMPLOYEES) {
+            ledger.open(employee, 0);
+        }
+        return ledger;
+    }
+
+    private static Benchmark bulkBatch(AccountLedger ledger) {
+        BulkPostingPipeline pipeline = new BulkPostingPipeline(ledger, BULK_RUN, 1);
+        return (thread, operations) -> pipeline.post(salaries(operations * BULK_RUN), result -> { }).applied();
+    }
+
+    private static Benchmark bulkLoop(AccountLedger ledger) {
+        return (thread, operations) -> {
+            long applied = 0;
+            for (Iterator<BulkPostingPipeline.Instruction> it = salaries(operations * BULK_RUN); it.hasNext(); ) {
+                BulkPostingPipeline.Instruction instruction = it.next();
+                if (ledger.tryWithdraw(instruction.fromAccount(), instruction.amountMinor())) {
+                    ledger.deposit(instruction.toAccount(), instruction.amountMinor());
+                    applied++;
+                }
+            }
+            return applied;
+        };
+    }
+
+    private static Iterator<BulkPostingPipeline.Instruction> salaries(long count) {
+        return new Iterator<>() {
+            long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public BulkPostingPipeline.Instruction next() {
+                String to = EMPLOYEES[(int) next & (ACCOUNTS - 1)];
+                return new BulkPostingPipeline.Instruction(next++, EMPLOYER, to, SALARY_MINOR);
+            }
+        };
+    }
+
+    // --- Journal ---
+
+    static final int JOURNAL_ROLL = 1 << 20; // records, 64 MB
+
+    private static Path tempJournalFile() throws IOException {
+        Path file = Files.createTempFile("bench-journal", ".dat");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static AtomicLong[] lastSlots() {
+        AtomicLong[] lastSlots = new AtomicLong[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            lastSlots[i] = new AtomicLong(-1);
+        }
+        return lastSlots;
+    }
+
+    private static Benchmark journalAppend() throws IOException {
+        RollingJournal rolling = new RollingJournal();
+        AtomicLong[] lastSlots = lastSlots();
+        return (thread, operations) -> {
+            long slot = 0;
+            for (long i = 0; i < operations; i++) {
+                int account = (int) i & (ACCOUNTS - 1);
+                slot = rolling.journal.append(TransactionJournal.RecordType.DEPOSIT, EMPLOYEES[account],
+                        SALARY_MINOR, i, lastSlots[account]);
+                if (slot == JOURNAL_ROLL - 1) {
+                    rolling.roll(lastSlots);
+                }
+            }
+            return slot;
+        };
+    }
+
+    /** A journal that is closed, deleted and replaced by an empty one when full. */
+    private static final class RollingJournal {
+        Path file;
+        TransactionJournal journal;
+
+        RollingJournal() throws IOException {
+            file = tempJournalFile();
+            journal = TransactionJournal.open(file);
+        }
+
+        void roll(AtomicLong[] lastSlots) {
+            try {
+                journal.close();
+                Files.delete(file);
+                file = tempJournalFile();
+                journal = TransactionJournal.open(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not roll the bench journal", e);
+            }
+            for (AtomicLong lastSlot : lastSlots) {
+                lastSlot.set(-1);
+            }
+        }
+    }
+
+    private static Benchmark journalCommit() throws IOException {
+        TransactionJournal journal = TransactionJournal.open(tempJournalFile());
+        AtomicLong[] lastSlots = lastSlots();
+        return (thread, operations) -> {
+            long slot = 0;
+            for (long i = 0; i < operations; i++) {
+                // Each thread on its own accounts, as sessions on different cards would be
+                int account = (int) (thread + i * CONTENDING_THREADS) & (ACCOUNTS - 1);
+                slot = journal.append(TransactionJournal.RecordType.DEPOSIT, EMPLOYEES[account],
+                        SALARY_MINOR, i, lastSlots[account]);
+                journal.awaitDurable(slot);
+            }
+            return slot;
+        };
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded stress check for {@link AccountLedger}: many threads make
+ * random deposits, withdrawals and transfers on a small set of accounts (so
+ * they collide constantly) while an auditor thread keeps reading balances.
+ * Fails if money is created or lost, i.e. the final total is not the opening
+ * total plus deposits minus successful withdrawals (a lost update), or if any
+ * balance is ever seen below zero (an overdraft). With a journal the ledger is
+ * then recovered from it and must come back with the same balances.
+ *
+ * Run from the ATMInterface folder, {@code java LedgerStressCheck}; exits with
+ * status 1 on a failure. Configured with {@code -Dstress.threads=N} (default
+ * 8), {@code -Dstress.accounts=N} (default 16), {@code -Dstress.operations=N}
+ * per thread (default 200000) and {@code -Dstress.journal=true} to journal to
+ * a temporary file (fewer operations make sense then: every one is fsynced).
+ * It also checks the balance limit: a deposit, transfer or bulk credit that
+ * would take an account past {@link AccountLedger#MAX_BALANCE} is refused and
+ * leaves every balance as it was.
+ */
+public class LedgerStressCheck {
+
+    private static final long OPENING = 10_000 * AccountLedger.MINOR_PER_UNIT;
+    private static final int MAX_AMOUNT = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("stress.threads", 8);
+        int accountCount = Integer.getInteger("stress.accounts", 16);
+        int operations = Integer.getInteger("stress.operations", 200_000);
+        boolean journaled = Boolean.getBoolean("stress.journal");
+        if (threads < 1 || accountCount < 2 || operations < 1) {
+            throw new IllegalArgumentException("Need at least 1 thread, 2 accounts and 1 operation");
+        }
+
+        Path file = journaled ? Files.createTempFile("stress-journal", ".dat") : null;
+        TransactionJournal journal = journaled ? TransactionJournal.open(file) : null;
+        List<String> failures = new ArrayList<>();
+        try {
+            AccountLedger ledger = new AccountLedger(accountCount, journal);
+            String[] accounts = new String[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accounts[i] = String.format("STRESS%04d", i);
+                ledger.open(accounts[i], OPENING);
+            }
+
+            long start = System.nanoTime();
+            Totals totals = hammer(ledger, accounts, threads, operations, failures);
+            long elapsed = System.nanoTime() - start;
+
+            long expected = OPENING * accountCount + totals.deposited.get() - totals.withdrawn.get();
+            long actual = 0;
+            for (String account : accounts) {
+                long balance = ledger.balance(account);
+                if (balance < 0) {
+                    failures.add(account + " ended overdrawn: " + balance);
+                }
+                actual += balance;
+            }
+            if (actual != expected) {
+                failures.add("Money not conserved: expected " + AccountLedger.format(expected)
+                        + ", ledger holds " + AccountLedger.format(actual));
+            }
+            System.out.printf("%d threads x %d operations on %d accounts in %.2f s: %d deposits, "
+                            + "%d withdrawals (%d refused), %d transfers (%d refused), %d audits%n",
+                    threads, operations, accountCount, elapsed / 1e9, totals.deposits.get(),
+                    totals.withdrawals.get(), totals.refusedWithdrawals.get(), totals.transfers.get(),
+                    totals.refusedTransfers.get(), totals.audits.get());
+
+            checkBalanceLimit(failures);
+            if (journaled) {
+                journal.close();
+                checkRecovery(ledger, accounts, file, failures);
+            }
+        } finally {
+            if (journal != null) {
+                journal.close();
+                Files.deleteIfExists(file);
+            }
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("OK: money conserved, no balance below zero");
+            return;
+        }
+        for (String failure : failures) {
+            System.out.println("FAIL: " + failure);
+        }
+        System.exit(1);
+    }
+
+    /** Counters shared by the workers. */
+    private static final class Totals {
+        final AtomicLong deposited = new AtomicLong();
+        final AtomicLong withdrawn = new AtomicLong();
+        final AtomicLong deposits = new AtomicLong();
+        final AtomicLong withdrawals = new AtomicLong();
+        final AtomicLong refusedWithdrawals = new AtomicLong();
+        final AtomicLong transfers = new AtomicLong();
+        final AtomicLong refusedTransfers = new AtomicLong();
+        final AtomicLong audits = new AtomicLong();
+    }
+
+    private static Totals hammer(AccountLedger ledger, String[] accounts, int threads, int operations,
+                                 List<String> failures) throws Exception {
+        Totals totals = new Totals();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long deposited = 0;
+                long withdrawn = 0;
+                try {
+                    barrier.await();
+                    for (int i = 0; i < operations; i++) {
+                        String account = accounts[random.nextInt(accounts.length)];
+                        long amount = 1 + random.nextInt(MAX_AMOUNT);
+                        switch (random.nextInt(3)) {
+                            case 0:
+                                ledger.deposit(account, amount);
+                                deposited += amount;
+                                totals.deposits.incrementAndGet();
+                                break;
+                            case 1:
+                                if (ledger.tryWithdraw(account, amount)) {
+                                    withdrawn += amount;
+                                    totals.withdrawals.incrementAndGet();
+                                } else {
+                                    totals.refusedWithdrawals.incrementAndGet();
+                                }
+                                break;
+                            default:
+                                String other = accounts[random.nextInt(accounts.length)];
+                                if (ledger.transfer(account, other, amount)) {
+                                    totals.transfers.incrementAndGet();
+                                } else {
+                                    totals.refusedTransfers.incrementAndGet();
+                                }
+                        }
+                    }
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(Thread.currentThread().getName() + " failed: " + e);
+                    }
+                } finally {
+                    totals.deposited.addAndGet(deposited);
+                    totals.withdrawn.addAndGet(withdrawn);
+                }
+            }, "stress-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        // Reads every balance while the workers run: none may ever be negative
+        Thread auditor = new Thread(() -> {
+            while (running.get()) {
+                for (String account : accounts) {
+                    long balance = ledger.balance(account);
+                    if (balance < 0) {
+                        synchronized (failures) {
+                            failures.add(account + " seen overdrawn: " + balance);
+                        }
+                    }
+                }
+                totals.audits.incrementAndGet();
+            }
+        }, "stress-auditor");
+        auditor.start();
+
+        barrier.await();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        running.set(false);
+        auditor.join();
+        return totals;
+    }
+
+    /** Deposits, transfers and bulk credits past {@link AccountLedger#MAX_BALANCE} are refused. */
+    private static void checkBalanceLimit(List<String> failures) throws InterruptedException {
+        AccountLedger ledger = new AccountLedger(4, null);
+        ledger.open("LIMIT0001", AccountLedger.MAX_BALANCE - 1);
+        ledger.open("LIMIT0002", OPENING);
+
+        // 2^62 is the hold bit: taking it as a balance would make the next withdrawal wait forever
+        for (long amount : new long[] {2, 1L << 62, Long.MAX_VALUE}) {
+            if (ledger.deposit("LIMIT0001", amount) != -1) {
+                failures.add("Deposit of " + amount + " past the balance limit accepted");
+            }
+        }
+        if (ledger.deposit("LIMIT0001", 1) != AccountLedger.MAX_BALANCE) {
+            failures.add("Deposit up to exactly the balance limit refused");
+        }
+        if (!ledger.tryWithdraw("LIMIT0001", 1)) {
+            failures.add("Withdrawal after a refused deposit failed");
+        }
+        if (ledger.transfer("LIMIT0002", "LIMIT0001", 2)) {
+            failures.add("Transfer past the balance limit accepted");
+        }
+        if (ledger.balance("LIMIT0001") != AccountLedger.MAX_BALANCE - 1 || ledger.balance("LIMIT0002") != OPENING) {
+            failures.add("Refused transfer moved money: " + ledger.balance("LIMIT0001") + ", "
+                    + ledger.balance("LIMIT0002"));
+        }
+
+        BulkPostingPipeline pipeline = new BulkPostingPipeline(ledger, 16, 1);
+        List<BulkPostingPipeline.Result> results = new ArrayList<>();
+        pipeline.post(List.of(new BulkPostingPipeline.Instruction(1, "LIMIT0002", "LIMIT0001", 2)).iterator(),
+                results::add);
+        if (results.size() != 1 || results.get(0).outcome() != BulkPostingPipeline.Outcome.BALANCE_LIMIT) {
+            failures.add("Bulk credit past the balance limit gave " + results);
+        }
+        if (ledger.balance("LIMIT0001") != AccountLedger.MAX_BALANCE - 1 || ledger.balance("LIMIT0002") != OPENING) {
+            failures.add("Refused bulk credit moved money: " + ledger.balance("LIMIT0001") + ", "
+                    + ledger.balance("LIMIT0002"));
+        }
+        System.out.println("Balance limit checked");
+    }
+
+    /** Replays the journal into a fresh ledger; it must end with the live ledger's balances. */
+    private static void checkRecovery(AccountLedger live, String[] accounts, Path file, List<String> failures)
+            throws IOException {
+        try (TransactionJournal reopened = TransactionJournal.open(file)) {
+            AccountLedger recovered = new AccountLedger(accounts.length, reopened);
+            recovered.recover();
+            for (String account : accounts) {
+                if (recovered.balance(account) != live.balance(account)) {
+                    failures.add(account + " recovered as " + AccountLedger.format(recovered.balance(account))
+                            + " but was " + AccountLedger.format(live.balance(account)));
+                }
+            }
+        }
+        System.out.println("Recovered " + accounts.length + " accounts from the journal");
+    }
+}
@@ -0,0 +1,418 @@
+import com.codsoft.common.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only journal of fixed-size binary transaction records, written through
+ * a memory-mapped file. A background flusher forces the mapping to disk in
+ * groups (group commit): every writer waiting in {@link #awaitDurable(long)}
+ * is released by the same fsync.
+ *
+ * Record layout (64 bytes):
+ * <pre>
+ *  0  long  seq          (slot + 1, 0 marks the unused tail of the file)
+ *  8  long  timestamp    (epoch millis)
+ * 16  int   type         (see {@link RecordType})
+ * 20  int   account length
+ * 24  byte[16] account number (ASCII)
+ * 40  long  amount       (paise)
+ * 48  long  balance after (paise)
+ * 56  long  previous slot of the same account (-1 if none)
+ * </pre>
+ * The previous-slot link lets history be paged per account without an index.
+ *
+ * {@link #appendBatch} writes a group of records contiguously between a
+ * {@code BATCH_BEGIN} and a {@code BATCH_COMMIT} marker (both without an
+ * account and with the record count as amount); on open, a batch whose commit
+ * didn't reach the disk is cut off with the rest of the torn tail, so a batch
+ * is replayed whole or not at all.
+ */
+public class TransactionJournal implements Closeable {
+
+    public static final int RECORD_SIZE = 64;
+    public static final int MAX_ACCOUNT_LENGTH = 16;
+
+    private static final long WINDOW_RECORDS = 1 << 20; // 64 MB mapped at a time
+    private static final Log LOG = Log.get("Journal");
+
+    /** Kind of money movement a record describes. */
+    public enum RecordType {
+        OPEN(1, +1), DEPOSIT(2, +1), WITHDRAW(3, -1), TRANSFER_IN(4, +1), TRANSFER_OUT(5, -1),
+        REVERSAL(6, +1), INTEREST(7, +1), BATCH_BEGIN(8, 0), BATCH_COMMIT(9, 0);
+
+        final int code;
+        final int sign;
+
+        RecordType(int code, int sign) {
+            this.code = code;
+            this.sign = sign;
+        }
+
+        /** Batch markers frame other records and move no money. */
+        public boolean isMarker() {
+            return sign == 0;
+        }
+
+        static boolean isValid(int code) {
+            for (RecordType type : values()) {
+                if (type.code == code) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static RecordType of(int code) {
+            for (RecordType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalStateException("Corrupt journal record type: " + code);
+        }
+    }
+
+    /** One decoded journal entry. */
+    public record JournalRecord(long slot, long timestamp, RecordType type, String accountNumber,
+                                long amountMinor, long balanceAfterMinor, long previousSlot) {
+    }
+
+    /** Receives records in journal order during replay. */
+    public interface RecordVisitor {
+        void visit(JournalRecord record);
+    }
+
+    private final FileChannel channel;
+    private final long commitIntervalMillis;
+    private final Object commitLock = new Object();
+    private final Thread flusher;
+
+    // Guarded by "this"
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long nextSlot;
+
+    private volatile long durableSlots;
+    private volatile boolean closed;
+    private int waiters; // guarded by commitLock
+
+    private TransactionJournal(FileChannel channel, long nextSlot, long commitIntervalMillis) throws IOException {
+        this.channel = channel;
+        this.nextSlot = nextSlot;
+        this.durableSlots = nextSlot;
+        this.commitIntervalMillis = commitIntervalMillis;
+        mapWindow(nextSlot - (nextSlot % WINDOW_RECORDS));
+
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public static TransactionJournal open(Path file) throws IOException {
+        return open(file, 5);
+    }
+
+    /**
+     * Opens (or creates) a journal. Writers that don't wait for durability are
+     * still made durable at least every {@code commitIntervalMillis}.
+     */
+    public static TransactionJournal open(Path file, long commitIntervalMillis) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new TransactionJournal(channel, findEnd(channel), commitIntervalMillis);
+    }
+
+    // --- Writing ---
+
+    /**
+     * Appends a record and links it to the account's previous record.
+     * {@code lastSlot} holds the account's most recent slot and is updated in place.
+     * Returns the slot written; pass it to {@link #awaitDurable(long)} to wait for fsync.
+     */
+    public long append(RecordType type, String accountNumber, long amountMinor,
+                       long balanceAfterMinor, AtomicLong lastSlot) {
+        byte[] account = encode(accountNumber);
+
+        synchronized (this) {
+            checkOpen();
+            long timestamp = System.currentTimeMillis(); // under the monitor: time follows slot order
+            long slot = write(timestamp, type, account, amountMinor, balanceAfterMinor, lastSlot.get());
+            lastSlot.set(slot);
+            return slot;
+        }
+    }
+
+    /**
+     * Appends records {@code 0..count-1} of the arrays as one batch: contiguous,
+     * between a begin and a commit marker, with no other writer's records in
+     * between. Each record is linked to its account's previous record as by
+     * {@link #append}. Returns the commit marker's slot; once it is durable,
+     * so is the whole batch.
+     */
+    public long appendBatch(int count, RecordType[] types, String[] accountNumbers, long[] amountsMinor,
+                            long[] balancesAfterMinor, AtomicLong[] lastSlots) {
+        byte[][] accounts = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            accounts[i] = encode(accountNumbers[i]);
+        }
+        byte[] none = new byte[0];
+
+        synchronized (this) {
+            checkOpen();
+            long timestamp = System.currentTimeMillis();
+            long begin = write(timestamp, RecordType.BATCH_BEGIN, none, count, 0, -1);
+            for (int i = 0; i < count; i++) {
+                long slot = write(timestamp, types[i], accounts[i], amountsMinor[i], balancesAfterMinor[i],
+                        lastSlots[i].get());
+                lastSlots[i].set(slot);
+            }
+            return write(timestamp, RecordType.BATCH_COMMIT, none, count, 0, begin);
+        }
+    }
+
+    private static byte[] encode(String accountNumber) {
+        byte[] account = accountNumber.getBytes(StandardCharsets.US_ASCII);
+        if (account.length > MAX_ACCOUNT_LENGTH) {
+            throw new IllegalArgumentException("Account number too long for journal: " + accountNumber);
+        }
+        return account;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    /** Writes one record at the next slot; caller holds the monitor. */
+    private long write(long timestamp, RecordType type, byte[] account, long amountMinor,
+                       long balanceAfterMinor, long previousSlot) {
+        if (nextSlot == windowStart + WINDOW_RECORDS) {
+            window.force();
+            mapWindow(nextSlot);
+        }
+        long slot = nextSlot;
+        int base = (int) ((slot - windowStart) * RECORD_SIZE);
+        window.putLong(base + 8, timestamp);
+        window.putInt(base + 16, type.code);
+        window.putInt(base + 20, account.length);
+        window.put(base + 24, account);
+        window.putLong(base + 40, amountMinor);
+        window.putLong(base + 48, balanceAfterMinor);
+        window.putLong(base + 56, previousSlot);
+        window.putLong(base, slot + 1); // seq last: a record is only visible once complete
+        nextSlot = slot + 1;
+        return slot;
+    }
+
+    /**
+     * Blocks until the given slot has been forced to disk. Throws
+     * {@link IllegalStateException} if that can no longer be promised: the
+     * journal was closed first, or the waiting thread was interrupted (its
+     * interrupt status is kept). The record may still reach the disk later,
+     * but the caller must not report it as durable.
+     */
+    public void awaitDurable(long slot) {
+        if (durableSlots > slot) {
+            return;
+        }
+        synchronized (commitLock) {
+            waiters++;
+            commitLock.notifyAll();
+            try {
+                while (durableSlots <= slot && !closed) {
+                    commitLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted before journal slot " + slot + " was durable", e);
+            } finally {
+                waiters--;
+            }
+        }
+        if (durableSlots <= slot) {
+            throw new IllegalStateException("Journal closed before slot " + slot + " was durable");
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            synchronized (commitLock) {
+                if (waiters == 0 && !closed) {
+                    try {
+                        commitLock.wait(commitIntervalMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            try {
+                commit();
+            } catch (RuntimeException e) {
+                LOG.error("Flush failed: %s", e.getMessage());
+            }
+        }
+    }
+
+    /** Forces everything appended so far and releases the waiting writers. */
+    private void commit() {
+        MappedByteBuffer current;
+        long target;
+        synchronized (this) {
+            current = window;
+            target = nextSlot;
+        }
+        if (target > durableSlots) {
+            current.force();
+            durableSlots = target;
+            synchronized (commitLock) {
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    private void mapWindow(long startSlot) {
+        try {
+            window = channel.map(FileChannel.MapMode.READ_WRITE,
+                    startSlot * RECORD_SIZE, WINDOW_RECORDS * RECORD_SIZE);
+            windowStart = startSlot;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map journal window at slot " + startSlot, e);
+        }
+    }
+
+    // --- Reading ---
+
+    public synchronized long size() {
+        return nextSlot;
+    }
+
+    public JournalRecord read(long slot) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        try {
+            readFully(channel, buf, slot * RECORD_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read journal slot " + slot, e);
+        }
+        return decode(slot, buf);
+    }
+
+    /** Streams every record in journal order (used for crash recovery). */
+    public void replay(RecordVisitor visitor) throws IOException {
+        long end = size();
+        ByteBuffer chunk = ByteBuffer.allocateDirect(RECORD_SIZE * 4096);
+        long slot = 0;
+        while (slot < end) {
+            chunk.clear();
+            long count = Math.min(end - slot, chunk.capacity() / RECORD_SIZE);
+            chunk.limit((int) (count * RECORD_SIZE));
+            readFully(channel, chunk, slot * RECORD_SIZE);
+            for (int i = 0; i < count; i++) {
+                chunk.position(i * RECORD_SIZE);
+                visitor.visit(decode(slot + i, chunk.slice()));
+            }
+            slot += count;
+        }
+    }
+
+    private static JournalRecord decode(long slot, ByteBuffer buf) {
+        byte[] account = new byte[buf.getInt(20)];
+        buf.get(24, account);
+        return new JournalRecord(slot, buf.getLong(8), RecordType.of(buf.getInt(16)),
+                new String(account, StandardCharsets.US_ASCII),
+                buf.getLong(40), buf.getLong(48), buf.getLong(56));
+    }
+
+    /**
+     * Finds the end of the journal by scanning forward to the first slot that
+     * doesn't hold a complete record, and cuts the file there. Dirty pages of
+     * the mapping reach the disk in any order, so a crash can leave a
+     * zero-filled hole with records after it; those records were never
+     * acknowledged as durable (the fsync that would have covered them didn't
+     * finish) and are dropped with the hole rather than replayed around it.
+     * A batch whose commit marker is missing is dropped whole.
+     */
+    private static long findEnd(FileChannel channel) throws IOException {
+        long slots = channel.size() / RECORD_SIZE;
+        ByteBuffer chunk = ByteBuffer.allocateDirect(RECORD_SIZE * 4096);
+        long end = -1;
+        long openBatch = -1; // slot of a BATCH_BEGIN not yet committed
+        long dropped = 0;
+        for (long slot = 0; slot < slots; ) {
+            chunk.clear();
+            long count = Math.min(slots - slot, chunk.capacity() / RECORD_SIZE);
+            chunk.limit((int) (count * RECORD_SIZE));
+            readFully(channel, chunk, slot * RECORD_SIZE);
+            for (int i = 0; i < count; i++) {
+                int base = i * RECORD_SIZE;
+                if (end >= 0) {
+                    if (chunk.getLong(base) != 0) {
+                        dropped++;
+                    }
+                } else if (!isComplete(chunk, base, slot + i)) {
+                    end = slot + i;
+                } else if (chunk.getInt(base + 16) == RecordType.BATCH_BEGIN.code) {
+                    openBatch = slot + i;
+                } else if (chunk.getInt(base + 16) == RecordType.BATCH_COMMIT.code) {
+                    openBatch = -1;
+                }
+            }
+            slot += count;
+        }
+        if (end < 0 && openBatch < 0) {
+            return slots;
+        }
+        if (openBatch >= 0) {
+            dropped += (end < 0 ? slots : end) - openBatch;
+            end = openBatch;
+        }
+        if (dropped > 0) {
+            LOG.warn("Torn journal tail: dropped %d record(s) from slot %d", dropped, end);
+        }
+        channel.truncate(end * RECORD_SIZE); // so records past a hole can't reappear after new appends
+        channel.force(true);
+        return end;
+    }
+
+    /** A record is complete if its seq matches its slot and its fields decode. */
+    private static boolean isComplete(ByteBuffer buf, int base, long slot) {
+        if (buf.getLong(base) != slot + 1) {
+            return false;
+        }
+        int length = buf.getInt(base + 20);
+        return RecordType.isValid(buf.getInt(base + 16)) && length >= 0 && length <= MAX_ACCOUNT_LENGTH;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position + buf.position());
+            if (n < 0) {
+                throw new IOException("Unexpected end of journal at " + position);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            window.force();
+            durableSlots = nextSlot;
+            closed = true;
+        }
+        synchronized (commitLock) {
+            commitLock.notifyAll();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.codsoft.common;
+
+import javax.swing.AbstractListModel;
+import java.util.Arrays;
+
+/**
+ * List model for an output log that keeps only the newest {@code capacity}
+ * lines in a ring buffer. Once full, each new line replaces the oldest, so
+ * memory and the cost of an append stay constant however long a terminal
+ * runs.
+ *
+ * Shown in a {@link javax.swing.JList} with a fixed cell size (a prototype
+ * cell value or fixed width and height), only the visible rows are ever
+ * measured or painted. Like any Swing model it must be used on the EDT.
+ */
+public class BoundedLogModel<E> extends AbstractListModel<E> {
+
+    private final Object[] lines;
+    private int head; // index of the oldest line
+    private int size;
+
+    public BoundedLogModel(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.lines = new Object[capacity];
+    }
+
+    public int getCapacity() {
+        return lines.length;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E getElementAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Line " + index + " of " + size);
+        }
+        return (E) lines[(head + index) % lines.length];
+    }
+
+    /** Appends a line, dropping the oldest one if the log is full. */
+    public void add(E line) {
+        if (size == lines.length) {
+            lines[head] = line;
+            head = (head + 1) % lines.length;
+            fireIntervalRemoved(this, 0, 0);
+        } else {
+            lines[(head + size) % lines.length] = line;
+            size++;
+        }
+        fireIntervalAdded(this, size - 1, size - 1);
+    }
+
+    public void clear() {
+        if (size > 0) {
+            int last = size - 1;
+            Arrays.fill(lines, null);
+            head = 0;
+            size = 0;
+            fireIntervalRemoved(this, 0, last);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.codsoft.common;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with log-sized buckets: one per
+ * value below 8 ns, then 8 per power of two, so every percentile is within
+ * 12.5% of the true latency and the whole range of a long fits in 496
+ * counters. The counters are {@link LongAdder}s, so any number of threads
+ * can record at once without a lock; reading sums them.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private volatile long max;
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /** Adds one latency; negative values count as 0. */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        totalNanos.add(value);
+        buckets[bucketOf(value)].increment();
+        if (value > max) {
+            synchronized (this) { // rare: only a new maximum takes the lock
+                if (value > max) {
+                    max = value;
+                }
+            }
+        }
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (LongAdder bucket : buckets) {
+            total += bucket.sum();
+        }
+        return total;
+    }
+
+    public double getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) totalNanos.sum() / n;
+    }
+
+    public long getMaxNanos() {
+        return max;
+    }
+
+    /** Nearest-rank percentile (midpoint of its bucket, at most the maximum); 0 if empty. */
+    public long percentile(double p) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, midpointOf(i));
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        totalNanos.reset();
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        max = 0;
+    }
+
+    /** Values below 8 get their own bucket; above, 8 buckets per power of two. */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static long midpointOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lower + width / 2;
+    }
+}
@@ -0,0 +1,217 @@
+package com.codsoft.common;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Small asynchronous, leveled logger. Callers never touch the console: an
+ * enabled message is dropped into a lock-free ring buffer as its format string
+ * and arguments, and a single background thread formats and prints it
+ * ({@code "[name] message"}, WARN and ERROR to stderr). A disabled level costs
+ * one volatile read and no formatting; hot paths can still guard with
+ * {@link #isEnabled} to skip boxing arguments.
+ *
+ * If the ring is full the message is dropped and counted rather than blocking
+ * the caller. DEBUG and INFO can also be sampled (keep one in N).
+ *
+ * Configured with system properties: {@code -Dlog.level=WARN} for every
+ * logger, {@code -Dlog.<name>.level=DEBUG} for one, and
+ * {@code -Dlog.sample=N} to sample DEBUG/INFO. An unknown level name leaves
+ * the logger at INFO and is reported as a warning.
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final Level DEFAULT_LEVEL = Level.INFO;
+    private static final int CAPACITY = 1 << 14;
+    private static final ConcurrentHashMap<String, Log> LOGGERS = new ConcurrentHashMap<>();
+    private static final Ring RING = new Ring(CAPACITY);
+
+    private final String name;
+    private volatile Level level;
+    private volatile int sampleEvery;
+
+    private Log(String name) {
+        this.name = name;
+        String property = System.getProperty("log." + name + ".level") != null ? "log." + name + ".level" : "log.level";
+        this.level = parseLevel(name, property, System.getProperty(property));
+        this.sampleEvery = Math.max(1, Integer.getInteger("log.sample", 1));
+    }
+
+    /** A configured level, or the default (with a warning, not an exception) if the name is unknown. */
+    private static Level parseLevel(String logger, String property, String value) {
+        if (value == null) {
+            return DEFAULT_LEVEL;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            RING.offer(new Event(Level.WARN, logger, "Unknown level \"%s\" in -D%s; using %s",
+                    new Object[] {value, property, DEFAULT_LEVEL}));
+            return DEFAULT_LEVEL;
+        }
+    }
+
+    /** The logger for a name, e.g. "Console"; created on first use. */
+    public static Log get(String name) {
+        return LOGGERS.computeIfAbsent(name, Log::new);
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /** Keeps one in {@code every} DEBUG/INFO messages; 1 keeps all. */
+    public void setSampling(int every) {
+        if (every < 1) {
+            throw new IllegalArgumentException("Sampling must be at least 1");
+        }
+        this.sampleEvery = every;
+    }
+
+    public boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    // --- Logging ---
+
+    public void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args);
+    }
+
+    public void info(String format, Object... args) {
+        log(Level.INFO, format, args);
+    }
+
+    public void warn(String format, Object... args) {
+        log(Level.WARN, format, args);
+    }
+
+    public void error(String format, Object... args) {
+        log(Level.ERROR, format, args);
+    }
+
+    public void log(Level messageLevel, String format, Object... args) {
+        if (!isEnabled(messageLevel)) {
+            return;
+        }
+        int every = sampleEvery;
+        if (every > 1 && messageLevel.compareTo(Level.WARN) < 0
+                && ThreadLocalRandom.current().nextInt(every) != 0) {
+            return;
+        }
+        RING.offer(new Event(messageLevel, name, format, args));
+    }
+
+    /** Messages lost because the ring was full. */
+    public static long droppedCount() {
+        return RING.dropped.get();
+    }
+
+    /** Blocks until everything logged so far has been written (e.g. before exiting a tool). */
+    public static void flush() {
+        RING.awaitDrained();
+    }
+
+    // --- Ring buffer and writer ---
+
+    private record Event(Level level, String name, String format, Object[] args) {
+        String render() {
+            String message = args.length == 0 ? format : String.format(format, args);
+            return "[" + name + "] " + message;
+        }
+    }
+
+    /**
+     * Multi-producer, single-consumer ring. Producers claim a slot with a CAS
+     * on {@code tail} and then publish the event into it; the writer takes
+     * slots in order, waiting on a claimed slot until its event appears.
+     */
+    private static final class Ring {
+        private final AtomicReferenceArray<Event> slots;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile long head;
+        private final Thread writer;
+
+        Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.writer = new Thread(this::drainLoop, "log-writer");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::awaitDrained, "log-flush"));
+        }
+
+        void offer(Event event) {
+            long slot;
+            do {
+                slot = tail.get();
+                if (slot - head >= slots.length()) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            } while (!tail.compareAndSet(slot, slot + 1));
+            slots.setRelease((int) (slot & mask), event);
+        }
+
+        private void drainLoop() {
+            while (true) {
+                if (!drain()) {
+                    LockSupport.parkNanos(1_000_000L);
+                }
+            }
+        }
+
+        /** Writes everything published so far; false if there was nothing to do. */
+        private synchronized boolean drain() {
+            long next = head;
+            boolean wroteOut = false;
+            boolean wroteErr = false;
+            while (next < tail.get()) {
+                int index = (int) (next & mask);
+                Event event = slots.getAcquire(index);
+                if (event == null) {
+                    Thread.onSpinWait(); // claimed but not yet published
+                    continue;
+                }
+                slots.setPlain(index, null);
+                boolean toErr = event.level().compareTo(Level.WARN) >= 0;
+                PrintStream stream = toErr ? System.err : System.out;
+                try {
+                    stream.println(event.render());
+                } catch (RuntimeException e) {
+                    stream.println("[" + event.name() + "] " + event.format() + " (format failed: " + e + ")");
+                }
+                head = ++next; // only after writing, so awaitDrained() means printed
+                wroteOut |= !toErr;
+                wroteErr |= toErr;
+            }
+            if (wroteOut) {
+                System.out.flush();
+            }
+            if (wroteErr) {
+                System.err.flush();
+            }
+            return wroteOut || wroteErr;
+        }
+
+        void awaitDrained() {
+            long target = tail.get();
+            while (head < target) {
+                drain();
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.codsoft.common;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Named operation timers with counts and latency percentiles, readable over
+ * local JMX ({@code com.codsoft:type=Timer,name=...} in JConsole) and
+ * optionally written to a snapshot file every few seconds. Gauges publish
+ * values their owner already keeps (a cache's hit count) the same way, as
+ * {@code com.codsoft:type=Gauge,name=...}.
+ *
+ * <pre>
+ * private static final Metrics.Timer DEPOSIT = Metrics.timer("atm.deposit");
+ * long start = DEPOSIT.start();
+ * ... the operation ...
+ * DEPOSIT.stop(start);
+ * </pre>
+ * Like {@code BalanceAuditSampler}, a timer samples the latency rather than
+ * timing every call: reading the clock twice and updating a histogram costs
+ * far more than the operations being measured, so only one operation in N
+ * (a thread-local random pick) is timed. The count is exact: every call
+ * bumps a {@link LongAdder}, whose striped cells take concurrent increments
+ * without contending on one counter. An operation that is not picked costs
+ * the increment, one random number and a branch. Samples go into a
+ * {@link LatencyHistogram}, whose striped counters take concurrent updates
+ * without a lock.
+ *
+ * Configured with system properties: {@code -Dmetrics.enabled=false} turns
+ * every timer into a no-op, {@code -Dmetrics.sample=N} times one in N
+ * operations (rounded up to a power of two, default 64; 1 times every call)
+ * for timers that don't choose their own rate, and {@code -Dmetrics.snapshot=file} with
+ * {@code -Dmetrics.snapshot.seconds=S} writes all timers to a file.
+ */
+public final class Metrics {
+
+    /** JMX view of a {@link Timer}. Latencies are in nanoseconds. */
+    public interface TimerMXBean {
+        /** Every operation started, timed or not. */
+        long getCount();
+
+        /** One operation in this many is timed. */
+        int getSampleEvery();
+
+        /** Operations timed; the latencies below are over these. */
+        long getSampledCount();
+
+        double getMeanNanos();
+
+        long getP50Nanos();
+
+        long getP99Nanos();
+
+        long getP999Nanos();
+
+        long getMaxNanos();
+
+        void reset();
+    }
+
+    /** JMX view of a gauge: a value read from its source on demand. */
+    public interface GaugeMXBean {
+        long getValue();
+    }
+
+    /** Returned by {@link Timer#start()} for an operation that is not timed. */
+    public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("metrics.enabled", "true"));
+    private static final int DEFAULT_SAMPLE = Integer.getInteger("metrics.sample", 64);
+    private static final ConcurrentHashMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+    private static final Log LOG = Log.get("Metrics");
+
+    static {
+        String snapshotFile = System.getProperty("metrics.snapshot");
+        if (ENABLED && snapshotFile != null) {
+            startSnapshots(Paths.get(snapshotFile), Integer.getInteger("metrics.snapshot.seconds", 10));
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /** The timer for a name, e.g. "atm.deposit"; created and registered with JMX on first use. */
+    public static Timer timer(String name) {
+        return timer(name, DEFAULT_SAMPLE);
+    }
+
+    /**
+     * A timer that times one in {@code sampleEvery} operations, e.g. 1 for a
+     * button click that is too rare to sample. The rate is fixed by whoever
+     * asks for the name first.
+     */
+    public static Timer timer(String name, int sampleEvery) {
+        int sampleMask = sampleMask(sampleEvery);
+        return TIMERS.computeIfAbsent(name, n -> register(n, sampleMask));
+    }
+
+    /**
+     * Publishes {@code source} under a name, e.g. "currency.cache.hits". The
+     * source is read only when JMX or a snapshot asks, so it costs its owner
+     * nothing. Registering a name again points it at the new source.
+     */
+    public static void gauge(String name, LongSupplier source) {
+        GAUGES.computeIfAbsent(name, n -> register(new Gauge(), "Gauge", n)).source = source;
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    private static Timer register(String name, int sampleMask) {
+        return register(new Timer(name, sampleMask), "Timer", name);
+    }
+
+    private static <T> T register(T bean, String type, String name) {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(bean, new ObjectName("com.codsoft:type=" + type + ",name=" + ObjectName.quote(name)));
+            } catch (InstanceAlreadyExistsException e) {
+                // another class loader registered the name first; it still counts here
+            } catch (JMException e) {
+                LOG.warn("Could not register %s %s with JMX: %s", type.toLowerCase(), name, e.getMessage());
+            }
+        }
+        return bean;
+    }
+
+    private static int sampleMask(int every) {
+        if (every < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1: " + every);
+        }
+        return Integer.highestOneBit(every * 2 - 1) - 1; // rounded up to a power of two
+    }
+
+    // --- Snapshots ---
+
+    /** Writes every timer to {@code file} every {@code seconds}, replacing it atomically. */
+    public static void startSnapshots(Path file, int seconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                writeSnapshot(file);
+            } catch (IOException e) {
+                LOG.warn("Could not write metrics snapshot: %s", e.getMessage());
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    public static void writeSnapshot(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(snapshot());
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** One line per timer, then one per gauge, each sorted by name. */
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# metrics at ").append(Instant.now()).append(", latencies in ns\n");
+        Map<String, Timer> sorted = new TreeMap<>(TIMERS);
+        for (Timer timer : sorted.values()) {
+            sb.append(String.format("%s count=%d every=%d sampled=%d mean=%.0f p50=%d p99=%d p999=%d max=%d%n",
+                    timer.name, timer.getCount(), timer.getSampleEvery(), timer.getSampledCount(), timer.getMeanNanos(),
+                    timer.getP50Nanos(), timer.getP99Nanos(), timer.getP999Nanos(), timer.getMaxNanos()));
+        }
+        for (Map.Entry<String, Gauge> gauge : new TreeMap<>(GAUGES).entrySet()) {
+            sb.append(gauge.getKey()).append(" value=").append(gauge.getValue().getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // --- Gauge ---
+
+    private static final class Gauge implements GaugeMXBean {
+        volatile LongSupplier source = () -> 0;
+
+        @Override
+        public long getValue() {
+            return source.getAsLong();
+        }
+    }
+
+    // --- Timer ---
+
+    /** Samples the latency of one kind of operation. Thread-safe and lock-free. */
+    public static final class Timer implements TimerMXBean {
+
+        private final String name;
+        private final int sampleMask;
+        private final LongAdder count = new LongAdder();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(String name, int sampleMask) {
+            this.name = name;
+            this.sampleMask = sampleMask;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Call before the operation; pass the result to {@link #stop}. Counts every call. */
+        public long start() {
+            if (!ENABLED) {
+                return NOT_SAMPLED;
+            }
+            count.increment();
+            if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+                return NOT_SAMPLED;
+            }
+            return System.nanoTime();
+        }
+
+        /** Call after the operation, also when it failed or returned early. */
+        public void stop(long start) {
+            if (start != NOT_SAMPLED) {
+                record(start); // kept out of line so the common path inlines into callers
+            }
+        }
+
+        private void record(long start) {
+            histogram.record(System.nanoTime() - start);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public int getSampleEvery() {
+            return sampleMask + 1;
+        }
+
+        @Override
+        public long getSampledCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            return histogram.getMeanNanos();
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return histogram.percentile(50);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return histogram.percentile(99);
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return histogram.percentile(99.9);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return histogram.getMaxNanos();
+        }
+
+        @Override
+        public void reset() {
+            count.reset();
+            histogram.reset();
+        }
+
+        /** Percentile of the sampled latencies; see {@link LatencyHistogram#percentile}. */
+        public long percentile(double p) {
+            return histogram.percentile(p);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.codsoft.common;
+
+import java.util.Set;
+
+/**
+ * An amount of money as a scaled {@code long} of minor units plus its ISO 4217
+ * currency code. The number of minor digits follows the currency (JPY has 0,
+ * INR has 2, KWD has 3). Arithmetic is exact; conversions round half-even
+ * through {@link MoneyMath}.
+ */
+public final class Money implements Comparable<Money> {
+
+    private static final Set<String> ZERO_DECIMALS = Set.of(
+            "BIF", "CLP", "DJF", "GNF", "ISK", "JPY", "KMF", "KRW", "PYG", "RWF",
+            "UGX", "UYI", "VND", "VUV", "XAF", "XOF", "XPF");
+    private static final Set<String> THREE_DECIMALS = Set.of(
+            "BHD", "IQD", "JOD", "KWD", "LYD", "OMR", "TND");
+
+    private final String currency;
+    private final long minor;
+
+    private Money(String currency, long minor) {
+        this.currency = currency;
+        this.minor = minor;
+    }
+
+    public static Money ofMinor(String currency, long minor) {
+        return new Money(currency, minor);
+    }
+
+    /**
+     * Parses a plain decimal such as "1250.5" exactly (no binary rounding).
+     * Throws {@link NumberFormatException} for anything else, including more
+     * fraction digits than the currency allows, and {@link ArithmeticException}
+     * if it does not fit. Callers parsing untrusted input in bulk should use
+     * {@link NumberParser} directly and check its status instead.
+     */
+    public static Money parse(String text, String currency) {
+        NumberParser parser = new NumberParser();
+        NumberParser.Status status = parser.parseDecimal(text, exponentOf(currency), Long.MIN_VALUE, Long.MAX_VALUE);
+        if (status == NumberParser.Status.OK) {
+            return new Money(currency, parser.value());
+        }
+        if (status == NumberParser.Status.OUT_OF_RANGE) {
+            throw new ArithmeticException("Amount too large: " + text);
+        }
+        throw new NumberFormatException(status == NumberParser.Status.TOO_MANY_DECIMALS
+                ? "Too many decimals for " + currency + ": " + text
+                : "Not an amount: " + text);
+    }
+
+    /** Minor-unit digits of a currency. */
+    public static int exponentOf(String currency) {
+        if (ZERO_DECIMALS.contains(currency)) {
+            return 0;
+        }
+        return THREE_DECIMALS.contains(currency) ? 3 : 2;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public long getMinor() {
+        return minor;
+    }
+
+    public int getExponent() {
+        return exponentOf(currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(currency, Math.addExact(minor, other.minor));
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(currency, Math.subtractExact(minor, other.minor));
+    }
+
+    /** Converts with a fixed-point rate (see {@link MoneyMath#toFixedRate}), rounding half-even. */
+    public Money convert(String toCurrency, long fixedRate) {
+        return new Money(toCurrency, MoneyMath.convert(minor, getExponent(), fixedRate, exponentOf(toCurrency)));
+    }
+
+    /** Approximate value for display or charts; never feed it back into money math. */
+    public double toDouble() {
+        return minor / (double) MoneyMath.powerOfTen(getExponent());
+    }
+
+    /** Plain decimal with exactly the currency's minor digits, e.g. "5000.00" or "150". */
+    public String format() {
+        int exponent = getExponent();
+        if (exponent == 0) {
+            return Long.toString(minor);
+        }
+        // Split before taking absolute values: Math.abs(Long.MIN_VALUE) is still negative
+        long unit = MoneyMath.powerOfTen(exponent);
+        String sign = minor < 0 ? "-" : "";
+        String fraction = Long.toString(Math.abs(minor % unit));
+        return sign + Math.abs(minor / unit) + "." + "0".repeat(exponent - fraction.length()) + fraction;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).minor == minor && ((Money) o).currency.equals(currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return currency.hashCode() * 31 + Long.hashCode(minor);
+    }
+
+    @Override
+    public String toString() {
+        return format() + " " + currency;
+    }
+}
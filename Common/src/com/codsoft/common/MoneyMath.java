@@ -0,0 +1,124 @@
+package com.codsoft.common;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money kernels on plain {@code long}s. Amounts are minor units
+ * (paise, cents, yen) and rates are scaled by {@link #RATE_SCALE}. Every
+ * result is rounded once, half-even (banker's rounding), so repeated
+ * conversions and sums never drift the way binary doubles do.
+ *
+ * The common case stays in 64-bit arithmetic; only products too large for a
+ * {@code long} fall back to {@link BigDecimal}.
+ */
+public final class MoneyMath {
+
+    /** Rates carry 9 decimal places. */
+    public static final int RATE_DECIMALS = 9;
+    public static final long RATE_SCALE = 1_000_000_000L;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L};
+
+    private MoneyMath() {
+    }
+
+    /** Converts a floating-point rate to the fixed-point form used by the kernels. */
+    public static long toFixedRate(double rate) {
+        if (!(rate > 0) || rate * RATE_SCALE >= Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Rate out of range: " + rate);
+        }
+        return Math.round(rate * RATE_SCALE);
+    }
+
+    /**
+     * Converts an amount between currencies:
+     * {@code minor * rate * 10^(toExponent - fromExponent)}, rounded half-even.
+     */
+    public static long convert(long minor, int fromExponent, long fixedRate, int toExponent) {
+        long numerator;
+        long divisor;
+        if (toExponent >= fromExponent) {
+            long scaledRate = multiplyOrZero(fixedRate, POWERS_OF_TEN[toExponent - fromExponent]);
+            numerator = scaledRate == 0 ? 0 : multiplyOrZero(minor, scaledRate);
+            divisor = RATE_SCALE;
+            if (numerator == 0 && minor != 0) {
+                return slowConvert(minor, BigInteger.valueOf(fixedRate)
+                        .multiply(BigInteger.TEN.pow(toExponent - fromExponent)), BigInteger.valueOf(divisor));
+            }
+        } else {
+            numerator = multiplyOrZero(minor, fixedRate);
+            divisor = RATE_SCALE * POWERS_OF_TEN[fromExponent - toExponent];
+            if (numerator == 0 && minor != 0) {
+                return slowConvert(minor, BigInteger.valueOf(fixedRate), BigInteger.valueOf(divisor));
+            }
+        }
+        return divideHalfEven(numerator, divisor);
+    }
+
+    /** Multiplies minor units by a fixed-point factor (e.g. an interest rate), rounded half-even. */
+    public static long multiply(long minor, long fixedFactor) {
+        long product = multiplyOrZero(minor, fixedFactor);
+        if (product == 0 && minor != 0) {
+            return slowConvert(minor, BigInteger.valueOf(fixedFactor), BigInteger.valueOf(RATE_SCALE));
+        }
+        return divideHalfEven(product, RATE_SCALE);
+    }
+
+    /**
+     * {@code minor * fixedFactor / divisor}, rounded once, half-even: e.g. a
+     * yearly interest rate applied for a number of days out of 365.
+     */
+    public static long multiplyDivide(long minor, long fixedFactor, long divisor) {
+        if (divisor < 1) {
+            throw new IllegalArgumentException("Divisor must be positive: " + divisor);
+        }
+        long product = multiplyOrZero(minor, fixedFactor);
+        long scaledDivisor = multiplyOrZero(RATE_SCALE, divisor);
+        if ((product == 0 && minor != 0 && fixedFactor != 0) || scaledDivisor == 0) {
+            return slowConvert(minor, BigInteger.valueOf(fixedFactor),
+                    BigInteger.valueOf(RATE_SCALE).multiply(BigInteger.valueOf(divisor)));
+        }
+        return divideHalfEven(product, scaledDivisor);
+    }
+
+    /** Exact sum; throws {@link ArithmeticException} on overflow instead of wrapping. */
+    public static long sum(long[] minors, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total = Math.addExact(total, minors[i]);
+        }
+        return total;
+    }
+
+    /** Integer division rounded half-even; {@code divisor} must be positive. */
+    public static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend - quotient * divisor); // one division, not two
+        long rest = divisor - remainder; // compared instead of doubling the remainder, which can overflow
+        if (remainder > rest || (remainder == rest && (quotient & 1) != 0)) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    public static long powerOfTen(int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    /** Exact product, or 0 if it doesn't fit a long (callers then take the slow path). */
+    private static long multiplyOrZero(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        return high == (low >> 63) ? low : 0;
+    }
+
+    private static long slowConvert(long minor, BigInteger factor, BigInteger divisor) {
+        BigDecimal result = new BigDecimal(BigInteger.valueOf(minor).multiply(factor))
+                .divide(new BigDecimal(divisor), 0, RoundingMode.HALF_EVEN);
+        return result.longValueExact();
+    }
+}
@@ -0,0 +1,265 @@
+package com.codsoft.common;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Property check for {@link Money} and {@link MoneyMath}: random cases
+ * (plus the edges: zero, one, ±{@code Long.MAX_VALUE}, {@code Long.MIN_VALUE})
+ * compared with {@link BigDecimal} arithmetic rounded {@link RoundingMode#HALF_EVEN}.
+ * Checks that every kernel rounds exactly once and half-even or throws
+ * {@link ArithmeticException} when the exact result doesn't fit, that sums are
+ * exact, that {@link Money#format()} and {@link Money#parse} round-trip, and
+ * that repeated arithmetic never drifts: a million one-cent deposits make
+ * exactly 10000.00, and converting there and back at a rate and its inverse
+ * only ever loses the one rounding step it is entitled to.
+ *
+ * Run from the Common folder, {@code java com.codsoft.common.MoneyPropertyCheck};
+ * exits with status 1 on a failure. Configured with {@code -Dcheck.cases=N}
+ * (default 200000) and {@code -Dcheck.seed=S} (default random, printed so a
+ * failure can be replayed).
+ */
+public final class MoneyPropertyCheck {
+
+    private static final String[] CURRENCIES = {"JPY", "INR", "USD", "KWD"}; // exponents 0, 2, 2, 3
+    private static final long[] EDGES = {0, 1, -1, 5, -5, Long.MAX_VALUE, -Long.MAX_VALUE, Long.MIN_VALUE};
+    private static final int MAX_REPORTED = 20;
+    private static final BigDecimal RATE_SCALE = BigDecimal.valueOf(MoneyMath.RATE_SCALE);
+
+    private final Random random;
+    private final List<String> failures = new ArrayList<>();
+    private long checked;
+
+    private MoneyPropertyCheck(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) {
+        int cases = Integer.getInteger("check.cases", 200_000);
+        long seed = Long.getLong("check.seed", new Random().nextLong());
+        if (cases < 1) {
+            throw new IllegalArgumentException("Need at least 1 case: " + cases);
+        }
+
+        MoneyPropertyCheck check = new MoneyPropertyCheck(seed);
+        check.edges();
+        for (int i = 0; i < cases; i++) {
+            check.convert(check.amount(), check.rate(), check.currency(), check.currency());
+            check.multiply(check.amount(), check.rate());
+            check.multiplyDivide(check.amount(), check.rate(), 1 + check.random.nextInt(100_000));
+            check.divideHalfEven(check.amount(), check.divisor());
+            check.sum();
+            check.roundTrip(check.amount(), check.currency());
+            check.thereAndBack(check.random.nextInt(1_000_000_000), check.rate());
+        }
+        check.noDrift();
+
+        System.out.printf("%d properties checked (seed %d)%n", check.checked, seed);
+        if (check.failures.isEmpty()) {
+            System.out.println("OK: every result rounded once, half-even; sums exact; no drift");
+            return;
+        }
+        for (String failure : check.failures.subList(0, Math.min(MAX_REPORTED, check.failures.size()))) {
+            System.out.println("FAIL: " + failure);
+        }
+        System.out.printf("%d failure(s); replay with -Dcheck.seed=%d%n", check.failures.size(), seed);
+        System.exit(1);
+    }
+
+    // --- Generators ---
+
+    /** Mostly everyday amounts, some huge ones (the BigDecimal fallback), now and then an edge. */
+    private long amount() {
+        switch (random.nextInt(8)) {
+            case 0:
+                return EDGES[random.nextInt(EDGES.length)];
+            case 1:
+                return random.nextLong();
+            case 2:
+                return random.nextLong() >> random.nextInt(64);
+            default:
+                return random.nextInt(2_000_000_001) - 1_000_000_000L;
+        }
+    }
+
+    /** A fixed-point rate from 10^-9 up to about 10^5, as quoted rates and interest factors are. */
+    private long rate() {
+        return random.nextInt(4) == 0
+                ? 1 + random.nextInt(1_000_000_000)
+                : 1 + (long) (random.nextDouble() * 100_000 * MoneyMath.RATE_SCALE);
+    }
+
+    private long divisor() {
+        return random.nextBoolean() ? 1 + random.nextInt(1000) : 1 + (random.nextLong() >>> 1);
+    }
+
+    private String currency() {
+        return CURRENCIES[random.nextInt(CURRENCIES.length)];
+    }
+
+    // --- Properties ---
+
+    private void edges() {
+        for (long amount : EDGES) {
+            for (String from : CURRENCIES) {
+                for (String to : CURRENCIES) {
+                    convert(amount, MoneyMath.RATE_SCALE, from, to);
+                    convert(amount, 1, from, to);
+                    convert(amount, Long.MAX_VALUE, from, to);
+                }
+                roundTrip(amount, from);
+            }
+            multiply(amount, MoneyMath.RATE_SCALE);
+            multiplyDivide(amount, MoneyMath.RATE_SCALE, 365);
+            divideHalfEven(amount, 1);
+            divideHalfEven(amount, 2);
+            divideHalfEven(amount, Long.MAX_VALUE);
+        }
+        // Exact ties round to the even neighbour
+        divideHalfEven(5, 2);
+        divideHalfEven(-5, 2);
+        divideHalfEven(7, 2);
+        divideHalfEven(-7, 2);
+    }
+
+    private void convert(long minor, long fixedRate, String from, String to) {
+        int fromExponent = Money.exponentOf(from);
+        int toExponent = Money.exponentOf(to);
+        BigDecimal exact = BigDecimal.valueOf(minor).multiply(BigDecimal.valueOf(fixedRate))
+                .divide(RATE_SCALE).scaleByPowerOfTen(toExponent - fromExponent);
+        expect("convert(" + minor + ", " + from + ", " + fixedRate + ", " + to + ")", exact,
+                () -> MoneyMath.convert(minor, fromExponent, fixedRate, toExponent));
+    }
+
+    private void multiply(long minor, long fixedFactor) {
+        BigDecimal exact = BigDecimal.valueOf(minor).multiply(BigDecimal.valueOf(fixedFactor)).divide(RATE_SCALE);
+        expect("multiply(" + minor + ", " + fixedFactor + ")", exact, () -> MoneyMath.multiply(minor, fixedFactor));
+    }
+
+    private void multiplyDivide(long minor, long fixedFactor, long divisor) {
+        expect("multiplyDivide(" + minor + ", " + fixedFactor + ", " + divisor + ")", exactQuotient(
+                BigInteger.valueOf(minor).multiply(BigInteger.valueOf(fixedFactor)),
+                BigInteger.valueOf(MoneyMath.RATE_SCALE).multiply(BigInteger.valueOf(divisor))),
+                () -> MoneyMath.multiplyDivide(minor, fixedFactor, divisor));
+    }
+
+    private void divideHalfEven(long dividend, long divisor) {
+        expect("divideHalfEven(" + dividend + ", " + divisor + ")",
+                exactQuotient(BigInteger.valueOf(dividend), BigInteger.valueOf(divisor)),
+                () -> MoneyMath.divideHalfEven(dividend, divisor));
+    }
+
+    /** Sums random slices; the result must match BigInteger, or the kernel must refuse to wrap. */
+    private void sum() {
+        long[] minors = new long[1 + random.nextInt(64)];
+        for (int i = 0; i < minors.length; i++) {
+            minors[i] = random.nextInt(16) == 0 ? random.nextLong() : random.nextInt();
+        }
+        int from = random.nextInt(minors.length);
+        int to = from + random.nextInt(minors.length - from + 1);
+        BigInteger exact = BigInteger.ZERO;
+        boolean overflowed = false;
+        for (int i = from; i < to; i++) {
+            exact = exact.add(BigInteger.valueOf(minors[i]));
+            overflowed |= exact.bitLength() > 63; // addExact fails on any overflowing partial sum
+        }
+        checked++;
+        try {
+            long total = MoneyMath.sum(minors, from, to);
+            if (overflowed || total != exact.longValueExact()) {
+                failures.add("sum of " + (to - from) + " amounts: got " + total + ", expected "
+                        + (overflowed ? "ArithmeticException" : exact));
+            }
+        } catch (ArithmeticException e) {
+            if (!overflowed) {
+                failures.add("sum of " + (to - from) + " amounts threw, expected " + exact);
+            }
+        }
+    }
+
+    private void roundTrip(long minor, String currency) {
+        checked++;
+        Money money = Money.ofMinor(currency, minor);
+        String text = money.format();
+        try {
+            Money parsed = Money.parse(text, currency);
+            if (!parsed.equals(money)) {
+                failures.add(money + " formatted as \"" + text + "\" parsed back as " + parsed);
+            }
+        } catch (RuntimeException e) {
+            failures.add(minor + " " + currency + " formatted as \"" + text + "\" didn't parse: " + e);
+        }
+    }
+
+    /**
+     * INR to USD at a rate and back at the (rounded) inverse. Each leg is one
+     * half-even rounding, so the round trip may be off by what the first
+     * rounding lost, scaled back, plus half a paisa for the second; never more.
+     */
+    private void thereAndBack(long paise, long fixedRate) {
+        checked++;
+        long inverse = MoneyMath.divideHalfEven(MoneyMath.RATE_SCALE * MoneyMath.RATE_SCALE, fixedRate);
+        if (inverse < 1) {
+            return;
+        }
+        long cents = MoneyMath.convert(paise, 2, fixedRate, 2);
+        long back = MoneyMath.convert(cents, 2, inverse, 2);
+        BigDecimal exactBack = BigDecimal.valueOf(paise).multiply(BigDecimal.valueOf(fixedRate))
+                .multiply(BigDecimal.valueOf(inverse)).divide(RATE_SCALE.multiply(RATE_SCALE));
+        BigDecimal allowed = BigDecimal.valueOf(inverse).divide(RATE_SCALE).multiply(BigDecimal.valueOf(0.5))
+                .add(BigDecimal.valueOf(0.5));
+        if (BigDecimal.valueOf(back).subtract(exactBack).abs().compareTo(allowed) > 0) {
+            failures.add(paise + " paise at " + fixedRate + " and back at " + inverse + " came back as " + back);
+        }
+    }
+
+    /** Sums that doubles get wrong (0.1 + 0.2 and friends) must come out exact. */
+    private void noDrift() {
+        long total = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            total = Math.addExact(total, Money.parse("0.01", "INR").getMinor());
+        }
+        checked++;
+        if (!Money.ofMinor("INR", total).format().equals("10000.00")) {
+            failures.add("a million deposits of 0.01 made " + Money.ofMinor("INR", total).format());
+        }
+        checked++;
+        Money tenth = Money.parse("0.10", "USD");
+        Money sum = tenth.plus(Money.parse("0.20", "USD"));
+        if (!sum.equals(Money.parse("0.30", "USD"))) {
+            failures.add("0.10 + 0.20 made " + sum);
+        }
+    }
+
+    // --- Comparison ---
+
+    /** {@code dividend / divisor} rounded half-even, exactly. */
+    private static BigDecimal exactQuotient(BigInteger dividend, BigInteger divisor) {
+        return new BigDecimal(dividend).divide(new BigDecimal(divisor), 0, RoundingMode.HALF_EVEN);
+    }
+
+    private interface Kernel {
+        long apply();
+    }
+
+    /** The kernel must return {@code exact} rounded half-even, or throw if that doesn't fit a long. */
+    private void expect(String call, BigDecimal exact, Kernel kernel) {
+        checked++;
+        BigDecimal rounded = exact.setScale(0, RoundingMode.HALF_EVEN);
+        boolean fits = rounded.toBigInteger().bitLength() <= 63; // includes Long.MIN_VALUE
+        try {
+            long result = kernel.apply();
+            if (!fits || result != rounded.longValueExact()) {
+                failures.add(call + " = " + result + ", expected " + (fits ? rounded : "ArithmeticException"));
+            }
+        } catch (ArithmeticException e) {
+            if (fits) {
+                failures.add(call + " threw " + e.getMessage() + ", expected " + rounded);
+            }
+        }
+    }
+}
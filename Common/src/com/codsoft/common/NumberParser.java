@@ -0,0 +1,210 @@
+package com.codsoft.common;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Parses integers and fixed-point decimals from user input and data feeds
+ * without throwing: every call returns a {@link Status} and leaves the value
+ * in {@link #value()}. Bad input is ordinary data here (a mistyped amount, a
+ * dirty CSV row), so it costs a return code rather than building an
+ * exception and its stack trace.
+ *
+ * Decimals are read exactly into scaled longs (e.g. paise for "1250.50" at
+ * two digits), never through {@code double}. A localized parser accepts the
+ * locale's decimal separator and grouping separators between groups of three
+ * digits ("1.250,50" in German); grouping is checked strictly, so "12.50"
+ * typed into a German parser is rejected rather than read as 1250.
+ *
+ * An instance keeps the last value, so it is not thread-safe: give each
+ * thread, connection or form its own. Parsing allocates nothing.
+ */
+public final class NumberParser {
+
+    public enum Status {
+        OK,
+        /** Nothing but whitespace. */
+        EMPTY,
+        /** Not a number in this format. */
+        INVALID,
+        /** More fraction digits than allowed. */
+        TOO_MANY_DECIMALS,
+        /** A valid number outside the requested bounds, or too large for a long. */
+        OUT_OF_RANGE
+    }
+
+    private static final char NO_GROUPING = '\0';
+    private static final long MIN_DIV_10 = Long.MIN_VALUE / 10;
+    private static final int SAFE_DIGITS = 18; // any 18-digit number fits a long
+
+    private final char decimalSeparator;
+    private final char groupingSeparator;
+    private long value;
+
+    /** Plain machine format: '.' decimals and no grouping, as in files and protocols. */
+    public NumberParser() {
+        this.decimalSeparator = '.';
+        this.groupingSeparator = NO_GROUPING;
+    }
+
+    /** The locale's decimal and grouping separators, for text typed by a user. */
+    public NumberParser(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.decimalSeparator = symbols.getDecimalSeparator();
+        char grouping = symbols.getGroupingSeparator();
+        // Locales that group with a (narrow) no-break space also get plain spaces from the keyboard
+        this.groupingSeparator = Character.isSpaceChar(grouping) ? ' ' : grouping;
+    }
+
+    /** The value from the last call that returned {@link Status#OK}. */
+    public long value() {
+        return value;
+    }
+
+    // --- Integers ---
+
+    public Status parseInt(CharSequence text, long min, long max) {
+        return parseInt(text, 0, text.length(), min, max);
+    }
+
+    /** Parses {@code text[start, end)} as a whole number within {@code [min, max]}. */
+    public Status parseInt(CharSequence text, int start, int end, long min, long max) {
+        return parseDecimal(text, start, end, 0, min, max);
+    }
+
+    // --- Decimals ---
+
+    public Status parseDecimal(CharSequence text, int fractionDigits, long min, long max) {
+        return parseDecimal(text, 0, text.length(), fractionDigits, min, max);
+    }
+
+    /**
+     * Parses {@code text[start, end)} as a decimal with at most
+     * {@code fractionDigits} after the separator, scaled by 10^fractionDigits
+     * ("12.5" at 2 digits is 1250), and checks it is within {@code [min, max]}
+     * (also scaled). Surrounding whitespace and a leading sign are allowed.
+     */
+    public Status parseDecimal(CharSequence text, int start, int end, int fractionDigits, long min, long max) {
+        Status status = parseShort(text, start, end, fractionDigits, min, max);
+        return status != null ? status : parseFull(text, start, end, fractionDigits, min, max);
+    }
+
+    /**
+     * Fast path for the usual input: an optional sign, at most 18 digits and
+     * at most one decimal separator, nothing else. Small enough to be inlined
+     * into callers. Returns null to hand anything else to {@link #parseFull}.
+     */
+    private Status parseShort(CharSequence text, int start, int end, int fractionDigits, long min, long max) {
+        if (end - start > SAFE_DIGITS) {
+            return null;
+        }
+        int i = start;
+        boolean negative = i < end && text.charAt(i) == '-';
+        if (negative || (i < end && text.charAt(i) == '+')) {
+            i++;
+        }
+        long result = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                result = result * 10 + (c - '0');
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (c == decimalSeparator && fraction < 0) {
+                fraction = 0;
+            } else {
+                return null;
+            }
+        }
+        int scale = fractionDigits - Math.max(0, fraction);
+        if (digits == 0 || scale < 0 || digits + scale > SAFE_DIGITS) {
+            return null;
+        }
+        long parsed = (negative ? -result : result) * MoneyMath.powerOfTen(scale);
+        if (parsed < min || parsed > max) {
+            return Status.OUT_OF_RANGE;
+        }
+        value = parsed;
+        return Status.OK;
+    }
+
+    private Status parseFull(CharSequence text, int start, int end, int fractionDigits, long min, long max) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return Status.EMPTY;
+        }
+        boolean negative = false;
+        char first = text.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+        }
+
+        // Accumulate as a negative number so Long.MIN_VALUE is reachable
+        long result = 0;
+        boolean overflow = false;
+        int digits = 0;
+        int fraction = -1;     // digits after the separator, -1 before it
+        int groupDigits = 0;   // digits since the last grouping separator
+        boolean grouped = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (fraction >= 0 && ++fraction > fractionDigits) {
+                    return Status.TOO_MANY_DECIMALS;
+                }
+                int digit = c - '0';
+                if (digits >= SAFE_DIGITS && (result < MIN_DIV_10 || (result == MIN_DIV_10 && digit > 8))) {
+                    overflow = true; // keep scanning: a malformed tail is still INVALID
+                } else {
+                    result = result * 10 - digit;
+                }
+                digits++;
+                groupDigits++;
+            } else if (c == decimalSeparator && fraction < 0) {
+                if (grouped && groupDigits != 3) {
+                    return Status.INVALID;
+                }
+                fraction = 0;
+            } else if (isGrouping(c) && fraction < 0 && digits > 0
+                    && (grouped ? groupDigits == 3 : groupDigits <= 3)) {
+                grouped = true;
+                groupDigits = 0;
+            } else {
+                return Status.INVALID;
+            }
+        }
+        if (digits == 0 || (grouped && fraction < 0 && groupDigits != 3)) {
+            return Status.INVALID;
+        }
+        for (int scale = Math.max(0, fraction); scale < fractionDigits && !overflow; scale++) {
+            if (result < MIN_DIV_10) {
+                overflow = true;
+            } else {
+                result *= 10;
+            }
+        }
+        if (overflow || (!negative && result == Long.MIN_VALUE)) {
+            return Status.OUT_OF_RANGE;
+        }
+        long parsed = negative ? result : -result;
+        if (parsed < min || parsed > max) {
+            return Status.OUT_OF_RANGE;
+        }
+        value = parsed;
+        return Status.OK;
+    }
+
+    private boolean isGrouping(char c) {
+        return c == groupingSeparator || (groupingSeparator == ' ' && Character.isSpaceChar(c));
+    }
+}
@@ -0,0 +1,124 @@
+package com.codsoft.common.bench;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Stored benchmark results to compare a run against: a properties file of
+ * benchmark name to nanoseconds per operation. A baseline only means
+ * something on the machine and JDK that recorded it, which its header notes.
+ */
+public final class Baseline {
+
+    /** Default slowdown, in percent, reported as a regression. */
+    public static final double DEFAULT_THRESHOLD = 10;
+
+    /** One benchmark in a comparison; {@code baselineNanos} is NaN if it is new. */
+    public record Row(String name, double baselineNanos, double currentNanos, boolean regression) {
+        /** Change against the baseline in percent, positive when slower. */
+        public double changePercent() {
+            return (currentNanos / baselineNanos - 1) * 100;
+        }
+    }
+
+    private final Map<String, Double> nanosPerOp;
+
+    private Baseline(Map<String, Double> nanosPerOp) {
+        this.nanosPerOp = nanosPerOp;
+    }
+
+    public static Baseline of(List<BenchmarkRunner.Result> results) {
+        Map<String, Double> nanos = new TreeMap<>();
+        for (BenchmarkRunner.Result result : results) {
+            nanos.put(result.name(), result.nanosPerOp());
+        }
+        return new Baseline(nanos);
+    }
+
+    /** This baseline with {@code newer}'s results added, replacing any of the same name. */
+    public Baseline updatedWith(Baseline newer) {
+        Map<String, Double> nanos = new TreeMap<>(nanosPerOp);
+        nanos.putAll(newer.nanosPerOp);
+        return new Baseline(nanos);
+    }
+
+    public static Baseline load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        Map<String, Double> nanos = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            String value = properties.getProperty(name).trim();
+            try {
+                nanos.put(name, Double.parseDouble(value));
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ": " + name + " is not a number: " + value);
+            }
+        }
+        return new Baseline(nanos);
+    }
+
+    /** Writes the baseline with a comment line describing where it was recorded. */
+    public void save(Path file, String comment) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# Nanoseconds per operation. " + comment + "\n");
+            for (Map.Entry<String, Double> entry : nanosPerOp.entrySet()) {
+                out.write(entry.getKey() + "=" + String.format("%.3f", entry.getValue()) + "\n");
+            }
+        }
+    }
+
+    public Double nanosPerOp(String name) {
+        return nanosPerOp.get(name);
+    }
+
+    /** Compares results against this baseline; slower by more than {@code thresholdPercent} is a regression. */
+    public List<Row> compare(List<BenchmarkRunner.Result> results, double thresholdPercent) {
+        List<Row> rows = new ArrayList<>();
+        for (BenchmarkRunner.Result result : results) {
+            Double baseline = nanosPerOp.get(result.name());
+            double current = result.nanosPerOp();
+            boolean regression = baseline != null && current > baseline * (1 + thresholdPercent / 100);
+            rows.add(new Row(result.name(), baseline == null ? Double.NaN : baseline, current, regression));
+        }
+        return rows;
+    }
+
+    /** The comparison as a table, one row per benchmark. */
+    public static String report(List<Row> rows, double thresholdPercent) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-32s %12s %12s %9s%n", "Benchmark", "Baseline", "Current", "Change"));
+        int regressions = 0;
+        for (Row row : rows) {
+            if (Double.isNaN(row.baselineNanos())) {
+                sb.append(String.format("%-32s %12s %12s %9s%n",
+                        row.name(), "-", BenchmarkRunner.formatNanos(row.currentNanos()), "new"));
+                continue;
+            }
+            sb.append(String.format("%-32s %12s %12s %+8.1f%%%s%n", row.name(),
+                    BenchmarkRunner.formatNanos(row.baselineNanos()), BenchmarkRunner.formatNanos(row.currentNanos()),
+                    row.changePercent(), row.regression() ? "  REGRESSION" : ""));
+            if (row.regression()) {
+                regressions++;
+            }
+        }
+        sb.append(regressions == 0
+                ? String.format("No regressions over %.0f%%.%n", thresholdPercent)
+                : String.format("%d regression(s) over %.0f%%.%n", regressions, thresholdPercent));
+        return sb.toString();
+    }
+}
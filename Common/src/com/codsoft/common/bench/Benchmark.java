@@ -0,0 +1,18 @@
+package com.codsoft.common.bench;
+
+/**
+ * One measured operation, run by {@link BenchmarkRunner}. The runner calls
+ * {@link #run} with a batch size large enough to make timer overhead
+ * negligible; the benchmark performs the operation that many times and
+ * returns something computed from the results, which the runner keeps so the
+ * JIT cannot drop the work as dead code.
+ */
+@FunctionalInterface
+public interface Benchmark {
+
+    /**
+     * Performs {@code operations} operations on behalf of worker {@code thread}
+     * (0 for a single-threaded benchmark, 0 to threads-1 when contended).
+     */
+    long run(int thread, long operations) throws Exception;
+}
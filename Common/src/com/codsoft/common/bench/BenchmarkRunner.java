@@ -0,0 +1,361 @@
+package com.codsoft.common.bench;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Small benchmark harness for the apps' hot paths, in the manner of JMH:
+ * each benchmark runs in its own JVM (so one benchmark's JIT profile can't
+ * slow another), is warmed up for a few timed iterations, then measured for
+ * a few more, and reports the mean time per operation with its standard
+ * deviation across iterations. A multi-threaded benchmark reports wall time
+ * divided by the operations of all threads, i.e. inverse throughput.
+ *
+ * A suite is a main class that registers its benchmarks and calls
+ * {@link #run}:
+ * <pre>
+ * new BenchmarkRunner("atm", LedgerBenchmarks.class)
+ *         .add("atm.deposit", 1, () -> (thread, ops) -> ...)
+ *         .run();
+ * </pre>
+ * Single-threaded benchmarks also report the bytes allocated per operation
+ * (from the JVM's per-thread allocation counter); one registered with
+ * {@link #addAllocationFree} fails the run if it allocates at all.
+ *
+ * Results are compared with {@code bench/baseline.properties} in the working
+ * directory (the app's project folder) if it exists; the run exits with
+ * status 1 if any benchmark is slower than the baseline by more than the
+ * threshold.
+ *
+ * Configured with system properties:
+ * {@code -Dbench.filter=regex} runs matching benchmarks only,
+ * {@code -Dbench.warmup=N} and {@code -Dbench.iterations=N} (default 5 each)
+ * of {@code -Dbench.millis=M} (default 1000) each,
+ * {@code -Dbench.fork=false} runs everything in this JVM,
+ * {@code -Dbench.baseline=file} and {@code -Dbench.threshold=percent}
+ * (default 10) choose what to compare with, and
+ * {@code -Dbench.save=file} records this run's results in a baseline,
+ * keeping the entries of benchmarks it didn't run. Its header
+ * names the JVM, the OS and the CPU count, with a warning when there were
+ * too few CPUs for the results to carry over to another machine.
+ */
+public final class BenchmarkRunner {
+
+    /** One benchmark's measurement; {@code bytesPerOp} is NaN if it wasn't measured (several threads). */
+    public record Result(String name, int threads, double nanosPerOp, double stdevNanos, double bytesPerOp) {
+    }
+
+    public static final Path DEFAULT_BASELINE = Paths.get("bench", "baseline.properties");
+
+    private static final String CHILD_PROPERTY = "bench.child";
+    private static final String RESULT_PREFIX = "@result ";
+    private static final long MIN_BATCH_NANOS = 10_000_000; // a batch long enough that reading the clock doesn't matter
+    private static final double ALLOCATION_TOLERANCE = 0.01; // bytes per operation: the harness's own noise
+
+    private record Entry(int threads, Callable<Benchmark> setup, boolean allocationFree) {
+    }
+
+    private static volatile long sink;
+    private long measuredOperations; // single-threaded iterations only, for bytes per operation
+
+    private final String suite;
+    private final Class<?> mainClass;
+    private final Map<String, Entry> benchmarks = new LinkedHashMap<>();
+
+    private final int warmupIterations = Integer.getInteger("bench.warmup", 5);
+    private final int iterations = Integer.getInteger("bench.iterations", 5);
+    private final long iterationNanos = Integer.getInteger("bench.millis", 1000) * 1_000_000L;
+
+    /** @param mainClass the suite's main class, launched again for each forked benchmark */
+    public BenchmarkRunner(String suite, Class<?> mainClass) {
+        if (warmupIterations < 0 || iterations < 1 || iterationNanos < 1) {
+            throw new IllegalArgumentException("bench.warmup, bench.iterations and bench.millis must be positive");
+        }
+        this.suite = suite;
+        this.mainClass = mainClass;
+    }
+
+    /**
+     * Registers a benchmark. {@code setup} builds its data and returns it; it
+     * only runs if the benchmark is selected, in the JVM that measures it.
+     */
+    public BenchmarkRunner add(String name, int threads, Callable<Benchmark> setup) {
+        return add(name, new Entry(threads, setup, false));
+    }
+
+    /** Registers a single-threaded benchmark that must not allocate; the run fails if it does. */
+    public BenchmarkRunner addAllocationFree(String name, Callable<Benchmark> setup) {
+        return add(name, new Entry(1, setup, true));
+    }
+
+    private BenchmarkRunner add(String name, Entry entry) {
+        if (entry.threads() < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1: " + entry.threads());
+        }
+        if (benchmarks.putIfAbsent(name, entry) != null) {
+            throw new IllegalArgumentException("Duplicate benchmark: " + name);
+        }
+        return this;
+    }
+
+    /** Runs the selected benchmarks, prints results and the baseline comparison, and exits. */
+    public void run() throws Exception {
+        String child = System.getProperty(CHILD_PROPERTY);
+        if (child != null) {
+            Entry entry = benchmarks.get(child);
+            if (entry == null) {
+                throw new IllegalArgumentException("Unknown benchmark: " + child);
+            }
+            Result result = measure(child, entry);
+            System.out.println(RESULT_PREFIX + child + " " + result.nanosPerOp() + " " + result.stdevNanos()
+                    + " " + result.bytesPerOp());
+            return;
+        }
+
+        Pattern filter = Pattern.compile(System.getProperty("bench.filter", ""));
+        boolean fork = Boolean.parseBoolean(System.getProperty("bench.fork", "true"));
+        System.out.printf("# %s benchmarks: Java %s, %s %s, %d CPUs; %d warmup + %d measured x %d ms, %s%n",
+                suite, System.getProperty("java.version"), System.getProperty("os.name"),
+                System.getProperty("os.arch"), Runtime.getRuntime().availableProcessors(),
+                warmupIterations, iterations, iterationNanos / 1_000_000, fork ? "one JVM each" : "in-process");
+
+        List<Result> results = new ArrayList<>();
+        List<String> allocating = new ArrayList<>();
+        for (Map.Entry<String, Entry> benchmark : benchmarks.entrySet()) {
+            String name = benchmark.getKey();
+            if (!filter.matcher(name).find()) {
+                continue;
+            }
+            Result result = fork ? fork(name, benchmark.getValue()) : measure(name, benchmark.getValue());
+            results.add(result);
+            System.out.printf("%-32s %2d thread(s) %12s +- %-10s %s%n", name, result.threads(),
+                    formatNanos(result.nanosPerOp()), formatNanos(result.stdevNanos()),
+                    Double.isNaN(result.bytesPerOp()) ? "" : String.format("%.2f B/op", result.bytesPerOp()));
+            if (benchmark.getValue().allocationFree() && !(result.bytesPerOp() < ALLOCATION_TOLERANCE)) {
+                allocating.add(name);
+            }
+        }
+        System.out.println();
+
+        int status = compareWithBaseline(results);
+        if (!allocating.isEmpty()) {
+            System.out.println("Allocated on a path that must not: " + String.join(", ", allocating));
+            status = 1;
+        }
+        String save = System.getProperty("bench.save");
+        if (save != null) {
+            // Merged into an existing file, so suites sharing a folder and filtered runs keep the other entries
+            Path saveFile = Paths.get(save);
+            Baseline saved = Files.exists(saveFile)
+                    ? Baseline.load(saveFile).updatedWith(Baseline.of(results)) : Baseline.of(results);
+            saved.save(saveFile, String.format("Recorded on Java %s, %s %s, %d CPUs.%s",
+                    System.getProperty("java.version"), System.getProperty("os.name"),
+                    System.getProperty("os.arch"), Runtime.getRuntime().availableProcessors(), cpuNote(results)));
+            System.out.println("Saved baseline to " + save);
+        }
+        System.exit(status);
+    }
+
+    /** A warning for baselines recorded with fewer CPUs than the benchmarks need to mean what they say. */
+    private static String cpuNote(List<Result> results) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int threads = results.stream().mapToInt(Result::threads).max().orElse(1);
+        if (cpus == 1) {
+            return " Only one CPU: JIT, GC and background threads share it with the benchmark, and"
+                    + " multi-threaded results measure time slicing, not contention. Compare only with runs"
+                    + " on the same machine; re-record on the one that checks for regressions.";
+        }
+        return threads > cpus ? String.format(" Up to %d threads ran on %d CPUs, so multi-threaded results"
+                + " measure time slicing as well as contention.", threads, cpus) : "";
+    }
+
+    private int compareWithBaseline(List<Result> results) throws IOException {
+        String configured = System.getProperty("bench.baseline");
+        Path file = configured != null ? Paths.get(configured) : DEFAULT_BASELINE;
+        if (!Files.exists(file)) {
+            System.out.println("No baseline at " + file.toAbsolutePath() + "; record one with -Dbench.save=" + file);
+            return 0;
+        }
+        double threshold = Double.parseDouble(System.getProperty("bench.threshold",
+                String.valueOf(Baseline.DEFAULT_THRESHOLD)));
+        List<Baseline.Row> rows = Baseline.load(file).compare(results, threshold);
+        System.out.println("Compared with " + file + ":");
+        System.out.print(Baseline.report(rows, threshold));
+        return rows.stream().anyMatch(Baseline.Row::regression) ? 1 : 0;
+    }
+
+    // --- Forking ---
+
+    /** Runs one benchmark in a fresh JVM with this JVM's options and class path. */
+    private Result fork(String name, Entry entry) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!argument.startsWith("-agentlib:jdwp")) { // a debugger can't attach twice
+                command.add(argument);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-D" + CHILD_PROPERTY + "=" + name);
+        command.add(mainClass.getName());
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        Result result = null;
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    String[] parts = line.substring(RESULT_PREFIX.length()).split(" ");
+                    result = new Result(name, entry.threads(), Double.parseDouble(parts[1]),
+                            Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+                } else {
+                    System.out.println(line);
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (result == null) {
+            throw new IOException("Benchmark " + name + " failed (exit status " + exit + ")");
+        }
+        return result;
+    }
+
+    // --- Measuring ---
+
+    private Result measure(String name, Entry entry) throws Exception {
+        Benchmark benchmark = entry.setup().call();
+        int threads = entry.threads();
+        long batch = calibrate(benchmark, threads);
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(benchmark, threads, batch);
+        }
+        double[] samples = new double[iterations];
+        double sum = 0;
+        long operationsBefore = measuredOperations;
+        long bytesBefore = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            samples[i] = iteration(benchmark, threads, batch);
+            sum += samples[i];
+        }
+        double bytesPerOp = threads == 1 && bytesBefore >= 0
+                ? (double) (allocatedBytes() - bytesBefore) / (measuredOperations - operationsBefore)
+                : Double.NaN;
+        double mean = sum / iterations;
+        double squares = 0;
+        for (double sample : samples) {
+            squares += (sample - mean) * (sample - mean);
+        }
+        double stdev = iterations > 1 ? Math.sqrt(squares / (iterations - 1)) : 0;
+        return new Result(name, threads, mean, stdev, bytesPerOp);
+    }
+
+    /** Bytes this thread has allocated so far, or -1 if the JVM doesn't count them. */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /** Doubles the batch until one batch takes at least {@link #MIN_BATCH_NANOS}. */
+    private static long calibrate(Benchmark benchmark, int threads) throws Exception {
+        long batch = 1;
+        while (true) {
+            long start = System.nanoTime();
+            sink += benchmark.run(0, batch);
+            if (System.nanoTime() - start >= MIN_BATCH_NANOS / threads || batch >= Long.MAX_VALUE / 4) {
+                return batch;
+            }
+            batch *= 2;
+        }
+    }
+
+    /** Runs batches on every thread until the iteration time is up; returns nanoseconds per operation. */
+    private double iteration(Benchmark benchmark, int threads, long batch) throws Exception {
+        if (threads == 1) {
+            long start = System.nanoTime();
+            long deadline = start + iterationNanos;
+            long operations = 0;
+            long now;
+            do {
+                sink += benchmark.run(0, batch);
+                operations += batch;
+                now = System.nanoTime();
+            } while (now < deadline);
+            measuredOperations += operations;
+            return (double) (now - start) / operations;
+        }
+
+        AtomicLong operations = new AtomicLong();
+        CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        long[] deadline = new long[1];
+        Exception[] failure = new Exception[1];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    barrier.await();
+                    long done = 0;
+                    long result = 0;
+                    do {
+                        result += benchmark.run(thread, batch);
+                        done += batch;
+                    } while (System.nanoTime() < deadline[0]);
+                    operations.addAndGet(done);
+                    sink += result;
+                } catch (Exception e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            }, "bench-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        long start = System.nanoTime();
+        deadline[0] = start + iterationNanos; // published to the workers by the barrier
+        barrier.await();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        return (double) elapsed / operations.get();
+    }
+
+    /** "12.3 ns", "4.56 us", "789 ms" and so on, three significant digits. */
+    public static String formatNanos(double nanos) {
+        String[] units = {"ns", "us", "ms", "s"}; // plain ASCII: consoles are not always UTF-8
+        int unit = 0;
+        while (Math.abs(nanos) >= 1000 && unit < units.length - 1) {
+            nanos /= 1000;
+            unit++;
+        }
+        String digits = Math.abs(nanos) >= 100 ? "%.0f" : Math.abs(nanos) >= 10 ? "%.1f" : "%.2f";
+        return String.format(digits + " %s", nanos, units[unit]);
+    }
+}
@@ -0,0 +1,82 @@
+package com.codsoft.common.bench;
+
+import com.codsoft.common.BoundedLogModel;
+import com.codsoft.common.Log;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Benchmarks for the logging paths: a {@link Log} call below the logger's
+ * level behind the {@link Log#isEnabled} guard hot paths use (must not
+ * allocate), a WARN message handed to the ring buffer from one thread and
+ * from several, and a line appended to a full {@link BoundedLogModel}, the
+ * on-screen ring of the ATM terminal (must not allocate either).
+ *
+ * The ring benchmarks measure the caller's side. The writer thread formats
+ * every message it takes to stderr, which these benchmarks point at a null
+ * stream; when it falls behind, the ring fills and further messages are
+ * dropped and counted, so a result includes drops as the logger would under
+ * the same flood. An operation is one message or line.
+ *
+ * Run from the Common folder, {@code java com.codsoft.common.bench.LogBenchmarks},
+ * to compare with {@code bench/baseline.properties}; see {@link BenchmarkRunner}
+ * for options.
+ */
+public final class LogBenchmarks {
+
+    static final int CONTENDING_THREADS = 4;
+    static final int MODEL_LINES = 1000; // the ATM terminal's default
+    private static final String[] LINES = {"Deposited 100.00", "Withdrawn 20.00", "Current Balance: 5080.00"};
+
+    private LogBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new BenchmarkRunner("log", LogBenchmarks.class)
+                .addAllocationFree("log.disabled.guarded", LogBenchmarks::disabled)
+                .add("log.ring.warn", 1, LogBenchmarks::ringWarn)
+                .add("log.ring.warn.contended", CONTENDING_THREADS, LogBenchmarks::ringWarn)
+                .addAllocationFree("log.model.add", LogBenchmarks::modelAdd)
+                .run();
+    }
+
+    private static Benchmark disabled() {
+        Log log = Log.get("bench.disabled");
+        log.setLevel(Log.Level.INFO);
+        return (thread, operations) -> {
+            long logged = 0;
+            for (long i = 0; i < operations; i++) {
+                if (log.isEnabled(Log.Level.DEBUG)) {
+                    log.debug("Converted %d", i);
+                    logged++;
+                }
+            }
+            return logged;
+        };
+    }
+
+    private static Benchmark ringWarn() {
+        System.setErr(new PrintStream(OutputStream.nullOutputStream())); // WARN goes to stderr
+        Log log = Log.get("bench.ring");
+        return (thread, operations) -> {
+            for (long i = 0; i < operations; i++) {
+                log.warn("Rate feed late by %d ms", i);
+            }
+            return Log.droppedCount();
+        };
+    }
+
+    private static Benchmark modelAdd() {
+        BoundedLogModel<String> model = new BoundedLogModel<>(MODEL_LINES);
+        for (int i = 0; i < MODEL_LINES; i++) {
+            model.add(LINES[i % LINES.length]);
+        }
+        return (thread, operations) -> {
+            for (long i = 0; i < operations; i++) {
+                model.add(LINES[(int) (i % LINES.length)]);
+            }
+            return model.getSize();
+        };
+    }
+}
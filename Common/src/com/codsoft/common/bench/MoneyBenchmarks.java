@@ -0,0 +1,100 @@
+package com.codsoft.common.bench;
+
+import com.codsoft.common.MoneyMath;
+
+import java.util.Random;
+
+/**
+ * Benchmarks for the fixed-point money kernels against the double arithmetic
+ * they replaced: converting an amount at a rate ({@code amount * rate},
+ * rounded to the minor unit as the display did) and summing amounts. The
+ * fixed-point kernels must not allocate (the BigDecimal fallback is for
+ * products that don't fit a long, which these amounts never reach); the run
+ * fails if they do. An operation is one amount.
+ *
+ * Run from the Common folder, {@code java com.codsoft.common.bench.MoneyBenchmarks},
+ * to compare with {@code bench/baseline.properties}; see {@link BenchmarkRunner}
+ * for options.
+ */
+public final class MoneyBenchmarks {
+
+    static final int AMOUNTS = 1024; // power of two
+    private static final double RATE = 83.4725; // INR per USD
+    private static final long FIXED_RATE = MoneyMath.toFixedRate(RATE);
+
+    private MoneyBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new BenchmarkRunner("money", MoneyBenchmarks.class)
+                .addAllocationFree("money.convert.fixed", MoneyBenchmarks::convertFixed)
+                .add("money.convert.double", 1, MoneyBenchmarks::convertDouble)
+                .addAllocationFree("money.sum.fixed", MoneyBenchmarks::sumFixed)
+                .add("money.sum.double", 1, MoneyBenchmarks::sumDouble)
+                .run();
+    }
+
+    /** Everyday amounts in cents: up to a million units. */
+    private static long[] minorAmounts() {
+        return new Random(42).longs(AMOUNTS, 1, 100_000_000).toArray();
+    }
+
+    private static double[] doubleAmounts() {
+        long[] minors = minorAmounts();
+        double[] amounts = new double[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts[i] = minors[i] / 100.0;
+        }
+        return amounts;
+    }
+
+    private static Benchmark convertFixed() {
+        long[] amounts = minorAmounts();
+        return (thread, operations) -> {
+            long sum = 0;
+            for (long i = 0; i < operations; i++) {
+                sum += MoneyMath.convert(amounts[(int) i & (AMOUNTS - 1)], 2, FIXED_RATE, 2);
+            }
+            return sum;
+        };
+    }
+
+    private static Benchmark convertDouble() {
+        double[] amounts = doubleAmounts();
+        return (thread, operations) -> {
+            long sum = 0;
+            for (long i = 0; i < operations; i++) {
+                sum += Math.round(amounts[(int) i & (AMOUNTS - 1)] * RATE * 100);
+            }
+            return sum;
+        };
+    }
+
+    private static Benchmark sumFixed() {
+        long[] amounts = minorAmounts();
+        return (thread, operations) -> {
+            long total = 0;
+            for (long done = 0; done < operations; done += AMOUNTS) {
+                int count = (int) Math.min(AMOUNTS, operations - done);
+                total += MoneyMath.sum(amounts, 0, count) & 0xFFFF; // keep the running total from overflowing
+            }
+            return total;
+        };
+    }
+
+    private static Benchmark sumDouble() {
+        double[] amounts = doubleAmounts();
+        return (thread, operations) -> {
+            double total = 0;
+            for (long done = 0; done < operations; done += AMOUNTS) {
+                int count = (int) Math.min(AMOUNTS, operations - done);
+                double slice = 0;
+                for (int i = 0; i < count; i++) {
+                    slice += amounts[i];
+                }
+                total += slice % 65536;
+            }
+            return (long) total;
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.codsoft.common.bench;
+
+import com.codsoft.common.NumberParser;
+
+import java.util.Random;
+
+/**
+ * Benchmarks for {@link NumberParser} against the exception-driven parsing
+ * it replaced ({@code Double.parseDouble} in a try/catch, rounded to paise),
+ * on clean amounts and on a feed where a fifth of the entries are invalid
+ * (letters, a second separator, blanks, a stray sign). The parser must not
+ * allocate on either feed; the run fails if it does. An operation is one
+ * entry. Setup fails if the two disagree on which entries are valid or on
+ * the value of a valid one.
+ *
+ * Run from the Common folder, {@code java com.codsoft.common.bench.ParserBenchmarks},
+ * to compare with {@code bench/baseline.properties}; see {@link BenchmarkRunner}
+ * for options.
+ */
+public final class ParserBenchmarks {
+
+    static final int ENTRIES = 1024; // power of two
+    private static final int INVALID_PERCENT = 20;
+    private static final String[] INVALID = {"12a0.50", "1.250.50", "", "  ", "--5", "1,250.50", "abc", "5000.5x"};
+
+    private ParserBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new BenchmarkRunner("parse", ParserBenchmarks.class)
+                .addAllocationFree("parse.parser.clean", () -> parser(0))
+                .addAllocationFree("parse.parser.dirty", () -> parser(INVALID_PERCENT))
+                .add("parse.exception.clean", 1, () -> exception(0))
+                .add("parse.exception.dirty", 1, () -> exception(INVALID_PERCENT))
+                .run();
+    }
+
+    /** Amounts as typed, up to a million with 0 to 2 decimals, with {@code invalidPercent} of them bad. */
+    static String[] entries(int invalidPercent) {
+        Random random = new Random(42);
+        String[] entries = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            if (random.nextInt(100) < invalidPercent) {
+                entries[i] = INVALID[random.nextInt(INVALID.length)];
+                continue;
+            }
+            long paise = random.nextInt(100_000_000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    entries[i] = Long.toString(paise / 100);
+                    break;
+                case 1:
+                    entries[i] = paise / 100 + "." + paise / 10 % 10;
+                    break;
+                default:
+                    entries[i] = String.format("%d.%02d", paise / 100, paise % 100);
+            }
+        }
+        checkAgreement(entries);
+        return entries;
+    }
+
+    /** The old way: a double, or -1 for an entry that threw. */
+    private static long parseOrThrow(String entry) {
+        try {
+            return Math.round(Double.parseDouble(entry) * 100);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void checkAgreement(String[] entries) {
+        NumberParser parser = new NumberParser();
+        for (String entry : entries) {
+            NumberParser.Status status = parser.parseDecimal(entry, 2, 0, Long.MAX_VALUE);
+            long expected = parseOrThrow(entry);
+            long actual = status == NumberParser.Status.OK ? parser.value() : -1;
+            if (actual != expected) {
+                throw new IllegalStateException("Parsers disagree on \"" + entry + "\": " + actual + " vs " + expected);
+            }
+        }
+    }
+
+    private static Benchmark parser(int invalidPercent) {
+        String[] entries = entries(invalidPercent);
+        NumberParser parser = new NumberParser();
+        return (thread, operations) -> {
+            long sum = 0;
+            for (long i = 0; i < operations; i++) {
+                if (parser.parseDecimal(entries[(int) i & (ENTRIES - 1)], 2, 0, Long.MAX_VALUE)
+                        == NumberParser.Status.OK) {
+                    sum += parser.value();
+                }
+            }
+            return sum;
+        };
+    }
+
+    private static Benchmark exception(int invalidPercent) {
+        String[] entries = entries(invalidPercent);
+        return (thread, operations) -> {
+            long sum = 0;
+            for (long i = 0; i < operations; i++) {
+                long paise = parseOrThrow(entries[(int) i & (ENTRIES - 1)]);
+                if (paise >= 0) {
+                    sum += paise;
+                }
+            }
+            return sum;
+        };
+    }
+}
@@ -0,0 +1,435 @@
+package com.codsoft.currency;
+
+import com.codsoft.common.Log;
+import com.codsoft.common.Money;
+import com.codsoft.common.MoneyMath;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Headless bulk revaluation: streams a CSV file through one pinned
+ * {@link RateSnapshot} in parallel and writes the converted amounts.
+ *
+ * Input rows are {@code amount,FROM,TO} and come out as
+ * {@code amount,FROM,TO,converted}. If the pair is given on the command line
+ * the file is a single amount column instead and rows come out as
+ * {@code amount,converted}. Conversions use the same exact fixed-point path
+ * as the UI (half-even to the target currency's minor units). Bad rows are
+ * copied through with {@code ERROR} as the converted value and counted.
+ *
+ * The file is cut into splits on line boundaries. Each split is memory-mapped,
+ * converted without creating strings, and written through a fixed direct
+ * buffer to its own part file; the parts are then concatenated with
+ * {@code transferTo}. Memory stays bounded by split size × parallelism
+ * however large the file is.
+ *
+ * Usage: {@code BatchConverter <input.csv> <output.csv> [FROM TO]}.
+ */
+public class BatchConverter {
+
+    /** Outcome of one batch run. */
+    public record Summary(long rows, long rejected, long rateVersion, long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+    }
+
+    private static final long SPLIT_BYTES = 32L << 20;
+    private static final int OUT_BUFFER = 256 * 1024;
+    private static final int MAX_LINE = 256;
+    private static final byte[] ERROR = "ERROR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER_SUFFIX = ",converted\n".getBytes(StandardCharsets.US_ASCII);
+    private static final long MALFORMED = Long.MIN_VALUE;
+
+    private final RateSnapshot snapshot;
+    private final int currencies;
+    private final long[] fixedRates;    // [from * currencies + to], 0 if unsupported
+    private final int[] exponents;      // minor digits per currency code
+    private final int[] packedKeys;     // 3 ASCII letters packed into an int
+    private final int[] packedCodes;
+    private final int parallelism;
+
+    // Optional fixed pair for single-column input
+    private final int fixedFrom;
+    private final int fixedTo;
+
+    public BatchConverter(CurrencyModel model, int parallelism) {
+        this(model, parallelism, null, null);
+    }
+
+    /** With {@code from} and {@code to} set, every input row is just an amount. */
+    public BatchConverter(CurrencyModel model, int parallelism, String from, String to) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.snapshot = model.snapshot();
+        this.parallelism = parallelism;
+        CurrencyCodes codes = model.getCodes();
+        this.currencies = codes.size();
+        this.fixedRates = new long[currencies * currencies];
+        this.exponents = new int[currencies];
+        this.packedKeys = new int[Integer.highestOneBit(Math.max(1, currencies)) * 4];
+        this.packedCodes = new int[packedKeys.length];
+        for (int i = 0; i < currencies; i++) {
+            String name = codes.nameOf(i);
+            exponents[i] = Money.exponentOf(name);
+            if (name.length() == 3) {
+                int key = name.charAt(0) << 16 | name.charAt(1) << 8 | name.charAt(2);
+                int slot = slotOf(key);
+                while (packedKeys[slot] != 0) {
+                    slot = (slot + 1) & (packedKeys.length - 1);
+                }
+                packedKeys[slot] = key;
+                packedCodes[slot] = i;
+            }
+            for (int j = 0; j < currencies; j++) {
+                double rate = snapshot.rate(i, j);
+                fixedRates[i * currencies + j] = Double.isNaN(rate) ? 0 : MoneyMath.toFixedRate(rate);
+            }
+        }
+        this.fixedFrom = from == null ? -1 : requireCode(model, from);
+        this.fixedTo = to == null ? -1 : requireCode(model, to);
+        if ((fixedFrom < 0) != (fixedTo < 0)) {
+            throw new IllegalArgumentException("Give both currencies or neither");
+        }
+    }
+
+    private static int requireCode(CurrencyModel model, String currency) {
+        int code = model.codeOf(currency);
+        if (code < 0) {
+            throw new IllegalArgumentException("Unknown currency: " + currency);
+        }
+        return code;
+    }
+
+    public Summary convert(Path input, Path output) throws IOException {
+        long start = System.nanoTime();
+        long[] bounds;
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            bounds = splitOnLines(in);
+        }
+        int splits = bounds.length - 1;
+        long[] rows = new long[splits];
+        long[] rejected = new long[splits];
+        Path[] parts = new Path[splits];
+        for (int i = 0; i < splits; i++) {
+            parts[i] = output.resolveSibling(output.getFileName() + ".part-" + i);
+        }
+
+        try {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new SplitTask(input, bounds, parts, rows, rejected, 0, splits));
+            } finally {
+                pool.shutdown();
+            }
+
+            try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Path part : parts) {
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        for (long done = 0; done < size; ) {
+                            done += in.transferTo(done, size - done, out);
+                        }
+                    }
+                    Files.delete(part);
+                }
+            }
+        } finally {
+            for (Path part : parts) {
+                Files.deleteIfExists(part); // left behind when a split or the copy failed
+            }
+        }
+
+        long totalRows = 0;
+        long totalRejected = 0;
+        for (int i = 0; i < splits; i++) {
+            totalRows += rows[i];
+            totalRejected += rejected[i];
+        }
+        return new Summary(totalRows, totalRejected, snapshot.getVersion(), System.nanoTime() - start);
+    }
+
+    // --- Splitting ---
+
+    /** Split offsets, each just after a newline (first is 0, last is the file size). */
+    private long[] splitOnLines(FileChannel in) throws IOException {
+        long size = in.size();
+        int splits = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 1,
+                Math.max(parallelism * 2L, (size + SPLIT_BYTES - 1) / SPLIT_BYTES)));
+        long nominal = Math.max(1, (size + splits - 1) / splits);
+        long[] bounds = new long[splits + 1];
+        ByteBuffer probe = ByteBuffer.allocate(MAX_LINE);
+        int count = 1;
+        long previous = 0;
+        for (int i = 1; i < splits; i++) {
+            long at = Math.max(previous, i * nominal);
+            if (at >= size) {
+                break;
+            }
+            long boundary = nextLineStart(in, at, probe);
+            if (boundary > previous && boundary < size) {
+                bounds[count++] = boundary;
+                previous = boundary;
+            }
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static long nextLineStart(FileChannel in, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int n = in.read(probe, position);
+            if (n <= 0) {
+                return in.size();
+            }
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+    }
+
+    private final class SplitTask extends RecursiveAction {
+        private final Path input;
+        private final long[] bounds;
+        private final Path[] parts;
+        private final long[] rows;
+        private final long[] rejected;
+        private final int from;
+        private final int to;
+
+        SplitTask(Path input, long[] bounds, Path[] parts, long[] rows, long[] rejected, int from, int to) {
+            this.input = input;
+            this.bounds = bounds;
+            this.parts = parts;
+            this.rows = rows;
+            this.rejected = rejected;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SplitTask(input, bounds, parts, rows, rejected, from, mid),
+                        new SplitTask(input, bounds, parts, rows, rejected, mid, to));
+                return;
+            }
+            try {
+                convertSplit(input, bounds[from], bounds[from + 1], parts[from], from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void convertSplit(Path input, long start, long end, Path part, int index) throws IOException {
+            try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(OUT_BUFFER);
+                byte[] digits = new byte[20];
+                long count = 0;
+                long bad = 0;
+                int lineStart = 0;
+                int limit = map.limit();
+                for (int i = 0; i <= limit; i++) {
+                    if (i < limit && map.get(i) != '\n') {
+                        continue;
+                    }
+                    int lineEnd = i > 0 && i <= limit && map.get(i - 1) == '\r' ? i - 1 : i;
+                    if (lineEnd > lineStart) {
+                        if (buffer.remaining() < (lineEnd - lineStart) + 32) {
+                            drain(buffer, out);
+                        }
+                        if (lineEnd - lineStart > OUT_BUFFER - 32) {
+                            // Too long for the buffer and never a row we can convert: copied through as bad
+                            ByteBuffer line = map.slice(lineStart, lineEnd - lineStart);
+                            while (line.hasRemaining()) {
+                                out.write(line);
+                            }
+                            buffer.put((byte) ',').put(ERROR).put((byte) '\n');
+                            count++;
+                            bad++;
+                        } else if (index == 0 && lineStart == 0 && isHeader(map.get(0))) {
+                            buffer.put(buffer.position(), map, lineStart, lineEnd - lineStart);
+                            buffer.position(buffer.position() + lineEnd - lineStart);
+                            buffer.put(HEADER_SUFFIX);
+                        } else {
+                            count++;
+                            if (!convertLine(map, lineStart, lineEnd, buffer, digits)) {
+                                bad++;
+                            }
+                        }
+                    }
+                    lineStart = i + 1;
+                }
+                drain(buffer, out);
+                rows[index] = count;
+                rejected[index] = bad;
+            }
+        }
+    }
+
+    private static boolean isHeader(byte first) {
+        return !(first >= '0' && first <= '9') && first != '-' && first != '+' && first != '.';
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // --- Row conversion ---
+
+    /** Copies the row and appends the converted amount (or ERROR); false if the row was bad. */
+    private boolean convertLine(ByteBuffer in, int start, int end, ByteBuffer out, byte[] digits) {
+        int amountEnd = start;
+        while (amountEnd < end && in.get(amountEnd) != ',') {
+            amountEnd++;
+        }
+        int from = fixedFrom;
+        int to = fixedTo;
+        if (from < 0) {
+            // amount,FROM,TO
+            if (end - amountEnd != 8 || in.get(amountEnd + 4) != ',') {
+                from = -1;
+            } else {
+                from = currencyAt(in, amountEnd + 1);
+                to = currencyAt(in, amountEnd + 5);
+            }
+        } else if (amountEnd != end) {
+            from = -1;
+        }
+
+        long converted = MALFORMED;
+        if (from >= 0 && to >= 0) {
+            long fixedRate = fixedRates[from * currencies + to];
+            long minor = parseMinor(in, start, amountEnd, exponents[from]);
+            if (fixedRate != 0 && minor != MALFORMED) {
+                try {
+                    converted = MoneyMath.convert(minor, exponents[from], fixedRate, exponents[to]);
+                } catch (ArithmeticException e) {
+                    converted = MALFORMED; // too large to represent
+                }
+            }
+        }
+
+        out.put(out.position(), in, start, end - start);
+        out.position(out.position() + end - start);
+        out.put((byte) ',');
+        if (converted == MALFORMED) {
+            out.put(ERROR);
+        } else {
+            putAmount(out, converted, exponents[to], digits);
+        }
+        out.put((byte) '\n');
+        return converted != MALFORMED;
+    }
+
+    /** Exact amount in minor units, or MALFORMED (including too many decimals). */
+    private static long parseMinor(ByteBuffer in, int start, int end, int exponent) {
+        boolean negative = false;
+        if (start < end && (in.get(start) == '-' || in.get(start) == '+')) {
+            negative = in.get(start) == '-';
+            start++;
+        }
+        long minor = 0;
+        int fractionDigits = -1;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            byte b = in.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9') {
+                if ((fractionDigits >= 0 && ++fractionDigits > exponent) || ++digits > 18) {
+                    return MALFORMED;
+                }
+                minor = minor * 10 + (b - '0');
+            } else {
+                return MALFORMED;
+            }
+        }
+        if (digits == 0) {
+            return MALFORMED;
+        }
+        int missing = exponent - Math.max(0, fractionDigits);
+        if (digits + missing > 18) {
+            return MALFORMED;
+        }
+        minor *= MoneyMath.powerOfTen(missing);
+        return negative ? -minor : minor;
+    }
+
+    /** Writes minor units as a plain decimal with exactly {@code exponent} fraction digits. */
+    private static void putAmount(ByteBuffer out, long minor, int exponent, byte[] digits) {
+        if (minor < 0) {
+            out.put((byte) '-');
+        }
+        long abs = Math.abs(minor);
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + abs % 10);
+            abs /= 10;
+        } while (abs != 0 || n <= exponent);
+        for (int i = n - 1; i >= 0; i--) {
+            if (i == exponent - 1) {
+                out.put((byte) '.');
+            }
+            out.put(digits[i]);
+        }
+    }
+
+    private int currencyAt(ByteBuffer in, int index) {
+        int key = (in.get(index) & 0xFF) << 16 | (in.get(index + 1) & 0xFF) << 8 | (in.get(index + 2) & 0xFF);
+        int slot = slotOf(key);
+        while (packedKeys[slot] != 0) {
+            if (packedKeys[slot] == key) {
+                return packedCodes[slot];
+            }
+            slot = (slot + 1) & (packedKeys.length - 1);
+        }
+        return -1;
+    }
+
+    private int slotOf(int key) {
+        return (key * 0x9E3779B1 >>> 16) & (packedKeys.length - 1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 4) {
+            System.out.println("Usage: BatchConverter <input.csv> <output.csv> [FROM TO]");
+            return;
+        }
+        int parallelism = Integer.getInteger("batch.parallelism", Runtime.getRuntime().availableProcessors());
+        CurrencyModel model = new CurrencyModel();
+        BatchConverter converter = args.length == 4
+                ? new BatchConverter(model, parallelism, args[2], args[3])
+                : new BatchConverter(model, parallelism);
+        Summary summary = converter.convert(Paths.get(args[0]), Paths.get(args[1]));
+        Log.get("Console").info("Batch: %d rows (%d rejected) in %.2f s, %.0f rows/s, rates v%d",
+                summary.rows(), summary.rejected(), summary.elapsedNanos() / 1e9,
+                summary.rowsPerSecond(), summary.rateVersion());
+    }
+}
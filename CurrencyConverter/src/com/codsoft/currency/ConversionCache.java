@@ -0,0 +1,284 @@
+package com.codsoft.currency;
+
+import com.codsoft.common.Metrics;
+import com.codsoft.common.Money;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of converted and formatted amounts for callers that ask for
+ * the same conversions over and over (a price list shown in five currencies,
+ * a dashboard refreshing every few seconds).
+ *
+ * Keys are primitive: the source amount in minor units plus the currency
+ * pair. Each entry also records the rate version it was priced with, so a
+ * newly published {@link RateSnapshot} invalidates everything automatically:
+ * stale entries miss and are the first to be reclaimed.
+ *
+ * The table is split into independently locked stripes of open-addressed
+ * parallel arrays; keys are plain longs and ints, never boxed. When a stripe
+ * is full, CLOCK (second-chance) eviction approximates LRU. An optional TTL
+ * also expires entries by age. The table is sized up front from a byte
+ * budget and never grows. {@link #registerMetrics} publishes the counters
+ * over JMX and in metrics snapshots.
+ */
+public class ConversionCache {
+
+    /** Counters since the cache was created. */
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size, int capacity) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /** A cached result: the exact amount and its display text. */
+    private record Cached(Money money, String text) {
+    }
+
+    /** Approximate bytes per slot: the primitive columns plus a short result string. */
+    static final int BYTES_PER_SLOT = 96;
+
+    private static final int STRIDE = CurrencyCodes.MAX_CURRENCIES;
+    private static final int MIN_SLOTS = 16;
+
+    private final CurrencyModel model;
+    private final long ttlNanos;
+    private final Stripe[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /** LRU-only cache within {@code byteBudget}. */
+    public ConversionCache(CurrencyModel model, long byteBudget) {
+        this(model, byteBudget, 0);
+    }
+
+    /** A {@code ttlMillis} of 0 keeps entries until evicted or invalidated by a rate change. */
+    public ConversionCache(CurrencyModel model, long byteBudget, long ttlMillis) {
+        if (byteBudget < (long) BYTES_PER_SLOT * MIN_SLOTS || ttlMillis < 0) {
+            throw new IllegalArgumentException("Byte budget too small or negative TTL");
+        }
+        this.model = model;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2);
+        long totalSlots = byteBudget / BYTES_PER_SLOT;
+        while (stripeCount > 1 && totalSlots / stripeCount < MIN_SLOTS) {
+            stripeCount >>= 1;
+        }
+        int slotsPerStripe = (int) Math.min(1 << 30, Long.highestOneBit(totalSlots / stripeCount));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+    }
+
+    // --- Lookups ---
+
+    /** Converted amount, or null for an unsupported pair. */
+    public Money convert(Money amount, String toCurrency) {
+        Cached cached = lookup(amount, toCurrency);
+        return cached == null ? null : cached.money();
+    }
+
+    /** Display text as the converter shows it (e.g. "15000 JPY"), or null for an unsupported pair. */
+    public String format(Money amount, String toCurrency) {
+        Cached cached = lookup(amount, toCurrency);
+        return cached == null ? null : cached.text();
+    }
+
+    public Stats stats() {
+        int size = 0;
+        int capacity = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+                capacity += stripe.maxSize;
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), size, capacity);
+    }
+
+    /**
+     * Publishes the counters as {@link Metrics} gauges: {@code prefix.hits},
+     * {@code .misses}, {@code .evictions}, {@code .invalidations} and
+     * {@code .size}.
+     */
+    public void registerMetrics(String prefix) {
+        Metrics.gauge(prefix + ".hits", hits::sum);
+        Metrics.gauge(prefix + ".misses", misses::sum);
+        Metrics.gauge(prefix + ".evictions", evictions::sum);
+        Metrics.gauge(prefix + ".invalidations", invalidations::sum);
+        Metrics.gauge(prefix + ".size", () -> stats().size());
+    }
+
+    /** Drops every entry (rate changes do not need this; they invalidate on their own). */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /** Finds or computes the entry; null (counted as a miss) if the pair is unsupported. */
+    private Cached lookup(Money amount, String toCurrency) {
+        int from = model.codeOf(amount.getCurrency());
+        int to = model.codeOf(toCurrency);
+        RateSnapshot snapshot = model.snapshot();
+        if (from < 0 || to < 0) {
+            misses.increment();
+            return null;
+        }
+        long minor = amount.getMinor();
+        int pair = from * STRIDE + to + 1; // 0 marks an empty slot
+        long hash = mix(minor, pair);
+        Stripe stripe = stripes[(int) (hash >>> 40) & (stripes.length - 1)];
+        long version = snapshot.getVersion();
+        long now = ttlNanos > 0 ? System.nanoTime() : 0;
+
+        synchronized (stripe) {
+            int slot = stripe.find(minor, pair, (int) hash);
+            if (slot >= 0 && stripe.versions[slot] == version && !expired(stripe, slot, now)) {
+                stripe.referenced[slot] = true;
+                hits.increment();
+                return stripe.values[slot];
+            }
+            misses.increment();
+
+            Money converted = snapshot.convert(from, to, amount, toCurrency);
+            if (converted == null) {
+                return null; // unsupported pairs are rare and not worth a slot
+            }
+            if (slot >= 0) {
+                invalidations.increment(); // stale version or expired: refresh in place
+            } else {
+                if (stripe.size >= stripe.maxSize) {
+                    evictOne(stripe, version, now);
+                }
+                slot = stripe.insertionSlot((int) hash);
+                stripe.amounts[slot] = minor;
+                stripe.pairs[slot] = pair;
+                stripe.size++;
+            }
+            stripe.versions[slot] = version;
+            stripe.stamps[slot] = now;
+            Cached cached = new Cached(converted, converted.format() + " " + toCurrency);
+            stripe.values[slot] = cached;
+            stripe.referenced[slot] = false;
+            return cached;
+        }
+    }
+
+    private boolean expired(Stripe stripe, int slot, long now) {
+        return ttlNanos > 0 && now - stripe.stamps[slot] > ttlNanos;
+    }
+
+    /** CLOCK sweep: stale or expired entries go first, then the first one not referenced since the last pass. */
+    private void evictOne(Stripe stripe, long version, long now) {
+        while (true) {
+            int slot = stripe.hand;
+            stripe.hand = (slot + 1) & stripe.mask;
+            if (stripe.pairs[slot] == 0) {
+                continue;
+            }
+            if (stripe.versions[slot] != version || expired(stripe, slot, now)) {
+                invalidations.increment();
+            } else if (stripe.referenced[slot]) {
+                stripe.referenced[slot] = false;
+                continue;
+            } else {
+                evictions.increment();
+            }
+            stripe.removeAt(slot);
+            return;
+        }
+    }
+
+    private static long mix(long minor, int pair) {
+        long h = minor * 0x9E3779B97F4A7C15L ^ pair * 0xC2B2AE3D27D4EB4FL;
+        return h ^ (h >>> 29);
+    }
+
+    /** One lock's worth of the table, as parallel arrays with linear probing. */
+    private static final class Stripe {
+        final int mask;
+        final int maxSize;
+        final long[] amounts;
+        final int[] pairs;
+        final long[] versions;
+        final long[] stamps;
+        final Cached[] values;
+        final boolean[] referenced;
+        int size;
+        int hand;
+
+        Stripe(int slots) {
+            this.mask = slots - 1;
+            this.maxSize = slots - (slots >> 2); // 75% load
+            this.amounts = new long[slots];
+            this.pairs = new int[slots];
+            this.versions = new long[slots];
+            this.stamps = new long[slots];
+            this.values = new Cached[slots];
+            this.referenced = new boolean[slots];
+        }
+
+        int find(long minor, int pair, int hash) {
+            for (int slot = hash & mask; pairs[slot] != 0; slot = (slot + 1) & mask) {
+                if (pairs[slot] == pair && amounts[slot] == minor) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        int insertionSlot(int hash) {
+            int slot = hash & mask;
+            while (pairs[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /** Backward-shift deletion, so probe chains never need tombstones. */
+        void removeAt(int hole) {
+            int next = hole;
+            while (true) {
+                next = (next + 1) & mask;
+                if (pairs[next] == 0) {
+                    break;
+                }
+                int home = (int) mix(amounts[next], pairs[next]) & mask;
+                boolean stays = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+                if (!stays) {
+                    move(next, hole);
+                    hole = next;
+                }
+            }
+            pairs[hole] = 0;
+            values[hole] = null;
+            referenced[hole] = false;
+            size--;
+        }
+
+        private void move(int from, int to) {
+            amounts[to] = amounts[from];
+            pairs[to] = pairs[from];
+            versions[to] = versions[from];
+            stamps[to] = stamps[from];
+            values[to] = values[from];
+            referenced[to] = referenced[from];
+        }
+
+        void clear() {
+            Arrays.fill(pairs, 0);
+            Arrays.fill(values, null);
+            Arrays.fill(referenced, false);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.codsoft.currency;
+
+import com.codsoft.common.Log;
+import com.codsoft.common.Money;
+import com.codsoft.common.bench.Benchmark;
+import com.codsoft.common.bench.BenchmarkRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks for conversion with the built-in rates: the int-coded hot path,
+ * the string-keyed {@code HashMap<String, Double>} lookup it replaced (same
+ * pairs, same rates, checked to agree before measuring), exact {@link Money}
+ * conversion as the form does it, and bulk conversion of {@value #BULK_SIZE}
+ * amounts at a time (one operation is the whole array). The int-coded path
+ * must not allocate; the run fails if it does.
+ *
+ * Conversions log their details at DEBUG, so with the logger at its default
+ * INFO level they must cost no more than with it silenced: the
+ * {@code convert.name} pair converts by currency name (the path that logs)
+ * both ways, and the money conversion runs at the default level too.
+ *
+ * The cache benchmarks format one amount through a {@link ConversionCache}
+ * as the form does: {@code currency.cache.hit} over {@value #CACHED_AMOUNTS}
+ * amounts that all fit (must not allocate), {@code currency.cache.miss} over
+ * distinct amounts that each miss and evict, and
+ * {@code currency.cache.uncached} converting and formatting every time, which
+ * is what a hit saves.
+ *
+ * Run from the CurrencyConverter folder,
+ * {@code java com.codsoft.currency.CurrencyBenchmarks}, to compare with
+ * {@code bench/baseline.properties}; see {@link BenchmarkRunner} for options.
+ */
+public class CurrencyBenchmarks {
+
+    static final int BULK_SIZE = 4096;
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "INR"};
+    private static final int PAIRS = 16; // power of two
+    static final int CACHED_AMOUNTS = 1024; // power of two
+
+    public static void main(String[] args) throws Exception {
+        new BenchmarkRunner("currency", CurrencyBenchmarks.class)
+                .addAllocationFree("currency.convert", CurrencyBenchmarks::convert)
+                .add("currency.convert.map", 1, CurrencyBenchmarks::convertMap)
+                .add("currency.convert.name.info", 1, () -> convertByName(Log.Level.INFO))
+                .add("currency.convert.name.error", 1, () -> convertByName(Log.Level.ERROR))
+                .add("currency.convert.money", 1, CurrencyBenchmarks::convertMoney)
+                .add("currency.convert.bulk", 1, CurrencyBenchmarks::convertBulk)
+                .addAllocationFree("currency.cache.hit", CurrencyBenchmarks::cacheHit)
+                .add("currency.cache.miss", 1, CurrencyBenchmarks::cacheMiss)
+                .add("currency.cache.uncached", 1, CurrencyBenchmarks::formatUncached)
+                .run();
+    }
+
+    private static Benchmark convert() {
+        CurrencyModel model = new CurrencyModel();
+        int[] from = new int[PAIRS];
+        int[] to = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = model.codeOf(CURRENCIES[i % CURRENCIES.length]);
+            to[i] = model.codeOf(CURRENCIES[(i + 1 + i / CURRENCIES.length) % CURRENCIES.length]);
+        }
+        return (thread, operations) -> {
+            double sum = 0;
+            for (long i = 0; i < operations; i++) {
+                int pair = (int) i & (PAIRS - 1);
+                sum += model.convert(from[pair], to[pair], i);
+            }
+            return (long) sum;
+        };
+    }
+
+    /** The lookup {@code convert} replaced: a "FROM_TO" key per call, containsKey, get and unboxing. */
+    private static Benchmark convertMap() {
+        CurrencyModel model = new CurrencyModel();
+        Map<String, Double> rates = new HashMap<>();
+        for (String from : CURRENCIES) {
+            for (String to : CURRENCIES) {
+                rates.put(from + "_" + to, model.convert(1.0, from, to));
+            }
+        }
+        String[] from = new String[PAIRS];
+        String[] to = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = CURRENCIES[i % CURRENCIES.length];
+            to[i] = CURRENCIES[(i + 1 + i / CURRENCIES.length) % CURRENCIES.length];
+            double expected = model.convert(model.codeOf(from[i]), model.codeOf(to[i]), 1234.5);
+            if (convertWithMap(rates, 1234.5, from[i], to[i]) != expected) {
+                throw new IllegalStateException("Map and matrix disagree on " + from[i] + "_" + to[i]);
+            }
+        }
+        return (thread, operations) -> {
+            double sum = 0;
+            for (long i = 0; i < operations; i++) {
+                int pair = (int) i & (PAIRS - 1);
+                sum += convertWithMap(rates, i, from[pair], to[pair]);
+            }
+            return (long) sum;
+        };
+    }
+
+    private static Double convertWithMap(Map<String, Double> rates, double amount, String from, String to) {
+        String key = from + "_" + to;
+        if (rates.containsKey(key)) {
+            double rate = rates.get(key);
+            return amount * rate;
+        }
+        return null;
+    }
+
+    /** Conversion by name, with the console logger at {@code level} (DEBUG details are off either way). */
+    private static Benchmark convertByName(Log.Level level) {
+        Log.get("Console").setLevel(level);
+        CurrencyModel model = new CurrencyModel();
+        String[] from = new String[PAIRS];
+        String[] to = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = CURRENCIES[i % CURRENCIES.length];
+            to[i] = CURRENCIES[(i + 1 + i / CURRENCIES.length) % CURRENCIES.length];
+        }
+        return (thread, operations) -> {
+            double sum = 0;
+            for (long i = 0; i < operations; i++) {
+                int pair = (int) i & (PAIRS - 1);
+                sum += model.convert((double) i, from[pair], to[pair]);
+            }
+            return (long) sum;
+        };
+    }
+
+    private static Benchmark convertMoney() {
+        CurrencyModel model = new CurrencyModel();
+        Money[] amounts = new Money[PAIRS];
+        String[] to = new String[PAIRS];
+        Random random = new Random(42);
+        for (int i = 0; i < PAIRS; i++) {
+            amounts[i] = Money.ofMinor(CURRENCIES[i % CURRENCIES.length], 100 + random.nextInt(1_000_000));
+            to[i] = CURRENCIES[(i + 1 + i / CURRENCIES.length) % CURRENCIES.length];
+        }
+        return (thread, operations) -> {
+            long sum = 0;
+            for (long i = 0; i < operations; i++) {
+                int pair = (int) i & (PAIRS - 1);
+                sum += model.convert(amounts[pair], to[pair]).getMinor();
+            }
+            return sum;
+        };
+    }
+
+    private static Benchmark convertBulk() {
+        CurrencyModel model = new CurrencyModel();
+        int from = model.codeOf("USD");
+        int to = model.codeOf("INR");
+        double[] amounts = new Random(42).doubles(BULK_SIZE, 1, 10_000).toArray();
+        double[] out = new double[BULK_SIZE];
+        return (thread, operations) -> {
+            double sum = 0;
+            for (long i = 0; i < operations; i++) {
+                model.convert(amounts, from, to, out);
+                sum += out[(int) i & (BULK_SIZE - 1)];
+            }
+            return (long) sum;
+        };
+    }
+
+    // --- Cache ---
+
+    /** Amounts in the currencies of the pairs, {@code count} of them, generated before timing. */
+    private static Money[] amounts(int count) {
+        Money[] amounts = new Money[count];
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            amounts[i] = Money.ofMinor(CURRENCIES[i % CURRENCIES.length], 100 + random.nextInt(1_000_000));
+        }
+        return amounts;
+    }
+
+    private static String target(int amount) {
+        return CURRENCIES[(amount + 1 + amount / CURRENCIES.length) % CURRENCIES.length];
+    }
+
+    private static Benchmark cacheHit() {
+        CurrencyModel model = new CurrencyModel();
+        ConversionCache cache = new ConversionCache(model, 1 << 20);
+        Money[] amounts = amounts(CACHED_AMOUNTS);
+        String[] to = new String[CACHED_AMOUNTS];
+        for (int i = 0; i < CACHED_AMOUNTS; i++) {
+            to[i] = target(i);
+            cache.format(amounts[i], to[i]);
+        }
+        return (thread, operations) -> {
+            long length = 0;
+            for (long i = 0; i < operations; i++) {
+                int amount = (int) i & (CACHED_AMOUNTS - 1);
+                length += cache.format(amounts[amount], to[amount]).length();
+            }
+            return length;
+        };
+    }
+
+    /** Every lookup a new amount into a small full cache, so each one misses and evicts. */
+    private static Benchmark cacheMiss() {
+        CurrencyModel model = new CurrencyModel();
+        ConversionCache cache = new ConversionCache(model, 64 * ConversionCache.BYTES_PER_SLOT);
+        long[] next = {0}; // across batches, which each count operations from 0
+        return (thread, operations) -> {
+            long length = 0;
+            for (long i = 0; i < operations; i++) {
+                length += cache.format(Money.ofMinor("USD", next[0]++), "INR").length();
+            }
+            return length;
+        };
+    }
+
+    private static Benchmark formatUncached() {
+        CurrencyModel model = new CurrencyModel();
+        Money[] amounts = amounts(CACHED_AMOUNTS);
+        return (thread, operations) -> {
+            long length = 0;
+            for (long i = 0; i < operations; i++) {
+                int amount = (int) i & (CACHED_AMOUNTS - 1);
+                String to = target(amount);
+                length += (model.convert(amounts[amount], to).format() + " " + to).length();
+            }
+            return length;
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.codsoft.currency;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns currency codes ("USD", "INR", ...) to small dense integers so rates
+ * can be kept in primitive arrays and looked up without building string keys.
+ */
+public class CurrencyCodes {
+
+    /** Enough for every ISO 4217 currency. */
+    public static final int MAX_CURRENCIES = 256;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final String[] names = new String[MAX_CURRENCIES];
+    private int size;
+
+    /** Returns the index of the currency, assigning the next free one if it is new. */
+    public synchronized int intern(String currency) {
+        Integer existing = codes.get(currency);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == MAX_CURRENCIES) {
+            throw new IllegalStateException("Too many currencies (max " + MAX_CURRENCIES + ")");
+        }
+        int index = size++;
+        names[index] = currency;
+        codes.put(currency, index);
+        return index;
+    }
+
+    /** Returns the index of a known currency, or -1. */
+    public int indexOf(String currency) {
+        Integer index = codes.get(currency);
+        return index == null ? -1 : index;
+    }
+
+    public synchronized String nameOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("Unknown currency index: " + index);
+        }
+        return names[index];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
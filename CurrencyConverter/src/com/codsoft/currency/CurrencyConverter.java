@@ -1,11 +1,16 @@
 package com.codsoft.currency;
 
+import com.codsoft.common.Log;
+import com.codsoft.common.Money;
+import com.codsoft.common.NumberParser;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
 
 /**
  * CODSOFT Currency Converter Application.
@@ -13,8 +18,12 @@ import java.util.Map;
  */
 public class CurrencyConverter extends JFrame {
     
+    private static final Log LOG = Log.get("Console");
+
     // --- UI Components (View) ---
     private final JTextField amountField;
+    // Amounts as the user types them, in their locale's format
+    private final NumberParser amountParser = new NumberParser(Locale.getDefault(Locale.Category.FORMAT));
     private final JComboBox<String> fromCurrency;
     private final JComboBox<String> toCurrency;
     private final JLabel resultLabel;
@@ -23,10 +32,15 @@ public class CurrencyConverter extends JFrame {
     
     // --- Data (Model) ---
     private final CurrencyModel model;
+    // The same few amounts get converted again and again; rate changes invalidate it on their own.
+    // -Dcurrency.cache.bytes (default 1 MB) and -Dcurrency.cache.ttl.millis (default 0: no expiry)
+    private final ConversionCache cache;
     
-    // --- Constructor (View Initialization and Controller Setup) ---
-    public CurrencyConverter() {
+    // --- Constructor (View Initialization; see open() for the Controller Setup) ---
+    private CurrencyConverter() {
         this.model = new CurrencyModel(); 
+        this.cache = new ConversionCache(model, Long.getLong("currency.cache.bytes", 1 << 20),
+                Long.getLong("currency.cache.ttl.millis", 0));
 
         // --- Frame Settings ---
         setTitle("Currency Converter");
@@ -86,6 +100,21 @@ public class CurrencyConverter extends JFrame {
         resultLabel.setFont(new Font("Arial", Font.BOLD, 14));
         resultLabel.setForeground(new Color(34, 139, 34)); 
         add(resultLabel, gbc);
+    }
+
+    /**
+     * Builds the window, then wires its controls and the optional live rate
+     * feed and shows it. Listeners and threads are only handed the frame once
+     * it is fully constructed.
+     */
+    public static CurrencyConverter open() {
+        CurrencyConverter frame = new CurrencyConverter();
+        frame.start();
+        return frame;
+    }
+
+    private void start() {
+        cache.registerMetrics("currency.cache");
 
         // --- Controller Setup ---
         
@@ -101,81 +130,18 @@ public class CurrencyConverter extends JFrame {
             fromCurrency.setSelectedItem(to);
             toCurrency.setSelectedItem(from);
             
-            System.out.println("[Console] Currencies swapped.");
+            LOG.info("Currencies swapped.");
         });
+        startRateFeed();
 
         // --- Finalize Frame ---
         setLocationRelativeTo(null); 
         setVisible(true);
-        System.out.println("[Console] Currency Converter UI initialized.");
+        LOG.info("Currency Converter UI initialized.");
     }
 
     // --- 1. Model Class (Data & Logic) ---
-    /**
-     * Handles currency rates and conversion logic (Model component).
-     */
-    private class CurrencyModel {
-        private final Map<String, Double> rates;
-
-        public CurrencyModel() {
-            rates = new HashMap<>();
-            
-            // Define base rates (These are hard-coded and not real-time, but sufficient for the task)
-            double usdToInr = 83.50; 
-            double eurToInr = 90.00; 
-            double gbpToInr = 105.50;
-            double usdToJpy = 150.00;
-            
-            // Base Rates (INR-based for cross-rate calculation)
-            rates.put("USD_INR", usdToInr);
-            rates.put("EUR_INR", eurToInr);
-            rates.put("GBP_INR", gbpToInr);
-
-            // Calculate JPY/INR
-            double jpyToInr = usdToInr / usdToJpy;
-            rates.put("JPY_INR", jpyToInr); 
-
-            // Reverse Rates 
-            rates.put("INR_USD", 1.0 / usdToInr);
-            rates.put("INR_EUR", 1.0 / eurToInr);
-            rates.put("INR_GBP", 1.0 / gbpToInr);
-            rates.put("INR_JPY", 1.0 / jpyToInr);
-
-            // Cross Rates
-            rates.put("USD_EUR", usdToInr / eurToInr); 
-            rates.put("EUR_USD", eurToInr / usdToInr); 
-            rates.put("USD_JPY", usdToJpy);
-            rates.put("JPY_USD", 1.0 / usdToJpy); 
-            rates.put("EUR_GBP", eurToInr / gbpToInr);
-            rates.put("GBP_EUR", gbpToInr / eurToInr);
-            
-            // Same currency rates
-            rates.put("USD_USD", 1.0);
-            rates.put("EUR_EUR", 1.0);
-            rates.put("INR_INR", 1.0);
-            rates.put("GBP_GBP", 1.0);
-            rates.put("JPY_JPY", 1.0);
-        }
-
-        /** Performs the conversion based on stored rates. */
-        public Double convert(double amount, String fromCurrency, String toCurrency) {
-            String key = fromCurrency + "_" + toCurrency;
-            
-            if (rates.containsKey(key)) {
-                double rate = rates.get(key);
-                double converted = amount * rate;
-                
-                // Console output for conversion details
-                System.out.printf("[Console] Conversion: %.2f %s = %.2f %s%n", amount, fromCurrency, converted, toCurrency);
-                
-                return converted;
-            } else {
-                // Handle unsupported cross rates not explicitly defined
-                System.out.println("[Console] Unsupported conversion: " + key);
-                return null;
-            }
-        }
-    }
+    // See CurrencyModel: currencies are interned to int codes, rates kept in a double[] matrix.
 
     // --- 2. Controller Class (Input Handler) ---
     /**
@@ -192,24 +158,30 @@ public class CurrencyConverter extends JFrame {
                     return;
                 }
                 
-                double amount = Double.parseDouble(amountStr);
+                String from = fromCurrency.getSelectedItem().toString();
+                String to = toCurrency.getSelectedItem().toString();
+
+                // Parsed exactly in the source currency's minor units
+                if (amountParser.parseDecimal(amountStr, Money.exponentOf(from), Long.MIN_VALUE, Long.MAX_VALUE)
+                        != NumberParser.Status.OK) {
+                    setResultText("Invalid amount!");
+                    LOG.warn("Error: Invalid amount entered.");
+                    return;
+                }
+                Money amount = Money.ofMinor(from, amountParser.value());
                 
                 // Check for negative amount
-                if (amount < 0) {
+                if (amount.getMinor() < 0) {
                     setResultText("Amount cannot be negative!");
-                    System.err.println("[Console] Error: Amount is negative.");
+                    LOG.warn("Error: Amount is negative.");
                     return;
                 }
-                
-                String from = fromCurrency.getSelectedItem().toString();
-                String to = toCurrency.getSelectedItem().toString();
 
-                // 2. Perform conversion using the Model
-                Double convertedAmount = model.convert(amount, from, to);
+                // 2. Perform conversion using the Model, through the cache
+                String resultText = cache.format(amount, to);
 
                 // 3. Update the View with the result
-                if (convertedAmount != null) {
-                    String resultText = String.format("%.2f %s", convertedAmount, to);
+                if (resultText != null) {
                     setResultText(resultText);
                     
                     // --- Improvement: Auto-clear amount field after successful conversion ---
@@ -219,28 +191,56 @@ public class CurrencyConverter extends JFrame {
                 } else {
                     setResultText("Unsupported conversion.");
                 }
-            } catch (NumberFormatException ex) {
-                // Handle invalid input
+            } catch (ArithmeticException ex) {
+                // A converted amount too large to represent
                 setResultText("Invalid amount!");
-                System.err.println("[Console] Error: Invalid amount entered.");
+                LOG.warn("Error: Invalid amount entered.");
             }
         }
     }
 
+    // --- Live Rates (optional) ---
+    /**
+     * Replaces the built-in rates with a live tick feed when configured:
+     * -Drates.feed.file=ticks.csv (tailed) or -Drates.feed.port=7171 (loopback socket).
+     */
+    private void startRateFeed() {
+        String file = System.getProperty("rates.feed.file");
+        Integer port = Integer.getInteger("rates.feed.port");
+        if (file == null && port == null) {
+            return;
+        }
+        RateFeedIngester ingester = new RateFeedIngester(model, 50);
+        Thread feedThread = new Thread(() -> {
+            try {
+                if (file != null) {
+                    ingester.tailFile(Paths.get(file), 20);
+                } else {
+                    ingester.listen(port);
+                }
+            } catch (IOException | InterruptedException ex) {
+                LOG.warn("Rate feed stopped: %s", ex.getMessage());
+            }
+        }, "rate-feed");
+        feedThread.setDaemon(true);
+        feedThread.start();
+        LOG.info("Live rate feed started.");
+    }
+
     // --- 3. View Helper Method ---
     /**
      * Updates the result label and provides console feedback.
      */
     private void setResultText(String text) {
         resultLabel.setText("Result: " + text);
-        System.out.println("[Console] UI result displayed: " + text);
+        LOG.info("UI result displayed: %s", text);
     }
 
 
     // --- 4. Main Method ---
     public static void main(String[] args) {
-        System.out.println("[Console] Application starting...");
+        LOG.info("Application starting...");
         // Ensure GUI is initialized on the Event Dispatch Thread
-        SwingUtilities.invokeLater(CurrencyConverter::new);
+        SwingUtilities.invokeLater(CurrencyConverter::open);
     }
 }
\ No newline at end of file
@@ -0,0 +1,316 @@
+package com.codsoft.currency;
+
+import com.codsoft.common.Log;
+import com.codsoft.common.Metrics;
+import com.codsoft.common.Money;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Handles currency rates and conversion logic (Model component).
+ * Currencies are interned to small integer codes and rates live in a flat
+ * square {@code double[]} matrix ({@code rates[from * STRIDE + to]}), so the hot path
+ * is one array read and one multiply. Missing pairs hold {@code NaN}.
+ *
+ * Rates are entered once per currency against {@link #BASE_CURRENCY};
+ * {@link #rebuild()} then derives every cross rate. Optional direct quotes
+ * (e.g. a market USD/JPY rate) are honoured by a fewest-hops path search over
+ * the quote graph, so a quoted pair converts directly and everything else
+ * triangulates through as few currencies as possible.
+ *
+ * Each rebuild publishes an immutable {@link RateSnapshot} through a single
+ * atomic reference (copy-on-write): converting threads never lock, and the
+ * last {@code historySize} snapshots stay available for "as of" re-pricing.
+ */
+public class CurrencyModel {
+
+    public static final String BASE_CURRENCY = "INR";
+    public static final int DEFAULT_HISTORY_SIZE = 16;
+
+    /** A converted amount and the rate version it was priced with. */
+    public record ConversionResult(double amount, long rateVersion) {
+    }
+
+    private static final int STRIDE = CurrencyCodes.MAX_CURRENCIES; // row length of the matrix
+    private static final Log LOG = Log.get("Console");
+    private static final Metrics.Timer CONVERT = Metrics.timer("currency.convert"); // lookups by code, not the int hot path
+
+    private final CurrencyCodes codes = new CurrencyCodes();
+    private final int base = codes.intern(BASE_CURRENCY);
+
+    // Inputs, guarded by "this"
+    private final double[] baseRates = new double[STRIDE];          // units of base per unit, NaN = unknown
+    private final double[] quotes = new double[STRIDE * STRIDE];    // direct quotes, NaN = none
+    private int quoteCount;
+
+    // Published snapshots: the current one plus a ring of recent versions
+    private final AtomicReference<RateSnapshot> current = new AtomicReference<>();
+    private final AtomicReferenceArray<RateSnapshot> history;
+    private long nextVersion = 1; // guarded by "this"
+
+    public CurrencyModel() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    public CurrencyModel(int historySize) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("History size must be at least 1: " + historySize);
+        }
+        this.history = new AtomicReferenceArray<>(historySize);
+        Arrays.fill(baseRates, Double.NaN);
+        Arrays.fill(quotes, Double.NaN);
+        baseRates[base] = 1.0;
+
+        // Define base rates (These are hard-coded and not real-time, but sufficient for the task)
+        double usdToInr = 83.50;
+        double eurToInr = 90.00;
+        double gbpToInr = 105.50;
+        double usdToJpy = 150.00;
+
+        // Base Rates (INR-based; every cross rate is derived from these)
+        putBaseRate("USD", usdToInr);
+        putBaseRate("EUR", eurToInr);
+        putBaseRate("GBP", gbpToInr);
+        putBaseRate("JPY", usdToInr / usdToJpy);
+
+        publish(); // not yet shared, so no lock needed; private so subclasses can't see it half-built
+    }
+
+    // --- Rate maintenance ---
+
+    /** Sets how many units of the base currency one unit of {@code currency} buys. */
+    public synchronized void setBaseRate(String currency, double unitsOfBase) {
+        putBaseRate(currency, unitsOfBase);
+    }
+
+    private void putBaseRate(String currency, double unitsOfBase) {
+        if (!(unitsOfBase > 0) || Double.isInfinite(unitsOfBase)) {
+            throw new IllegalArgumentException("Invalid rate for " + currency + ": " + unitsOfBase);
+        }
+        int code = codes.intern(currency);
+        if (code == base && unitsOfBase != 1.0) {
+            throw new IllegalArgumentException("The base currency rate is always 1");
+        }
+        baseRates[code] = unitsOfBase;
+    }
+
+    /** Adds a direct quote that should be used instead of triangulating through the base. */
+    public synchronized void setQuote(String fromCurrency, String toCurrency, double rate) {
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("Invalid rate for " + fromCurrency + "_" + toCurrency + ": " + rate);
+        }
+        int index = codes.intern(fromCurrency) * STRIDE + codes.intern(toCurrency);
+        if (Double.isNaN(quotes[index])) {
+            quoteCount++;
+        }
+        quotes[index] = rate;
+    }
+
+    /**
+     * Recomputes the full cross-rate matrix from the current inputs and
+     * publishes it as a new snapshot. Call once after a batch of rate updates.
+     */
+    public synchronized RateSnapshot rebuild() {
+        return publish();
+    }
+
+    private RateSnapshot publish() {
+        int n = codes.size();
+        double[] closure = new double[STRIDE * STRIDE];
+        Arrays.fill(closure, Double.NaN);
+        if (quoteCount == 0) {
+            // O(n²): every pair triangulates through the base
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    closure[i * STRIDE + j] = i == j ? 1.0 : baseRates[i] / baseRates[j];
+                }
+            }
+        } else {
+            fillFewestHops(n, closure);
+        }
+        RateSnapshot snapshot = new RateSnapshot(nextVersion++, System.currentTimeMillis(), STRIDE, closure);
+        history.set((int) (snapshot.getVersion() % history.length()), snapshot);
+        current.set(snapshot);
+        return snapshot;
+    }
+
+    /** Breadth-first search from every currency over base and direct quotes (both directions). */
+    private void fillFewestHops(int n, double[] closure) {
+        int[][] neighbours = new int[n][];
+        double[][] edgeRates = new double[n][];
+        int[] degree = new int[n];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    double rate = edgeRate(i, j);
+                    if (i != j && !Double.isNaN(rate)) {
+                        if (pass == 0) {
+                            degree[i]++;
+                        } else {
+                            neighbours[i][degree[i]] = j;
+                            edgeRates[i][degree[i]++] = rate;
+                        }
+                    }
+                }
+                if (pass == 0) {
+                    neighbours[i] = new int[degree[i]];
+                    edgeRates[i] = new double[degree[i]];
+                }
+            }
+            if (pass == 0) {
+                Arrays.fill(degree, 0);
+            }
+        }
+
+        int[] queue = new int[n];
+        for (int source = 0; source < n; source++) {
+            int row = source * STRIDE;
+            closure[row + source] = 1.0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int k = 0; k < neighbours[current].length; k++) {
+                    int next = neighbours[current][k];
+                    if (Double.isNaN(closure[row + next])) {
+                        closure[row + next] = closure[row + current] * edgeRates[current][k];
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Direct edge rate between two currencies: a quote wins over a base rate. */
+    private double edgeRate(int from, int to) {
+        double quoted = quotes[from * STRIDE + to];
+        if (!Double.isNaN(quoted)) {
+            return quoted;
+        }
+        double reverse = quotes[to * STRIDE + from];
+        if (!Double.isNaN(reverse)) {
+            return 1.0 / reverse;
+        }
+        if (to == base) {
+            return baseRates[from];
+        }
+        if (from == base) {
+            return 1.0 / baseRates[to];
+        }
+        return Double.NaN;
+    }
+
+    /** Integer code of a currency, or -1 if it is unknown. */
+    public int codeOf(String currency) {
+        return codes.indexOf(currency);
+    }
+
+    public CurrencyCodes getCodes() {
+        return codes;
+    }
+
+    // --- Snapshots ---
+
+    /** The snapshot currently used for conversions. */
+    public RateSnapshot snapshot() {
+        return current.get();
+    }
+
+    /** A retained past snapshot, or null if that version was never published or has been evicted. */
+    public RateSnapshot snapshot(long version) {
+        RateSnapshot snapshot = history.get((int) (version % history.length()));
+        return snapshot != null && snapshot.getVersion() == version ? snapshot : null;
+    }
+
+    // --- Conversion ---
+
+    /** Hot path: no allocation, no boxing. Returns {@code NaN} for an unsupported pair. */
+    public double convert(int from, int to, double amount) {
+        return current.get().convert(from, to, amount);
+    }
+
+    /** Converts and reports which rate version was used. */
+    public ConversionResult convertVersioned(int from, int to, double amount) {
+        RateSnapshot snapshot = current.get();
+        return new ConversionResult(snapshot.convert(from, to, amount), snapshot.getVersion());
+    }
+
+    /** Re-prices against a past version; null if that version is no longer retained. */
+    public ConversionResult convertAsOf(long version, int from, int to, double amount) {
+        RateSnapshot snapshot = snapshot(version);
+        return snapshot == null ? null : new ConversionResult(snapshot.convert(from, to, amount), version);
+    }
+
+    /**
+     * Bulk conversion of {@code amounts} into {@code out} (may be the same array).
+     * The loop multiplies by a single loop-invariant rate, which the JIT vectorises.
+     */
+    public void convert(double[] amounts, int from, int to, double[] out) {
+        current.get().convert(amounts, from, to, out);
+    }
+
+    /** Performs the conversion based on stored rates. */
+    public Double convert(double amount, String fromCurrency, String toCurrency) {
+        long start = CONVERT.start();
+        try {
+            return convertByCode(amount, fromCurrency, toCurrency);
+        } finally {
+            CONVERT.stop(start);
+        }
+    }
+
+    private Double convertByCode(double amount, String fromCurrency, String toCurrency) {
+        int from = codes.indexOf(fromCurrency);
+        int to = codes.indexOf(toCurrency);
+        RateSnapshot snapshot = current.get();
+        double converted = from < 0 || to < 0 ? Double.NaN : snapshot.convert(from, to, amount);
+
+        if (!Double.isNaN(converted)) {
+            // Conversion details at DEBUG, guarded: no event, varargs or boxing at the default level
+            if (LOG.isEnabled(Log.Level.DEBUG)) {
+                LOG.debug("Conversion: %.2f %s = %.2f %s (rates v%d)",
+                        amount, fromCurrency, converted, toCurrency, snapshot.getVersion());
+            }
+
+            return converted;
+        } else {
+            // Handle unsupported cross rates not explicitly defined
+            if (LOG.isEnabled(Log.Level.DEBUG)) {
+                LOG.debug("Unsupported conversion: %s_%s", fromCurrency, toCurrency);
+            }
+            return null;
+        }
+    }
+
+    /** Exact money conversion, as shown to the user. Returns null for an unsupported pair. */
+    public Money convert(Money amount, String toCurrency) {
+        long start = CONVERT.start();
+        try {
+            return convertMoney(amount, toCurrency);
+        } finally {
+            CONVERT.stop(start);
+        }
+    }
+
+    private Money convertMoney(Money amount, String toCurrency) {
+        int from = codes.indexOf(amount.getCurrency());
+        int to = codes.indexOf(toCurrency);
+        RateSnapshot snapshot = current.get();
+        Money converted = from < 0 || to < 0 ? null : snapshot.convert(from, to, amount, toCurrency);
+
+        if (converted != null) {
+            if (LOG.isEnabled(Log.Level.DEBUG)) {
+                LOG.debug("Conversion: %s = %s (rates v%d)", amount, converted, snapshot.getVersion());
+            }
+            return converted;
+        } else {
+            if (LOG.isEnabled(Log.Level.DEBUG)) {
+                LOG.debug("Unsupported conversion: %s_%s", amount.getCurrency(), toCurrency);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.codsoft.currency;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Feeds live rates into a {@link CurrencyModel} from a tick stream. One tick
+ * per line, ASCII:
+ * <pre>
+ * USDINR,83.48,83.52,1718000000000000
+ * </pre>
+ * (pair, bid, ask, timestamp in epoch microseconds). Ticks are parsed straight
+ * out of the read buffer without creating strings, and bursts are coalesced:
+ * only the latest mid price per pair is applied in each publish cycle, which
+ * ends with a single {@link CurrencyModel#rebuild()}.
+ *
+ * Sources: a file that is tailed as it grows, or a loopback socket that a feed
+ * (or {@link TickReplay}) connects to.
+ */
+public class RateFeedIngester implements Closeable {
+
+    /** Called on the ingest thread after each publish cycle. */
+    public interface PublishListener {
+        void published(RateSnapshot snapshot, int pairsApplied, long oldestTickMicros, long newestTickMicros);
+    }
+
+    private static final int STRIDE = CurrencyCodes.MAX_CURRENCIES;
+    private static final int MAX_LINE = 256;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19};
+
+    private final CurrencyModel model;
+    private final long publishIntervalNanos;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    // Latest tick per pair since the last publish (ingest thread only)
+    private final double[] pendingMid = new double[STRIDE * STRIDE];
+    private final int[] dirtyPairs = new int[STRIDE * STRIDE];
+    private final boolean[] dirty = new boolean[STRIDE * STRIDE];
+    private int dirtyCount;
+    private long oldestPendingMicros = Long.MAX_VALUE;
+    private long newestPendingMicros;
+    private long lastPublishNanos = System.nanoTime();
+
+    // Packed 3-letter code -> currency index, so parsing needs no String
+    private final int[] packedKeys = new int[STRIDE * 2];
+    private final int[] packedCodes = new int[STRIDE * 2];
+
+    private volatile PublishListener listener;
+    private volatile boolean running = true;
+    private long ticksRead;
+    private long malformedLines;
+
+    public RateFeedIngester(CurrencyModel model, long publishIntervalMillis) {
+        this.model = model;
+        this.publishIntervalNanos = publishIntervalMillis * 1_000_000L;
+    }
+
+    public void setListener(PublishListener listener) {
+        this.listener = listener;
+    }
+
+    public long getTicksRead() {
+        return ticksRead;
+    }
+
+    public long getMalformedLines() {
+        return malformedLines;
+    }
+
+    // --- Sources ---
+
+    /** Reads the file from the start and keeps following it as it grows, until closed. */
+    public void tailFile(Path file, long pollMillis) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (running) {
+                int n = readAndParse(channel);
+                maybePublish(n <= 0); // caught up with the file: publish the burst now
+                if (n <= 0) {
+                    Thread.sleep(pollMillis);
+                }
+            }
+        }
+    }
+
+    /** Accepts feed connections on a loopback port, one at a time, until closed. */
+    public void listen(int port) throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open();
+             Selector selector = Selector.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            while (running) {
+                try (SocketChannel feed = server.accept()) {
+                    feed.configureBlocking(false);
+                    feed.register(selector, SelectionKey.OP_READ);
+                    buffer.clear();
+                    while (running) {
+                        selector.select(Math.max(1, publishIntervalNanos / 1_000_000L));
+                        selector.selectedKeys().clear();
+                        int n = readAndParse(feed);
+                        maybePublish(n < 0);
+                        if (n < 0) {
+                            break; // feed disconnected
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Signals the source loop to stop after its current read. */
+    @Override
+    public void close() {
+        running = false;
+    }
+
+    // --- Parsing ---
+
+    private int readAndParse(ReadableByteChannel channel) throws IOException {
+        int n = channel.read(buffer);
+        if (n <= 0) {
+            return n;
+        }
+        buffer.flip();
+        int lineStart = buffer.position();
+        for (int i = lineStart; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                parseLine(lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        buffer.position(lineStart);
+        buffer.compact(); // keep a partial trailing line for the next read
+        if (buffer.position() > MAX_LINE) {
+            malformedLines++;
+            buffer.clear(); // no newline in sight: drop the garbage
+        }
+        return n;
+    }
+
+    /** Parses {@code PAIR,bid,ask,micros} between two buffer indexes. */
+    private void parseLine(int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return; // blank line
+        }
+        if (end - start < 7 || buffer.get(start + 6) != ',' || !isPair(start)) {
+            malformedLines++;
+            return;
+        }
+        int from = currencyAt(start);
+        int to = currencyAt(start + 3);
+
+        int pos = start + 7;
+        double bid = 0;
+        double ask = 0;
+        long micros = 0;
+        for (int field = 0; field < 3; field++) {
+            int fieldEnd = pos;
+            while (fieldEnd < end && buffer.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            double value = parseDecimal(pos, fieldEnd);
+            if (Double.isNaN(value)) {
+                malformedLines++;
+                return;
+            }
+            if (field == 0) {
+                bid = value;
+            } else if (field == 1) {
+                ask = value;
+            } else {
+                micros = (long) value;
+            }
+            pos = fieldEnd + 1;
+        }
+        if (from == to || !(bid > 0) || !(ask >= bid)) {
+            malformedLines++;
+            return;
+        }
+        ticksRead++;
+        int pair = from * STRIDE + to;
+        pendingMid[pair] = (bid + ask) / 2;
+        if (!dirty[pair]) {
+            dirty[pair] = true;
+            dirtyPairs[dirtyCount++] = pair;
+        }
+        oldestPendingMicros = Math.min(oldestPendingMicros, micros);
+        newestPendingMicros = Math.max(newestPendingMicros, micros);
+    }
+
+    private boolean isPair(int start) {
+        for (int i = start; i < start + 6; i++) {
+            byte b = buffer.get(i);
+            if (b < 'A' || b > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Digits with an optional fraction; NaN if malformed. */
+    private double parseDecimal(int start, int end) {
+        if (start >= end || end - start > 19) {
+            return Double.NaN;
+        }
+        long mantissa = 0;
+        int scale = -1;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return Double.NaN;
+            }
+        }
+        return scale <= 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+    }
+
+    /** Resolves a 3-letter code without allocating; only a new currency creates a String. */
+    private int currencyAt(int index) {
+        int key = (buffer.get(index) & 0xFF) << 16 | (buffer.get(index + 1) & 0xFF) << 8 | (buffer.get(index + 2) & 0xFF);
+        int slot = (key * 0x9E3779B1 >>> 23) & (packedKeys.length - 1);
+        while (packedKeys[slot] != 0) {
+            if (packedKeys[slot] == key) {
+                return packedCodes[slot];
+            }
+            slot = (slot + 1) & (packedKeys.length - 1);
+        }
+        byte[] letters = {buffer.get(index), buffer.get(index + 1), buffer.get(index + 2)};
+        int code = model.getCodes().intern(new String(letters, StandardCharsets.US_ASCII));
+        packedKeys[slot] = key;
+        packedCodes[slot] = code;
+        return code;
+    }
+
+    // --- Publishing ---
+
+    private void maybePublish(boolean force) {
+        long now = System.nanoTime();
+        if (dirtyCount == 0 || (!force && now - lastPublishNanos < publishIntervalNanos)) {
+            return;
+        }
+        CurrencyCodes codes = model.getCodes();
+        String base = CurrencyModel.BASE_CURRENCY;
+        for (int i = 0; i < dirtyCount; i++) {
+            int pair = dirtyPairs[i];
+            dirty[pair] = false;
+            String from = codes.nameOf(pair / STRIDE);
+            String to = codes.nameOf(pair % STRIDE);
+            double mid = pendingMid[pair];
+            if (to.equals(base)) {
+                model.setBaseRate(from, mid);
+            } else if (from.equals(base)) {
+                model.setBaseRate(to, 1.0 / mid);
+            } else {
+                model.setQuote(from, to, mid);
+            }
+        }
+        RateSnapshot snapshot = model.rebuild();
+
+        PublishListener current = listener;
+        if (current != null) {
+            current.published(snapshot, dirtyCount, oldestPendingMicros, newestPendingMicros);
+        }
+        dirtyCount = 0;
+        oldestPendingMicros = Long.MAX_VALUE;
+        newestPendingMicros = 0;
+        lastPublishNanos = now;
+    }
+}
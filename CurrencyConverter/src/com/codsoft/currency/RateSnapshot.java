@@ -0,0 +1,57 @@
+package com.codsoft.currency;
+
+import com.codsoft.common.Money;
+import com.codsoft.common.MoneyMath;
+
+/**
+ * Immutable, versioned rate matrix. A snapshot is built completely before it
+ * is published, and never changes afterwards, so readers need no locking and
+ * always see one consistent set of rates.
+ */
+public final class RateSnapshot {
+
+    private final long version;
+    private final long publishedAtMillis;
+    private final int stride;
+    private final double[] rates; // owned, never written after construction
+
+    RateSnapshot(long version, long publishedAtMillis, int stride, double[] rates) {
+        this.version = version;
+        this.publishedAtMillis = publishedAtMillis;
+        this.stride = stride;
+        this.rates = rates;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getPublishedAtMillis() {
+        return publishedAtMillis;
+    }
+
+    /** Rate from one currency code to another, {@code NaN} if unsupported. */
+    public double rate(int from, int to) {
+        return rates[from * stride + to];
+    }
+
+    public double convert(int from, int to, double amount) {
+        return amount * rates[from * stride + to];
+    }
+
+    /**
+     * Exact conversion of a money amount: the rate is fixed to 9 decimals and the
+     * result rounded half-even to the target currency's minor units. Null if unsupported.
+     */
+    public Money convert(int from, int to, Money amount, String toCurrency) {
+        double rate = rates[from * stride + to];
+        return Double.isNaN(rate) ? null : amount.convert(toCurrency, MoneyMath.toFixedRate(rate));
+    }
+
+    public void convert(double[] amounts, int from, int to, double[] out) {
+        double rate = rates[from * stride + to];
+        for (int i = 0; i < amounts.length; i++) {
+            out[i] = amounts[i] * rate;
+        }
+    }
+}
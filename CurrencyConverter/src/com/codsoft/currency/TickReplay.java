@@ -0,0 +1,124 @@
+package com.codsoft.currency;
+
+import com.codsoft.common.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Replays a recorded tick file through a {@link RateFeedIngester} over a
+ * loopback socket and reports tick-to-visible latency: the time from a tick
+ * being sent until a snapshot containing it is published.
+ *
+ * Usage: {@code TickReplay <tick-file> [speed] [publish-interval-ms] [port]}.
+ * A speed of 1 keeps the recorded gaps between ticks, 10 plays ten times
+ * faster, and 0 sends as fast as possible.
+ */
+public class TickReplay {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: TickReplay <tick-file> [speed] [publish-interval-ms] [port]");
+            return;
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        long publishMillis = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 7171;
+
+        CurrencyModel model = new CurrencyModel();
+        RateFeedIngester ingester = new RateFeedIngester(model, publishMillis);
+        long[] latencies = new long[1 << 20];
+        int[] published = new int[1];
+        ingester.setListener((snapshot, pairs, oldest, newest) -> {
+            // Worst case of the cycle: the oldest tick waited longest to become visible
+            if (published[0] < latencies.length) {
+                latencies[published[0]++] = nowMicros() - oldest;
+            }
+        });
+
+        Thread ingestThread = new Thread(() -> {
+            try {
+                ingester.listen(port);
+            } catch (IOException e) {
+                Log.get("Console").warn("Ingester stopped: %s", e.getMessage());
+            }
+        }, "rate-ingester");
+        ingestThread.setDaemon(true);
+        ingestThread.start();
+
+        long sent = 0;
+        long start = System.nanoTime();
+        try (BufferedReader ticks = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.US_ASCII);
+             Socket socket = connect(port)) {
+            OutputStream out = socket.getOutputStream();
+            long firstRecorded = -1;
+            String line;
+            while ((line = ticks.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length != 4) {
+                    continue;
+                }
+                long recorded = Long.parseLong(fields[3].trim());
+                if (firstRecorded < 0) {
+                    firstRecorded = recorded;
+                }
+                if (speed > 0) {
+                    // Pace by the recorded gaps, scaled by speed
+                    long dueNanos = start + (long) ((recorded - firstRecorded) * 1000 / speed);
+                    long wait = dueNanos - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    }
+                }
+                String restamped = fields[0] + "," + fields[1] + "," + fields[2] + "," + nowMicros() + "\n";
+                out.write(restamped.getBytes(StandardCharsets.US_ASCII));
+                sent++;
+            }
+            out.flush();
+        }
+        Thread.sleep(publishMillis * 5 + 100); // let the last cycle publish
+        ingester.close();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = Arrays.copyOf(latencies, published[0]);
+        Arrays.sort(sorted);
+        System.out.printf("Ticks sent      : %d (%.0f ticks/s)%n", sent, sent / seconds);
+        System.out.printf("Ticks parsed    : %d (malformed %d)%n", ingester.getTicksRead(), ingester.getMalformedLines());
+        System.out.printf("Snapshots       : %d (latest v%d)%n", published[0], model.snapshot().getVersion());
+        if (sorted.length > 0) {
+            System.out.printf("Tick-to-visible : p50 %d us, p99 %d us, max %d us%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1]);
+        }
+    }
+
+    private static Socket connect(int port) throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (SocketException e) {
+                if (attempt == 50) {
+                    throw e;
+                }
+                Thread.sleep(20); // ingester still binding
+            }
+        }
+    }
+
+    private static long nowMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+}
@@ -0,0 +1,295 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running statistics for a cohort: class rank, percentiles, a grade
+ * distribution (in the bands of a {@link GradingPolicy}) and per-subject
+ * mean / standard deviation. Adding, changing
+ * or removing one student's result is O(log n) or better; nothing is ever
+ * re-sorted.
+ *
+ * Averages are bucketed into a Fenwick (binary indexed) tree of counts, which
+ * answers "how many scored at most x" and "which score is the k-th" in
+ * logarithmic time.
+ * <ul>
+ * <li>{@link Mode#EXACT} uses 0.01-mark buckets, the precision the report
+ * prints, so ranks and percentiles match a full sort of the printed
+ * averages.</li>
+ * <li>{@link Mode#APPROXIMATE} uses half-mark buckets: a 201-entry tree
+ * that stays in cache, with percentiles within a quarter mark.</li>
+ * </ul>
+ * Subject statistics keep exact integer sums, so means and deviations do not
+ * drift as results are replaced.
+ */
+public class CohortStatistics {
+
+    public enum Mode {
+        EXACT(100),
+        APPROXIMATE(2);
+
+        final int bucketsPerMark;
+
+        Mode(int bucketsPerMark) {
+            this.bucketsPerMark = bucketsPerMark;
+        }
+    }
+
+    private final Mode mode;
+    private final GradingPolicy policy;
+    private final int maxAverage;
+    private final long[] tree;       // Fenwick tree, 1-based, over average buckets
+    private final int buckets;
+    private final int highestBit;    // largest power of two <= buckets, for descent
+    private final int[] gradeCounts;
+
+    // Current bucket and grade band of each student; bucket -1 if absent
+    private int[] studentBucket = new int[1024];
+    private byte[] studentGrade = new byte[1024];
+    private int size;
+
+    // Per-subject running sums of subject totals
+    private final Map<String, Integer> subjectIndex = new HashMap<>();
+    private final List<String> subjectNames = new ArrayList<>();
+    private long[] subjectCount = new long[16];
+    private long[] subjectSum = new long[16];
+    private long[] subjectSumOfSquares = new long[16];
+
+    public CohortStatistics(Mode mode) {
+        this(mode, GradingPolicy.DEFAULT);
+    }
+
+    public CohortStatistics(Mode mode, GradingPolicy policy) {
+        this.mode = mode;
+        this.policy = policy;
+        this.maxAverage = policy.getMaxSubjectTotal();
+        this.gradeCounts = new int[policy.getBandCount()];
+        this.buckets = maxAverage * mode.bucketsPerMark + 1;
+        this.tree = new long[buckets + 1];
+        this.highestBit = Integer.highestOneBit(buckets);
+        Arrays.fill(studentBucket, -1);
+    }
+
+    /** Builds statistics for every student of a graded {@link GradingEngine}. */
+    public static CohortStatistics of(GradingEngine engine, Mode mode) {
+        CohortStatistics stats = new CohortStatistics(mode, engine.getPolicy());
+        for (int i = 0; i < engine.size(); i++) {
+            stats.put(i, engine.getAverage(i), engine.getBand(i));
+            for (int j = 0; j < engine.getSubjectCount(i); j++) {
+                stats.addSubjectMark(engine.getSubjectName(i, j), engine.getSubjectTotal(i, j));
+            }
+        }
+        return stats;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // --- Updates ---
+
+    /**
+     * Inserts a student's average, or replaces it if the student is already
+     * counted. The band is taken from the average alone, as if every subject
+     * were passed.
+     */
+    public void put(int student, double average) {
+        put(student, average, policy.bandOf(average, true));
+    }
+
+    /** As {@link #put(int, double)}, with the band the policy gave the student. */
+    public synchronized void put(int student, double average, int band) {
+        if (!(average >= 0 && average <= maxAverage)) {
+            throw new IllegalArgumentException("Average out of range: " + average);
+        }
+        if (band < 0 || band >= gradeCounts.length) {
+            throw new IllegalArgumentException("Unknown band: " + band);
+        }
+        if (student >= studentBucket.length) {
+            int old = studentBucket.length;
+            studentBucket = Arrays.copyOf(studentBucket, Math.max(student + 1, old * 2));
+            studentGrade = Arrays.copyOf(studentGrade, studentBucket.length);
+            Arrays.fill(studentBucket, old, studentBucket.length, -1);
+        }
+        if (studentBucket[student] >= 0) {
+            removeStudent(student);
+        } else {
+            size++;
+        }
+        int bucket = bucketOf(average);
+        studentBucket[student] = bucket;
+        studentGrade[student] = (byte) band; // from the real average, not the bucket
+        add(bucket, 1);
+        gradeCounts[band]++;
+    }
+
+    public synchronized void remove(int student) {
+        if (student < studentBucket.length && studentBucket[student] >= 0) {
+            removeStudent(student);
+            studentBucket[student] = -1;
+            size--;
+        }
+    }
+
+    private void removeStudent(int student) {
+        add(studentBucket[student], -1);
+        gradeCounts[studentGrade[student]]--;
+    }
+
+    /** Counts one subject result (internal + external). */
+    public synchronized void addSubjectMark(String subject, int subjectTotal) {
+        updateSubject(subject, subjectTotal, 1);
+    }
+
+    /** Un-counts a subject result, e.g. before re-adding a corrected one. */
+    public synchronized void removeSubjectMark(String subject, int subjectTotal) {
+        updateSubject(subject, subjectTotal, -1);
+    }
+
+    private void updateSubject(String subject, int subjectTotal, int sign) {
+        Integer id = subjectIndex.get(subject);
+        if (id == null) {
+            if (sign < 0) {
+                throw new IllegalArgumentException("Unknown subject: " + subject);
+            }
+            id = subjectNames.size();
+            subjectIndex.put(subject, id);
+            subjectNames.add(subject);
+            if (id == subjectCount.length) {
+                subjectCount = Arrays.copyOf(subjectCount, id * 2);
+                subjectSum = Arrays.copyOf(subjectSum, id * 2);
+                subjectSumOfSquares = Arrays.copyOf(subjectSumOfSquares, id * 2);
+            }
+        }
+        subjectCount[id] += sign;
+        subjectSum[id] += sign * (long) subjectTotal;
+        subjectSumOfSquares[id] += sign * (long) subjectTotal * subjectTotal;
+    }
+
+    // --- Queries ---
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** 1-based class rank; students with the same (bucketed) average share a rank. 0 if absent. */
+    public synchronized int rank(int student) {
+        if (student >= studentBucket.length || studentBucket[student] < 0) {
+            return 0;
+        }
+        return (int) (size - prefix(studentBucket[student])) + 1;
+    }
+
+    /** Rank an average would get if it were added now. */
+    public synchronized int rankOf(double average) {
+        return (int) (size - prefix(bucketOf(average))) + 1;
+    }
+
+    /**
+     * Nearest-rank percentile, {@code p} in (0, 100]: the lowest average that at
+     * least p% of the cohort are at or below. NaN for an empty cohort.
+     */
+    public synchronized double percentile(double p) {
+        if (!(p > 0 && p <= 100)) {
+            throw new IllegalArgumentException("Percentile out of range: " + p);
+        }
+        if (size == 0) {
+            return Double.NaN;
+        }
+        long k = (long) Math.ceil(p / 100 * size);
+        return valueOf(select(k));
+    }
+
+    /** Share of the cohort (0-100) scoring at or below this student. */
+    public synchronized double percentileRank(int student) {
+        if (student >= studentBucket.length || studentBucket[student] < 0) {
+            return Double.NaN;
+        }
+        return 100.0 * prefix(studentBucket[student]) / size;
+    }
+
+    /** Students per grade band, in the policy's band order (A, B, C, D by default). */
+    public synchronized int[] gradeHistogram() {
+        return gradeCounts.clone();
+    }
+
+    public synchronized double subjectMean(String subject) {
+        Integer id = subjectIndex.get(subject);
+        return id == null || subjectCount[id] == 0 ? Double.NaN : (double) subjectSum[id] / subjectCount[id];
+    }
+
+    /** Population standard deviation of a subject's totals. */
+    public synchronized double subjectStdDev(String subject) {
+        Integer id = subjectIndex.get(subject);
+        if (id == null || subjectCount[id] == 0) {
+            return Double.NaN;
+        }
+        long n = subjectCount[id];
+        double variance = (subjectSumOfSquares[id] - (double) subjectSum[id] * subjectSum[id] / n) / n;
+        return Math.sqrt(Math.max(0, variance));
+    }
+
+    public synchronized List<String> getSubjects() {
+        return List.copyOf(subjectNames);
+    }
+
+    /** Multi-line summary in the report's style. */
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Students    : ").append(size);
+        if (size > 0) {
+            sb.append("\nMedian      : ").append(String.format("%.2f", percentile(50)));
+            sb.append("\n90th pct    : ").append(String.format("%.2f", percentile(90)));
+        }
+        for (int g = 0; g < gradeCounts.length; g++) {
+            sb.append("\nGrade ").append(String.format("%-6s", policy.gradeOf(g))).append(": ").append(gradeCounts[g]);
+        }
+        for (String subject : subjectNames) {
+            sb.append('\n').append(subject).append(" : mean ")
+              .append(String.format("%.2f", subjectMean(subject)))
+              .append(", std dev ").append(String.format("%.2f", subjectStdDev(subject)));
+        }
+        return sb.toString();
+    }
+
+    // --- Fenwick tree ---
+
+    private int bucketOf(double average) {
+        return (int) Math.round(average * mode.bucketsPerMark);
+    }
+
+    /** Centre of a bucket: the printed average in exact mode. */
+    private double valueOf(int bucket) {
+        return bucket / (double) mode.bucketsPerMark;
+    }
+
+    private void add(int bucket, long delta) {
+        for (int i = bucket + 1; i <= buckets; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Students in buckets 0..bucket inclusive. */
+    private long prefix(int bucket) {
+        long sum = 0;
+        for (int i = bucket + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** Bucket holding the k-th lowest average (1-based), by descending the tree. */
+    private int select(long k) {
+        int position = 0;
+        for (int step = highestBit; step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= buckets && tree[next] < k) {
+                position = next;
+                k -= tree[next];
+            }
+        }
+        return position; // tree index position + 1, i.e. bucket "position"
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Accuracy check for {@link CohortStatistics}: grades a random cohort, feeds
+ * it to both modes, then applies random changes and removals, and compares
+ * every answer with a full sort of the same averages at the precision the
+ * report prints. Exact mode must match ranks, percentiles, percentile ranks,
+ * the grade histogram and the subject means and deviations exactly;
+ * approximate mode must keep percentiles within a quarter mark (half its
+ * bucket) and agree on the histogram. Prints approximate mode's largest
+ * percentile error. A put with an unknown band must be refused without
+ * changing the student.
+ *
+ * Run from the StudentGradeCalculator folder, {@code java CohortStatisticsCheck};
+ * exits with status 1 on a failure. Configured with {@code -Dcheck.students=N}
+ * (default 20000), {@code -Dcheck.updates=N} (default 20000) and
+ * {@code -Dcheck.seed=S} (default 42).
+ */
+public class CohortStatisticsCheck {
+
+    private static final double APPROXIMATE_TOLERANCE = 0.25; // half of a half-mark bucket
+    private static final int MAX_REPORTED = 20;
+
+    public static void main(String[] args) {
+        int students = Integer.getInteger("check.students", 20_000);
+        int updates = Integer.getInteger("check.updates", 20_000);
+        long seed = Long.getLong("check.seed", 42);
+        if (students < 1 || updates < 0) {
+            throw new IllegalArgumentException("Need at least 1 student and no negative updates");
+        }
+
+        GradingEngine engine = GradingBenchmarks.cohort(students);
+        engine.grade();
+        CohortStatistics exact = CohortStatistics.of(engine, CohortStatistics.Mode.EXACT);
+        CohortStatistics approximate = CohortStatistics.of(engine, CohortStatistics.Mode.APPROXIMATE);
+        List<String> failures = new ArrayList<>();
+
+        // Reference: every student's average (NaN once removed) and grade band
+        double[] averages = new double[students];
+        int[] bands = new int[students];
+        for (int i = 0; i < students; i++) {
+            averages[i] = engine.getAverage(i);
+            bands[i] = engine.getBand(i);
+        }
+        checkSubjects(engine, exact, failures);
+        double worst = compare(averages, bands, exact, approximate, failures);
+
+        // Random changes (to any 0.01 mark, like a corrected result) and removals
+        Random random = new Random(seed);
+        int maxAverage = engine.getPolicy().getMaxSubjectTotal();
+        for (int u = 0; u < updates; u++) {
+            int student = random.nextInt(students);
+            if (random.nextInt(10) == 0) {
+                averages[student] = Double.NaN;
+                exact.remove(student);
+                approximate.remove(student);
+            } else {
+                averages[student] = random.nextInt(maxAverage * 100 + 1) / 100.0;
+                bands[student] = engine.getPolicy().bandOf(averages[student], true);
+                exact.put(student, averages[student]);
+                approximate.put(student, averages[student]);
+            }
+        }
+
+        // A put refused for its band must leave the student as they were
+        for (CohortStatistics statistics : List.of(exact, approximate)) {
+            try {
+                statistics.put(0, maxAverage / 2.0, -1);
+                failures.add(statistics.getMode() + " mode accepted band -1");
+            } catch (IllegalArgumentException expected) {
+                // the comparison below catches any change made before the refusal
+            }
+        }
+        worst = Math.max(worst, compare(averages, bands, exact, approximate, failures));
+
+        System.out.printf("%d students, %d updates: exact mode matched a full sort; approximate percentiles"
+                + " off by at most %.2f marks%n", students, updates, worst);
+        if (failures.isEmpty()) {
+            System.out.println("OK: exact mode exact, approximate mode within " + APPROXIMATE_TOLERANCE + " marks");
+            return;
+        }
+        for (String failure : failures.subList(0, Math.min(MAX_REPORTED, failures.size()))) {
+            System.out.println("FAIL: " + failure);
+        }
+        System.out.println(failures.size() + " failure(s)");
+        System.exit(1);
+    }
+
+    /** Checks both modes against a sort of the current averages; returns approximate mode's worst error. */
+    private static double compare(double[] averages, int[] bands, CohortStatistics exact,
+                                  CohortStatistics approximate, List<String> failures) {
+        long[] printed = Arrays.stream(averages).filter(a -> !Double.isNaN(a))
+                .mapToLong(CohortStatisticsCheck::hundredths).sorted().toArray();
+        int n = printed.length;
+        if (exact.size() != n || approximate.size() != n) {
+            failures.add("size " + exact.size() + " / " + approximate.size() + ", expected " + n);
+            return Double.NaN;
+        }
+
+        double worst = 0;
+        for (int p = 1; p <= 100; p++) {
+            double expected = printed[(int) Math.ceil(p / 100.0 * n) - 1] / 100.0;
+            if (exact.percentile(p) != expected) {
+                failures.add("exact p" + p + " = " + exact.percentile(p) + ", expected " + expected);
+            }
+            double error = Math.abs(approximate.percentile(p) - expected);
+            worst = Math.max(worst, error);
+            if (error > APPROXIMATE_TOLERANCE + 1e-9) {
+                failures.add("approximate p" + p + " = " + approximate.percentile(p) + ", expected " + expected);
+            }
+        }
+
+        int[] histogram = new int[exact.gradeHistogram().length];
+        for (int student = 0; student < averages.length; student++) {
+            if (Double.isNaN(averages[student])) {
+                if (exact.rank(student) != 0) {
+                    failures.add("removed student " + student + " still ranked " + exact.rank(student));
+                }
+                continue;
+            }
+            long own = hundredths(averages[student]);
+            int above = n - upperBound(printed, own);
+            if (exact.rank(student) != above + 1) {
+                failures.add("student " + student + " ranked " + exact.rank(student) + ", expected " + (above + 1));
+            }
+            double expectedShare = 100.0 * upperBound(printed, own) / n;
+            if (exact.percentileRank(student) != expectedShare) {
+                failures.add("student " + student + " at percentile rank " + exact.percentileRank(student)
+                        + ", expected " + expectedShare);
+            }
+            histogram[bands[student]]++;
+        }
+        // Bands come from the real average, not the bucket, so both modes must agree exactly
+        if (!Arrays.equals(exact.gradeHistogram(), histogram)
+                || !Arrays.equals(approximate.gradeHistogram(), histogram)) {
+            failures.add("grade histograms " + Arrays.toString(exact.gradeHistogram()) + " / "
+                    + Arrays.toString(approximate.gradeHistogram()) + ", expected " + Arrays.toString(histogram));
+        }
+        return worst;
+    }
+
+    private static void checkSubjects(GradingEngine engine, CohortStatistics stats, List<String> failures) {
+        for (String subject : stats.getSubjects()) {
+            long count = 0;
+            double sum = 0;
+            for (int i = 0; i < engine.size(); i++) {
+                for (int j = 0; j < engine.getSubjectCount(i); j++) {
+                    if (engine.getSubjectName(i, j).equals(subject)) {
+                        count++;
+                        sum += engine.getSubjectTotal(i, j);
+                    }
+                }
+            }
+            double mean = sum / count;
+            double squares = 0;
+            for (int i = 0; i < engine.size(); i++) {
+                for (int j = 0; j < engine.getSubjectCount(i); j++) {
+                    if (engine.getSubjectName(i, j).equals(subject)) {
+                        double d = engine.getSubjectTotal(i, j) - mean;
+                        squares += d * d;
+                    }
+                }
+            }
+            double stdDev = Math.sqrt(squares / count);
+            if (Math.abs(stats.subjectMean(subject) - mean) > 1e-9
+                    || Math.abs(stats.subjectStdDev(subject) - stdDev) > 1e-9) {
+                failures.add(subject + " mean/stddev " + stats.subjectMean(subject) + "/" + stats.subjectStdDev(subject)
+                        + ", expected " + mean + "/" + stdDev);
+            }
+        }
+    }
+
+    /** The average as the report prints it, in hundredths of a mark. */
+    private static long hundredths(double average) {
+        return Math.round(average * 100);
+    }
+
+    /** Number of sorted values at or below {@code value}. */
+    private static int upperBound(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,265 @@
+import com.codsoft.common.bench.Benchmark;
+import com.codsoft.common.bench.BenchmarkRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks for grading a whole cohort with {@link GradingEngine#grade()}
+ * by the default policy, at 1 thousand, 100 thousand and 10 million students
+ * of {@value #SUBJECTS} subjects each. One operation grades the whole
+ * cohort; the marks are generated once, before timing.
+ *
+ * The stats benchmarks measure {@link CohortStatistics} over a graded
+ * {@value #STATS_COHORT}-student cohort in both modes: changing one
+ * student's average, and answering one percentile. {@code grading.stats.resort}
+ * is what the statistics replace: change one average, then sort the cohort to
+ * answer the percentile. {@link CohortStatisticsCheck} covers their accuracy.
+ *
+ * The band benchmarks look up the grade band of one average:
+ * {@code grading.band.policy} through {@link GradingPolicy#bandOf} with the
+ * default bands, {@code grading.band.hardcoded} through the fixed
+ * 85/70/50 chain the policy replaced. Setup fails if the two ever disagree
+ * on an average of 0.00 to 100.00 in steps of 0.01.
+ *
+ * The store benchmarks run a {@link StudentRecordStore} of
+ * {@value #STORED_STUDENTS} students in a temporary directory:
+ * {@code grading.store.get} looks one up by name, {@code grading.store.put}
+ * saves a changed result for one (an append to the log and an index update;
+ * the compactions this triggers now and then are part of the cost).
+ *
+ * Run from the StudentGradeCalculator folder, {@code java GradingBenchmarks},
+ * to compare with {@code bench/baseline.properties}; see
+ * {@link BenchmarkRunner} for options. The 10M cohort needs about 1 GB of
+ * heap.
+ */
+public class GradingBenchmarks {
+
+    static final int SUBJECTS = 5;
+    static final int STATS_COHORT = 100_000;
+    private static final int UPDATES = 4096; // power of two
+    static final int STORED_STUDENTS = 10_000;
+    private static final String[] SUBJECT_NAMES = {"Maths", "Physics", "Chemistry", "English", "Computer"};
+
+    public static void main(String[] args) throws Exception {
+        new BenchmarkRunner("grading", GradingBenchmarks.class)
+                .add("grading.grade.1k", 1, () -> grade(1_000))
+                .add("grading.grade.100k", 1, () -> grade(100_000))
+                .add("grading.grade.10M", 1, () -> grade(10_000_000))
+                .add("grading.stats.put.exact", 1, () -> statsPut(CohortStatistics.Mode.EXACT))
+                .add("grading.stats.put.approximate", 1, () -> statsPut(CohortStatistics.Mode.APPROXIMATE))
+                .add("grading.stats.percentile.exact", 1, () -> statsPercentile(CohortStatistics.Mode.EXACT))
+                .add("grading.stats.percentile.approximate", 1,
+                        () -> statsPercentile(CohortStatistics.Mode.APPROXIMATE))
+                .add("grading.stats.resort", 1, GradingBenchmarks::statsResort)
+                .addAllocationFree("grading.band.policy", GradingBenchmarks::bandPolicy)
+                .addAllocationFree("grading.band.hardcoded", GradingBenchmarks::bandHardcoded)
+                .add("grading.store.get", 1, GradingBenchmarks::storeGet)
+                .add("grading.store.put", 1, GradingBenchmarks::storePut)
+                .run();
+    }
+
+    private static Benchmark grade(int students) {
+        GradingEngine engine = cohort(students);
+        return (thread, operations) -> {
+            long bands = 0;
+            for (long i = 0; i < operations; i++) {
+                engine.grade();
+                bands += engine.getBand((int) (i % students));
+            }
+            return bands;
+        };
+    }
+
+    private static CohortStatistics stats(CohortStatistics.Mode mode) {
+        GradingEngine engine = cohort(STATS_COHORT);
+        engine.grade();
+        return CohortStatistics.of(engine, mode);
+    }
+
+    /** Corrected averages (any 0.01 mark) for random students, generated before timing. */
+    private static double[] newAverages() {
+        return new Random(7).ints(UPDATES, 0, GradingPolicy.DEFAULT.getMaxSubjectTotal() * 100 + 1)
+                .mapToDouble(hundredths -> hundredths / 100.0).toArray();
+    }
+
+    private static Benchmark statsPut(CohortStatistics.Mode mode) {
+        CohortStatistics stats = stats(mode);
+        double[] averages = newAverages();
+        return (thread, operations) -> {
+            for (long i = 0; i < operations; i++) {
+                stats.put((int) (i * 7919 % STATS_COHORT), averages[(int) i & (UPDATES - 1)]);
+            }
+            return stats.size();
+        };
+    }
+
+    private static Benchmark statsPercentile(CohortStatistics.Mode mode) {
+        CohortStatistics stats = stats(mode);
+        return (thread, operations) -> {
+            double sum = 0;
+            for (long i = 0; i < operations; i++) {
+                sum += stats.percentile(1 + i % 100);
+            }
+            return (long) sum;
+        };
+    }
+
+    private static Benchmark statsResort() {
+        GradingEngine engine = cohort(STATS_COHORT);
+        engine.grade();
+        double[] current = new double[STATS_COHORT];
+        for (int i = 0; i < STATS_COHORT; i++) {
+            current[i] = engine.getAverage(i);
+        }
+        double[] averages = newAverages();
+        double[] sorted = new double[STATS_COHORT];
+        return (thread, operations) -> {
+            double sum = 0;
+            for (long i = 0; i < operations; i++) {
+                current[(int) (i * 7919 % STATS_COHORT)] = averages[(int) i & (UPDATES - 1)];
+                System.arraycopy(current, 0, sorted, 0, STATS_COHORT);
+                Arrays.sort(sorted);
+                sum += sorted[(int) Math.ceil((1 + i % 100) / 100.0 * STATS_COHORT) - 1];
+            }
+            return (long) sum;
+        };
+    }
+
+    /** Every average from 0.00 to 100.00 in hundredths, shuffled so branches can't be predicted. */
+    private static double[] bandAverages() {
+        int count = GradingPolicy.DEFAULT.getMaxSubjectTotal() * 100 + 1;
+        double[] averages = new double[UPDATES];
+        Random random = new Random(11);
+        for (int i = 0; i < UPDATES; i++) {
+            averages[i] = random.nextInt(count) / 100.0;
+        }
+        for (int hundredths = 0; hundredths < count; hundredths++) {
+            double average = hundredths / 100.0;
+            if (GradingPolicy.DEFAULT.bandOf(average, true) != hardcodedBand(average)) {
+                throw new IllegalStateException("Default policy and hard-coded bands disagree at " + average);
+            }
+        }
+        return averages;
+    }
+
+    /** The bands before policies: A from 85, B from 70, C from 50, D below. */
+    private static int hardcodedBand(double average) {
+        if (average >= 85) {
+            return 0;
+        } else if (average >= 70) {
+            return 1;
+        } else if (average >= 50) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static Benchmark bandPolicy() {
+        double[] averages = bandAverages();
+        GradingPolicy policy = GradingPolicy.DEFAULT;
+        return (thread, operations) -> {
+            long bands = 0;
+            for (long i = 0; i < operations; i++) {
+                bands += policy.bandOf(averages[(int) i & (UPDATES - 1)], true);
+            }
+            return bands;
+        };
+    }
+
+    private static Benchmark bandHardcoded() {
+        double[] averages = bandAverages();
+        return (thread, operations) -> {
+            long bands = 0;
+            for (long i = 0; i < operations; i++) {
+                bands += hardcodedBand(averages[(int) i & (UPDATES - 1)]);
+            }
+            return bands;
+        };
+    }
+
+    // --- Record store ---
+
+    private static String storedName(int student) {
+        return String.format("Student %05d", student);
+    }
+
+    /** A student's result with the first external mark set to {@code mark}. */
+    private static StudentRecordStore.StudentRecord storedRecord(String name, int mark) {
+        List<StudentRecordStore.SubjectMark> marks = new ArrayList<>();
+        for (int j = 0; j < SUBJECTS; j++) {
+            marks.add(new StudentRecordStore.SubjectMark(SUBJECT_NAMES[j], 20 + j, j == 0 ? mark : 50 + j));
+        }
+        return new StudentRecordStore.StudentRecord(name, marks);
+    }
+
+    /** A store in a temporary directory, deleted on exit, holding {@value #STORED_STUDENTS} students. */
+    private static StudentRecordStore store() throws IOException {
+        Path directory = Files.createTempDirectory("bench-records");
+        directory.toFile().deleteOnExit();
+        directory.resolve(StudentRecordStore.DATA_FILE).toFile().deleteOnExit();
+        directory.resolve(StudentRecordStore.INDEX_FILE).toFile().deleteOnExit();
+        StudentRecordStore store = StudentRecordStore.open(directory);
+        for (int i = 0; i < STORED_STUDENTS; i++) {
+            store.put(storedRecord(storedName(i), i % 71));
+        }
+        return store;
+    }
+
+    private static Benchmark storeGet() throws IOException {
+        StudentRecordStore store = store();
+        String[] names = new String[UPDATES];
+        Random random = new Random(7);
+        for (int i = 0; i < UPDATES; i++) {
+            names[i] = storedName(random.nextInt(STORED_STUDENTS));
+        }
+        return (thread, operations) -> {
+            long total = 0;
+            for (long i = 0; i < operations; i++) {
+                total += store.get(names[(int) i & (UPDATES - 1)]).total();
+            }
+            return total;
+        };
+    }
+
+    /** Results built before timing; each pass over the students flips their mark, so every save changes it. */
+    private static Benchmark storePut() throws IOException {
+        StudentRecordStore store = store();
+        StudentRecordStore.StudentRecord[][] passes = new StudentRecordStore.StudentRecord[2][UPDATES];
+        for (int i = 0; i < UPDATES; i++) {
+            String name = storedName(i * 7919 % STORED_STUDENTS); // distinct students
+            passes[0][i] = storedRecord(name, 70);
+            passes[1][i] = storedRecord(name, 0);
+        }
+        long[] next = {0}; // across batches, which each count operations from 0
+        return (thread, operations) -> {
+            for (long i = 0; i < operations; i++) {
+                long n = next[0]++;
+                store.put(passes[(int) (n / UPDATES) & 1][(int) n & (UPDATES - 1)]);
+            }
+            return store.size();
+        };
+    }
+
+    /** Students with random in-range marks; they share one name to keep the heap to the marks. */
+    static GradingEngine cohort(int students) {
+        GradingPolicy policy = GradingPolicy.DEFAULT;
+        GradingEngine engine = new GradingEngine(policy);
+        Random random = new Random(42);
+        int[] internal = new int[SUBJECTS];
+        int[] external = new int[SUBJECTS];
+        for (int i = 0; i < students; i++) {
+            for (int j = 0; j < SUBJECTS; j++) {
+                internal[j] = random.nextInt(policy.getMaxInternal() + 1);
+                external[j] = random.nextInt(policy.getMaxExternal() + 1);
+            }
+            engine.addStudent("Bench Student", SUBJECT_NAMES, internal, external);
+        }
+        return engine;
+    }
+}
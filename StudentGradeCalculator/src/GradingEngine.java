@@ -0,0 +1,380 @@
+import com.codsoft.common.NumberParser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Headless grading for a whole examination. Grades each student the same way
+ * the Student Grade Calculator form does, by a {@link GradingPolicy} (by
+ * default marks out of 30 internal plus 70 external per subject, then A/B/C/D
+ * on the average), for any number of students and any number of subjects per
+ * student.
+ *
+ * Marks are kept in columns of primitive arrays rather than one object per
+ * student: a student is an index, their marks are a range of the
+ * {@code internal}/{@code external} byte columns, and subject names are
+ * interned to small ids. Grading walks those columns in parallel chunks.
+ *
+ * Input file, one student per line:
+ * <pre>
+ * Full Name,Subject,internal,external[,Subject,internal,external...]
+ * </pre>
+ * Invalid rows are rejected with the same message the form would show and
+ * the rest of the file is still graded.
+ *
+ * Usage: {@code GradingEngine <marks.csv> <report.txt>}, with
+ * {@code -Dgrading.policy=<file>} to grade by a department's policy.
+ */
+public class GradingEngine {
+
+    public static final String REPORT_SEPARATOR = "---------------------------";
+
+    // Same messages as the form
+    static final String NAME_REQUIRED = "Please enter FULL student name (First + Last)";
+    static final String SUBJECT_REQUIRED = "Please enter all subject names";
+    static final String MARKS_NOT_NUMERIC = "Please enter valid numeric marks";
+
+    private static final int CHUNK = 4096; // students per grading task
+
+    /** A row that could not be graded. */
+    public record Rejection(int line, String reason) {
+    }
+
+    private final GradingPolicy policy;
+    private final NumberParser parser = new NumberParser(); // rows are added from one thread
+
+    // --- Columns ---
+    private String[] names = new String[1024];
+    private int[] firstMark = new int[1025]; // student i owns marks [firstMark[i], firstMark[i + 1])
+    private short[] subjectIds = new short[4096];
+    private byte[] internal = new byte[4096];
+    private byte[] external = new byte[4096];
+    private int students;
+    private int marks;
+
+    private final Map<String, Short> subjectIndex = new HashMap<>();
+    private final List<String> subjectNames = new ArrayList<>();
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    // --- Results (filled by grade()) ---
+    private int[] totals = new int[0];
+    private double[] averages = new double[0];
+    private byte[] bands = new byte[0];
+
+    public GradingEngine() {
+        this(GradingPolicy.DEFAULT);
+    }
+
+    public GradingEngine(GradingPolicy policy) {
+        this.policy = policy;
+    }
+
+    /** Loads a marks file to grade by the default policy. */
+    public static GradingEngine load(Path file) throws IOException {
+        return load(file, GradingPolicy.DEFAULT);
+    }
+
+    /** Loads every row of a marks file; rows that fail validation are recorded, not fatal. */
+    public static GradingEngine load(Path file, GradingPolicy policy) throws IOException {
+        GradingEngine engine = new GradingEngine(policy);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String reason = engine.addRow(line);
+                if (reason != null) {
+                    engine.rejections.add(new Rejection(lineNumber, reason));
+                }
+            }
+        }
+        return engine;
+    }
+
+    /** Parses and adds one CSV row; returns the rejection message, or null if added. */
+    public String addRow(String line) {
+        String[] fields = line.split(",", -1);
+        if ((fields.length - 1) % 3 != 0 || fields.length < 4) {
+            return SUBJECT_REQUIRED;
+        }
+        int count = (fields.length - 1) / 3;
+        String[] subjects = new String[count];
+        int[] in = new int[count];
+        int[] ex = new int[count];
+        for (int j = 0; j < count; j++) {
+            subjects[j] = fields[1 + j * 3];
+            String reason = parseMark(fields[2 + j * 3], policy.getMaxInternal());
+            if (reason != null) {
+                return reason;
+            }
+            in[j] = (int) parser.value();
+            reason = parseMark(fields[3 + j * 3], policy.getMaxExternal());
+            if (reason != null) {
+                return reason;
+            }
+            ex[j] = (int) parser.value();
+        }
+        return addStudent(fields[0], subjects, in, ex);
+    }
+
+    /** Reads a mark of 0 to {@code max} into {@code parser.value()}; returns the rejection message, or null. */
+    private String parseMark(String field, int max) {
+        NumberParser.Status status = parser.parseInt(field, 0, max);
+        if (status == NumberParser.Status.OUT_OF_RANGE) {
+            return marksOutOfRange(policy);
+        }
+        return status == NumberParser.Status.OK ? null : MARKS_NOT_NUMERIC;
+    }
+
+    /** Validates and adds one student; returns the rejection message, or null if added. */
+    public String addStudent(String name, String[] subjects, int[] internalMarks, int[] externalMarks) {
+        String trimmedName = name.trim();
+        if (trimmedName.isEmpty() || !trimmedName.contains(" ")) {
+            return NAME_REQUIRED;
+        }
+        if (subjects.length == 0) {
+            return SUBJECT_REQUIRED;
+        }
+        for (int j = 0; j < subjects.length; j++) {
+            if (subjects[j].trim().isEmpty()) {
+                return SUBJECT_REQUIRED;
+            }
+            if (!policy.isInRange(internalMarks[j], externalMarks[j])) {
+                return marksOutOfRange(policy);
+            }
+        }
+
+        ensureCapacity(subjects.length);
+        names[students] = trimmedName;
+        for (int j = 0; j < subjects.length; j++) {
+            subjectIds[marks] = internSubject(subjects[j].trim());
+            internal[marks] = (byte) internalMarks[j];
+            external[marks] = (byte) externalMarks[j];
+            marks++;
+        }
+        students++;
+        firstMark[students] = marks;
+        return null;
+    }
+
+    private short internSubject(String subject) {
+        Short id = subjectIndex.get(subject);
+        if (id == null) {
+            if (subjectNames.size() == Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct subjects");
+            }
+            id = (short) subjectNames.size();
+            subjectIndex.put(subject, id);
+            subjectNames.add(subject);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int newMarks) {
+        if (students + 1 >= names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
+            firstMark = Arrays.copyOf(firstMark, names.length + 1);
+        }
+        if (marks + newMarks > internal.length) {
+            int size = Math.max(internal.length * 2, marks + newMarks);
+            subjectIds = Arrays.copyOf(subjectIds, size);
+            internal = Arrays.copyOf(internal, size);
+            external = Arrays.copyOf(external, size);
+        }
+    }
+
+    /** The form's range message, with the policy's limits. */
+    static String marksOutOfRange(GradingPolicy policy) {
+        return "Marks out of range (Internal " + policy.getMaxInternal()
+                + ", External " + policy.getMaxExternal() + ")";
+    }
+
+    // --- Grading ---
+
+    /**
+     * Computes totals (after grace marks), weighted averages and grade bands
+     * for every student, in parallel chunks. Subject weights are resolved to
+     * an array indexed by subject id once, before the loop, and a policy
+     * without weights or pass rules takes a loop that only sums.
+     */
+    public void grade() {
+        int n = students;
+        totals = new int[n];
+        averages = new double[n];
+        bands = new byte[n];
+        double[] weights = policy.weightsFor(subjectNames);
+        boolean plain = policy.isPlainAverage();
+        IntStream.range(0, (n + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+            int end = Math.min(n, (chunk + 1) * CHUNK);
+            if (plain) {
+                gradePlain(chunk * CHUNK, end);
+                return;
+            }
+            for (int i = chunk * CHUNK; i < end; i++) {
+                int total = 0;
+                double weighted = 0;
+                double weightSum = 0;
+                boolean passedAll = true;
+                for (int m = firstMark[i]; m < firstMark[i + 1]; m++) {
+                    int subjectTotal = policy.withGrace(internal[m] + external[m]);
+                    double weight = weights[subjectIds[m]];
+                    total += subjectTotal;
+                    weighted += weight * subjectTotal;
+                    weightSum += weight;
+                    passedAll &= policy.passes(subjectTotal);
+                }
+                double average = weighted / weightSum;
+                totals[i] = total;
+                averages[i] = average;
+                bands[i] = (byte) policy.bandOf(average, passedAll);
+            }
+        });
+    }
+
+    private void gradePlain(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int total = 0;
+            for (int m = firstMark[i]; m < firstMark[i + 1]; m++) {
+                total += internal[m] + external[m];
+            }
+            double average = (double) total / (firstMark[i + 1] - firstMark[i]);
+            totals[i] = total;
+            averages[i] = average;
+            bands[i] = (byte) policy.bandOf(average, true);
+        }
+    }
+
+    /** The summary lines the form prints under the subject list. */
+    static void appendSummary(StringBuilder sb, GradingPolicy policy, int total, double average, int band) {
+        sb.append("\nTotal Marks : ").append(total);
+        sb.append("\nAverage     : ").append(String.format("%.2f", average));
+        sb.append("\nGrade       : ").append(policy.gradeOf(band));
+        sb.append("\nRemark      : ").append(policy.remarkOf(band));
+    }
+
+    // --- Results ---
+
+    public GradingPolicy getPolicy() {
+        return policy;
+    }
+
+    public int size() {
+        return students;
+    }
+
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+
+    public String getName(int student) {
+        return names[student];
+    }
+
+    public int getSubjectCount(int student) {
+        return firstMark[student + 1] - firstMark[student];
+    }
+
+    public String getSubjectName(int student, int subject) {
+        return subjectNames.get(subjectIds[firstMark[student] + subject]);
+    }
+
+    /** Internal plus external marks, after grace marks. */
+    public int getSubjectTotal(int student, int subject) {
+        int m = firstMark[student] + subject;
+        return policy.withGrace(internal[m] + external[m]);
+    }
+
+    public int getTotal(int student) {
+        return totals[student];
+    }
+
+    public double getAverage(int student) {
+        return averages[student];
+    }
+
+    /** Index of the student's band in the policy; see {@link GradingPolicy#gradeOf(int)}. */
+    public int getBand(int student) {
+        return bands[student];
+    }
+
+    public String getGrade(int student) {
+        return policy.gradeOf(bands[student]);
+    }
+
+    /** The student's result exactly as the form shows it. Requires {@link #grade()}. */
+    public String report(int student) {
+        StringBuilder sb = new StringBuilder(256);
+        appendReport(sb, student);
+        return sb.toString();
+    }
+
+    void appendReport(StringBuilder sb, int student) {
+        sb.append("Student Name : ").append(names[student]).append("\n\n");
+        for (int m = firstMark[student]; m < firstMark[student + 1]; m++) {
+            sb.append(subjectNames.get(subjectIds[m]))
+              .append(" : ")
+              .append(policy.withGrace(internal[m] + external[m]))
+              .append('/').append(policy.getMaxSubjectTotal()).append('\n');
+        }
+        appendSummary(sb, policy, totals[student], averages[student], bands[student]);
+    }
+
+    /** Writes every student's report, separated like Student_Report.txt. */
+    public void writeReports(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder sb = new StringBuilder(256);
+            for (int i = 0; i < students; i++) {
+                sb.setLength(0);
+                sb.append(REPORT_SEPARATOR).append('\n');
+                appendReport(sb, i);
+                sb.append('\n');
+                out.append(sb);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: GradingEngine <marks.csv> <report.txt>");
+            return;
+        }
+        GradingPolicy policy = GradingPolicy.fromSystemProperty();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        long start = System.nanoTime();
+        GradingEngine engine = load(Paths.get(args[0]), policy);
+        long loaded = System.nanoTime();
+        engine.grade();
+        long graded = System.nanoTime();
+        engine.writeReports(Paths.get(args[1]));
+        long written = System.nanoTime();
+
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        int n = Math.max(1, engine.size());
+        System.out.printf("Students : %d graded, %d rejected%n", engine.size(), engine.getRejections().size());
+        System.out.printf("Load     : %.0f ms%n", (loaded - start) / 1e6);
+        System.out.printf("Grade    : %.0f ms (%.0f students/s)%n", (graded - loaded) / 1e6, n * 1e9 / (graded - loaded));
+        System.out.printf("Reports  : %.0f ms%n", (written - graded) / 1e6);
+        System.out.printf("Memory   : ~%d bytes/student%n", (heapAfter - heapBefore) / n);
+        for (Rejection rejection : engine.getRejections().subList(0, Math.min(10, engine.getRejections().size()))) {
+            System.out.println("Line " + rejection.line() + ": " + rejection.reason());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * How a department grades: mark limits, subject weights, grace marks, a
+ * per-subject pass mark and the grade bands. Loaded from a properties file
+ * and compiled once into flat arrays, so grading a student is a few array
+ * reads and at most one compare per band, the same work as the original
+ * hard-coded {@code if (avg >= 85)} chain.
+ *
+ * <pre>
+ * internal.max=30
+ * external.max=70
+ * subjects=5                      # subject rows on the form
+ * bands=A:85:Outstanding 🌟|B:70:Good 👍|C:50:Average 🙂|D:0:Needs Improvement ❌
+ * weight.Maths=2                  # optional, default 1
+ * subject.pass=35                 # optional: a lower subject total fails the student
+ * grace.marks=5                   # optional: lift a subject up to this many marks to pass
+ * fail=F:Failed ❌                 # grade shown when a subject is failed
+ * </pre>
+ * With no file at all, {@link #DEFAULT} grades exactly as the form always has.
+ */
+public final class GradingPolicy {
+
+    /** Property naming a policy file for the apps and tools. */
+    public static final String POLICY_PROPERTY = "grading.policy";
+
+    public static final GradingPolicy DEFAULT = fromProperties(new Properties());
+
+    private final int maxInternal;
+    private final int maxExternal;
+    private final int subjectCount;
+    private final int passMark;
+    private final int graceMarks;
+    private final Map<String, Double> weights;
+
+    // Compiled bands, highest threshold first; the fail band (if any) is last
+    private final double[] thresholds;
+    private final String[] grades;
+    private final String[] remarks;
+    private final int failBand;
+
+    private GradingPolicy(int maxInternal, int maxExternal, int subjectCount, int passMark, int graceMarks,
+                          Map<String, Double> weights, List<String[]> bands, String[] fail) {
+        this.maxInternal = maxInternal;
+        this.maxExternal = maxExternal;
+        this.subjectCount = subjectCount;
+        this.passMark = passMark;
+        this.graceMarks = graceMarks;
+        this.weights = weights;
+        bands.sort((a, b) -> Double.compare(Double.parseDouble(b[1]), Double.parseDouble(a[1])));
+        int count = bands.size() + (passMark > 0 ? 1 : 0);
+        this.thresholds = new double[bands.size()];
+        this.grades = new String[count];
+        this.remarks = new String[count];
+        for (int i = 0; i < bands.size(); i++) {
+            grades[i] = bands.get(i)[0];
+            thresholds[i] = Double.parseDouble(bands.get(i)[1]);
+            remarks[i] = bands.get(i)[2];
+        }
+        if (thresholds[thresholds.length - 1] > 0) {
+            throw new IllegalArgumentException("The lowest band must start at 0");
+        }
+        this.failBand = passMark > 0 ? count - 1 : -1;
+        if (failBand >= 0) {
+            grades[failBand] = fail[0];
+            remarks[failBand] = fail[1];
+        }
+    }
+
+    /** Policy from {@code -Dgrading.policy=file}, or {@link #DEFAULT} if unset. */
+    public static GradingPolicy fromSystemProperty() throws IOException {
+        String file = System.getProperty(POLICY_PROPERTY);
+        return file == null ? DEFAULT : load(Paths.get(file));
+    }
+
+    public static GradingPolicy load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /** Compiles a policy; throws {@link IllegalArgumentException} if it is inconsistent. */
+    public static GradingPolicy fromProperties(Properties properties) {
+        int maxInternal = intProperty(properties, "internal.max", 30);
+        int maxExternal = intProperty(properties, "external.max", 70);
+        int subjects = intProperty(properties, "subjects", 5);
+        int passMark = intProperty(properties, "subject.pass", 0);
+        int grace = intProperty(properties, "grace.marks", 0);
+        if (maxInternal < 0 || maxExternal < 0 || maxInternal + maxExternal == 0 || maxInternal > 127
+                || maxExternal > 127 || subjects < 1 || passMark < 0 || grace < 0
+                || passMark > maxInternal + maxExternal) {
+            throw new IllegalArgumentException("Invalid mark limits in grading policy");
+        }
+
+        List<String[]> bands = new ArrayList<>();
+        String bandText = properties.getProperty("bands",
+                "A:85:Outstanding 🌟|B:70:Good 👍|C:50:Average 🙂|D:0:Needs Improvement ❌");
+        for (String band : bandText.split("\\|")) {
+            String[] parts = band.trim().split(":", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Band must be grade:minimum:remark: " + band);
+            }
+            Double.parseDouble(parts[1]); // fail fast on a bad number
+            bands.add(new String[]{parts[0].trim(), parts[1].trim(), parts[2].trim()});
+        }
+
+        Map<String, Double> weights = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("weight.")) {
+                double weight = Double.parseDouble(properties.getProperty(key).trim());
+                if (!(weight > 0)) {
+                    throw new IllegalArgumentException("Weight must be positive: " + key);
+                }
+                weights.put(key.substring("weight.".length()), weight);
+            }
+        }
+        String[] fail = properties.getProperty("fail", "F:Failed ❌").split(":", 2);
+        if (fail.length != 2) {
+            throw new IllegalArgumentException("fail must be grade:remark");
+        }
+        return new GradingPolicy(maxInternal, maxExternal, subjects, passMark, grace, weights, bands,
+                new String[]{fail[0].trim(), fail[1].trim()});
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    // --- Limits ---
+
+    public int getMaxInternal() {
+        return maxInternal;
+    }
+
+    public int getMaxExternal() {
+        return maxExternal;
+    }
+
+    /** Highest possible subject total (100 by default). */
+    public int getMaxSubjectTotal() {
+        return maxInternal + maxExternal;
+    }
+
+    /** Subject rows shown on the form. */
+    public int getSubjectCount() {
+        return subjectCount;
+    }
+
+    public boolean isInRange(int internal, int external) {
+        return internal >= 0 && internal <= maxInternal && external >= 0 && external <= maxExternal;
+    }
+
+    // --- Evaluation ---
+
+    public double weightOf(String subject) {
+        return weights.getOrDefault(subject, 1.0);
+    }
+
+    /**
+     * True when the average is a plain mean of subject totals with no pass or
+     * grace rules, as in the default policy; callers may skip weights and
+     * per-subject checks entirely.
+     */
+    public boolean isPlainAverage() {
+        return weights.isEmpty() && passMark == 0;
+    }
+
+    /** Weights per subject id, for callers that intern subject names. */
+    public double[] weightsFor(List<String> subjectNames) {
+        double[] result = new double[subjectNames.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = weightOf(subjectNames.get(i));
+        }
+        return result;
+    }
+
+    /** A subject total after grace marks: lifted to the pass mark if it falls short by no more than the grace. */
+    public int withGrace(int subjectTotal) {
+        return subjectTotal < passMark && passMark - subjectTotal <= graceMarks ? passMark : subjectTotal;
+    }
+
+    /** Whether a subject total (after grace) passes; always true without a pass mark. */
+    public boolean passes(int subjectTotal) {
+        return subjectTotal >= passMark;
+    }
+
+    /** Band for a weighted average, given whether every subject was passed. */
+    public int bandOf(double average, boolean passedAll) {
+        if (!passedAll && failBand >= 0) {
+            return failBand;
+        }
+        double[] t = thresholds;
+        for (int band = 0; band < t.length - 1; band++) {
+            if (average >= t[band]) {
+                return band;
+            }
+        }
+        return t.length - 1;
+    }
+
+    public int getBandCount() {
+        return grades.length;
+    }
+
+    public String gradeOf(int band) {
+        return grades[band];
+    }
+
+    public String remarkOf(int band) {
+        return remarks[band];
+    }
+}
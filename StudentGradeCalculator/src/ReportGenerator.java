@@ -0,0 +1,136 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes report cards for a whole graded cohort to a directory, in the
+ * background and in parallel. Students are split into pages of
+ * {@code pageSize} report cards, one text file per page
+ * ({@code report-cards-00001.txt}, ...), laid out exactly like the form's
+ * result area.
+ *
+ * Pages are rendered on a fixed pool and at most two per thread are queued at
+ * a time; each page streams its cards straight to a buffered file, so memory
+ * stays flat however large the cohort is. Progress is reported after every
+ * page and {@link #cancel()} stops at the next page boundary.
+ *
+ * Usage: {@code ReportGenerator <marks.csv> <output-dir> [page-size]}.
+ */
+public class ReportGenerator {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    /** Called from worker threads after each page is written. */
+    public interface ProgressListener {
+        void progress(int reportsDone, int reportsTotal);
+    }
+
+    public record Summary(int reports, int pages, boolean cancelled, long elapsedNanos) {
+        public double reportsPerSecond() {
+            return elapsedNanos == 0 ? 0 : reports * 1e9 / elapsedNanos;
+        }
+    }
+
+    private final int threads;
+    private final int pageSize;
+    private volatile boolean cancelled;
+
+    public ReportGenerator() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_PAGE_SIZE);
+    }
+
+    public ReportGenerator(int threads, int pageSize) {
+        if (threads < 1 || pageSize < 1) {
+            throw new IllegalArgumentException("Threads and page size must be at least 1");
+        }
+        this.threads = threads;
+        this.pageSize = pageSize;
+    }
+
+    /** Stops after the pages already being written; files already written are kept. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Writes one file per page for every student of a graded engine. */
+    public Summary generate(GradingEngine engine, Path outputDir, ProgressListener listener)
+            throws IOException, InterruptedException {
+        Files.createDirectories(outputDir);
+        long start = System.nanoTime();
+        int total = engine.size();
+        int pages = (total + pageSize - 1) / pageSize;
+        AtomicInteger reportsDone = new AtomicInteger();
+        AtomicInteger pagesDone = new AtomicInteger();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        Semaphore inFlight = new Semaphore(threads * 2);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int page = 0; page < pages && !cancelled && failure.get() == null; page++) {
+                inFlight.acquire();
+                int first = page * pageSize;
+                int last = Math.min(total, first + pageSize);
+                Path file = outputDir.resolve(String.format("report-cards-%05d.txt", page + 1));
+                pool.execute(() -> {
+                    try {
+                        if (!cancelled) {
+                            writePage(engine, first, last, file);
+                            pagesDone.incrementAndGet();
+                            int done = reportsDone.addAndGet(last - first);
+                            if (listener != null) {
+                                listener.progress(done, total);
+                            }
+                        }
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return new Summary(reportsDone.get(), pagesDone.get(), cancelled, System.nanoTime() - start);
+    }
+
+    private static void writePage(GradingEngine engine, int first, int last, Path file) throws IOException {
+        StringBuilder sb = new StringBuilder(512);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = first; i < last; i++) {
+                sb.setLength(0);
+                sb.append(GradingEngine.REPORT_SEPARATOR).append('\n');
+                engine.appendReport(sb, i);
+                sb.append('\n');
+                out.append(sb);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: ReportGenerator <marks.csv> <output-dir> [page-size]");
+            return;
+        }
+        int pageSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PAGE_SIZE;
+        GradingEngine engine = GradingEngine.load(Paths.get(args[0]), GradingPolicy.fromSystemProperty());
+        engine.grade();
+        ReportGenerator generator = new ReportGenerator(Runtime.getRuntime().availableProcessors(), pageSize);
+        Summary summary = generator.generate(engine, Paths.get(args[1]), null);
+        System.out.printf("Reports : %d in %d pages, %.0f ms (%.0f reports/s)%n", summary.reports(),
+                summary.pages(), summary.elapsedNanos() / 1e6, summary.reportsPerSecond());
+    }
+}
@@ -1,23 +1,50 @@
+import com.codsoft.common.Metrics;
+import com.codsoft.common.NumberParser;
+
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class StudentManagementSystem extends JFrame {
 
     private JTextField nameField;
-    private JTextField[] subjectFields = new JTextField[5];
-    private JTextField[] internalMarks = new JTextField[5];
-    private JTextField[] externalMarks = new JTextField[5];
+    private JTextField[] subjectFields;
+    private JTextField[] internalMarks;
+    private JTextField[] externalMarks;
     private JTextArea resultArea;
+    private JPanel topInputPanel;
+
+    // Limits, subject rows and grade bands (-Dgrading.policy=file, else the default 30/70, A-D)
+    private final GradingPolicy policy;
+    private final NumberParser marksParser = new NumberParser(); // EDT only
+
+    // Graded students are saved here and can be looked up again by name
+    static final String RECORDS_DIR = "student-records";
+    private final StudentRecordStore store;
 
     // Frame size increased for a bigger structure
     private static final int FRAME_WIDTH = 1200; 
     private static final int FRAME_HEIGHT = 800; 
 
-    public StudentManagementSystem() {
+    // Clicks are rare, so every completed result is timed; input errors return early with a dialog
+    private static final Metrics.Timer CALCULATE = Metrics.timer("grading.calculate", 1);
+
+    private StudentManagementSystem(StudentRecordStore store, GradingPolicy policy) {
+        this.store = store;
+        this.policy = policy;
+        int subjects = policy.getSubjectCount();
+        subjectFields = new JTextField[subjects];
+        internalMarks = new JTextField[subjects];
+        externalMarks = new JTextField[subjects];
 
         setTitle("Student Grade Calculator | CodSoft");
         setSize(FRAME_WIDTH, FRAME_HEIGHT); // Structure made larger
@@ -41,7 +68,7 @@ public class StudentManagementSystem extends JFrame {
         add(mainPanel, BorderLayout.CENTER);
 
         // --- 1. TOP PANEL (Input Details) ---
-        JPanel topInputPanel = createInputPanel();
+        topInputPanel = createInputPanel();
         topInputPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 400)); // Restrict height
         mainPanel.add(topInputPanel);
 
@@ -51,10 +78,22 @@ public class StudentManagementSystem extends JFrame {
         // --- 2. BOTTOM PANEL (Result Area) ---
         JPanel bottomResultPanel = createResultPanel();
         mainPanel.add(bottomResultPanel);
+    }
 
-        // Actions
+    /** Builds the form, wires its buttons and shows it; call on the event dispatch thread. */
+    public static StudentManagementSystem open(StudentRecordStore store, GradingPolicy policy) {
+        StudentManagementSystem frame = new StudentManagementSystem(store, policy);
+        frame.wireActions();
+        frame.setVisible(true);
+        return frame;
+    }
+
+    // Actions are wired after construction so no listener sees a half-built frame
+    private void wireActions() {
         // Find buttons within the Input Panel structure
         getButton(topInputPanel, "Calculate Result").addActionListener(this::calculateResult);
+        getButton(topInputPanel, "Find Student").addActionListener(e -> findStudent());
+        getButton(topInputPanel, "Cohort Reports").addActionListener(e -> generateCohortReports());
         getButton(topInputPanel, "Clear").addActionListener(e -> clearAll());
         getButton(topInputPanel, "Generate PDF").addActionListener(e -> generatePDF());
     }
@@ -95,11 +134,11 @@ public class StudentManagementSystem extends JFrame {
         // Headers
         gbc.gridy = 1;
         gbc.gridx = 0; form.add(new JLabel("Subject"), gbc);
-        gbc.gridx = 1; form.add(new JLabel("Internal (30)"), gbc);
-        gbc.gridx = 2; form.add(new JLabel("External (70)"), gbc);
+        gbc.gridx = 1; form.add(new JLabel("Internal (" + policy.getMaxInternal() + ")"), gbc);
+        gbc.gridx = 2; form.add(new JLabel("External (" + policy.getMaxExternal() + ")"), gbc);
 
         // Subject rows
-        for (int i = 0; i < 5; i++) {
+        for (int i = 0; i < subjectFields.length; i++) {
             gbc.gridy = i + 2;
 
             gbc.gridx = 0;
@@ -122,6 +161,8 @@ public class StudentManagementSystem extends JFrame {
 
         JButton calcBtn = new JButton("Calculate Result");
         JButton pdfBtn = new JButton("Generate PDF");
+        JButton findBtn = new JButton("Find Student");
+        JButton reportsBtn = new JButton("Cohort Reports");
         JButton clearBtn = new JButton("Clear");
         
         // Button style (unchanged from original)
@@ -129,11 +170,17 @@ public class StudentManagementSystem extends JFrame {
         calcBtn.setForeground(Color.WHITE);
         pdfBtn.setBackground(new Color(33, 150, 243));
         pdfBtn.setForeground(Color.WHITE);
+        findBtn.setBackground(new Color(255, 152, 0));
+        findBtn.setForeground(Color.WHITE);
+        reportsBtn.setBackground(new Color(103, 58, 183));
+        reportsBtn.setForeground(Color.WHITE);
         clearBtn.setBackground(new Color(244, 67, 54));
         clearBtn.setForeground(Color.WHITE);
 
         buttonPanel.add(calcBtn);
         buttonPanel.add(pdfBtn);
+        buttonPanel.add(findBtn);
+        buttonPanel.add(reportsBtn);
         buttonPanel.add(clearBtn);
 
         leftPanel.add(buttonPanel, BorderLayout.SOUTH);
@@ -161,77 +208,89 @@ public class StudentManagementSystem extends JFrame {
     }
 
 
-    // ===== LOGIC (UNCHANGED) =====
+    // ===== GRADING =====
     private void calculateResult(ActionEvent e) {
+        String name = nameField.getText().trim();
+        List<StudentRecordStore.SubjectMark> marks = new ArrayList<>();
+        String problem;
+        long start = CALCULATE.start();
         try {
-            String name = nameField.getText().trim();
-            if (name.isEmpty() || !name.contains(" ")) {
-                JOptionPane.showMessageDialog(this,
-                        "Please enter FULL student name (First + Last)");
-                return;
-            }
-
-            int total = 0;
-            StringBuilder sb = new StringBuilder();
-            sb.append("Student Name : ").append(name).append("\n\n");
-
-            for (int i = 0; i < 5; i++) {
-                String subject = subjectFields[i].getText().trim();
-                if (subject.isEmpty()) {
-                    JOptionPane.showMessageDialog(this,
-                            "Please enter all subject names");
-                    return;
-                }
-
-                int internal = Integer.parseInt(internalMarks[i].getText());
-                int external = Integer.parseInt(externalMarks[i].getText());
-
-                if (internal < 0 || internal > 30 || external < 0 || external > 70) {
-                    JOptionPane.showMessageDialog(this,
-                            "Marks out of range (Internal 30, External 70)");
-                    return;
-                }
+            problem = grade(name, marks);
+        } finally {
+            CALCULATE.stop(start); // before any dialog, which would time the user
+        }
+        if (problem != null) {
+            JOptionPane.showMessageDialog(this, problem);
+            return;
+        }
+        saveRecord(new StudentRecordStore.StudentRecord(name, marks));
+    }
 
-                int subjectTotal = internal + external;
-                total += subjectTotal;
+    /** Grades the form into the result area and {@code marks}; returns the form's message if it can't, else null. */
+    private String grade(String name, List<StudentRecordStore.SubjectMark> marks) {
+        if (name.isEmpty() || !name.contains(" ")) {
+            return "Please enter FULL student name (First + Last)";
+        }
 
-                sb.append(subject)
-                  .append(" : ")
-                  .append(subjectTotal)
-                  .append("/100\n");
+        int total = 0;
+        double weighted = 0;
+        double weightSum = 0;
+        boolean passedAll = true;
+        StringBuilder sb = new StringBuilder();
+        sb.append("Student Name : ").append(name).append("\n\n");
+
+        for (int i = 0; i < subjectFields.length; i++) {
+            String subject = subjectFields[i].getText().trim();
+            if (subject.isEmpty()) {
+                return "Please enter all subject names";
             }
 
-            double avg = total / 5.0;
-            String grade, remark;
-
-            if (avg >= 85) {
-                grade = "A";
-                remark = "Outstanding 🌟";
-            } else if (avg >= 70) {
-                grade = "B";
-                remark = "Good 👍";
-            } else if (avg >= 50) {
-                grade = "C";
-                remark = "Average 🙂";
-            } else {
-                grade = "D";
-                remark = "Needs Improvement ❌";
+            String problem = parseMark(internalMarks[i], policy.getMaxInternal());
+            if (problem != null) {
+                return problem;
             }
+            int internal = (int) marksParser.value();
+            problem = parseMark(externalMarks[i], policy.getMaxExternal());
+            if (problem != null) {
+                return problem;
+            }
+            int external = (int) marksParser.value();
+
+            int subjectTotal = policy.withGrace(internal + external);
+            double weight = policy.weightOf(subject);
+            total += subjectTotal;
+            weighted += weight * subjectTotal;
+            weightSum += weight;
+            passedAll &= policy.passes(subjectTotal);
+            marks.add(new StudentRecordStore.SubjectMark(subject, internal, external));
+
+            sb.append(subject)
+              .append(" : ")
+              .append(subjectTotal)
+              .append('/').append(policy.getMaxSubjectTotal()).append('\n');
+        }
 
-            sb.append("\nTotal Marks : ").append(total);
-            sb.append("\nAverage     : ").append(String.format("%.2f", avg));
-            sb.append("\nGrade       : ").append(grade);
-            sb.append("\nRemark      : ").append(remark);
+        double avg = weighted / weightSum;
+        // Same bands and layout as batch grading (GradingEngine)
+        GradingEngine.appendSummary(sb, policy, total, avg, policy.bandOf(avg, passedAll));
 
-            resultArea.setText(sb.toString());
+        resultArea.setText(sb.toString());
+        return null;
+    }
 
-        } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Please enter valid numeric marks");
+    /**
+     * Reads a mark of 0 to {@code max} into {@code marksParser.value()}; returns the
+     * form's message if it is not a number or out of range, else null.
+     */
+    private String parseMark(JTextField field, int max) {
+        NumberParser.Status status = marksParser.parseInt(field.getText(), 0, max);
+        if (status == NumberParser.Status.OUT_OF_RANGE) {
+            return GradingEngine.marksOutOfRange(policy);
         }
+        return status == NumberParser.Status.OK ? null : "Please enter valid numeric marks";
     }
 
-    // ===== PDF (UNCHANGED) =====
+    // ===== PDF =====
     private void generatePDF() {
         if (resultArea.getText().isEmpty()) {
             JOptionPane.showMessageDialog(this,
@@ -243,21 +302,132 @@ public class StudentManagementSystem extends JFrame {
         job.setPrintable(resultArea.getPrintable(null, null));
 
         if (job.printDialog()) {
-            try {
-                job.print();
-                JOptionPane.showMessageDialog(this,
-                        "PDF generated successfully!");
-            } catch (PrinterException ex) {
-                JOptionPane.showMessageDialog(this,
-                        "PDF generation failed");
+            // Print off the EDT so the window keeps repainting
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() throws PrinterException {
+                    job.print();
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        get();
+                        JOptionPane.showMessageDialog(StudentManagementSystem.this,
+                                "PDF generated successfully!");
+                    } catch (InterruptedException | ExecutionException ex) {
+                        JOptionPane.showMessageDialog(StudentManagementSystem.this,
+                                "PDF generation failed");
+                    }
+                }
+            }.execute();
+        }
+    }
+
+    // ===== COHORT REPORTS =====
+    /** Grades a marks file and writes every student's report card to a folder, in the background. */
+    private void generateCohortReports() {
+        JFileChooser marksChooser = new JFileChooser();
+        marksChooser.setDialogTitle("Select marks file (CSV)");
+        if (marksChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        JFileChooser dirChooser = new JFileChooser();
+        dirChooser.setDialogTitle("Select output folder");
+        dirChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (dirChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path marksFile = marksChooser.getSelectedFile().toPath();
+        Path outputDir = dirChooser.getSelectedFile().toPath();
+
+        ReportGenerator generator = new ReportGenerator();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Generating report cards...", "", 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        SwingWorker<ReportGenerator.Summary, Void> worker = new SwingWorker<>() {
+            @Override
+            protected ReportGenerator.Summary doInBackground() throws IOException, InterruptedException {
+                GradingEngine engine = GradingEngine.load(marksFile, policy);
+                engine.grade();
+                return generator.generate(engine, outputDir,
+                        (done, total) -> setProgress((int) (100L * done / Math.max(1, total))));
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    ReportGenerator.Summary summary = get();
+                    JOptionPane.showMessageDialog(StudentManagementSystem.this,
+                            (summary.cancelled() ? "Cancelled after " : "Generated ")
+                                    + summary.reports() + " report cards in " + outputDir);
+                } catch (InterruptedException | ExecutionException ex) {
+                    JOptionPane.showMessageDialog(StudentManagementSystem.this,
+                            "Report generation failed");
+                }
             }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                monitor.setProgress((Integer) evt.getNewValue());
+                monitor.setNote(evt.getNewValue() + "% done");
+            }
+            if (monitor.isCanceled()) {
+                generator.cancel();
+            }
+        });
+        worker.execute();
+    }
+
+    // ===== RECORDS =====
+    private void saveRecord(StudentRecordStore.StudentRecord record) {
+        try {
+            store.put(record);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Result calculated, but the record could not be saved");
         }
     }
 
+    /** Loads a saved student by the name in the name field and shows their result. */
+    private void findStudent() {
+        String name = nameField.getText().trim();
+        if (name.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please enter the student name to find");
+            return;
+        }
+        StudentRecordStore.StudentRecord record;
+        try {
+            record = store.get(name);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Could not read student records");
+            return;
+        }
+        if (record == null) {
+            JOptionPane.showMessageDialog(this,
+                    "No saved result for " + name);
+            return;
+        }
+
+        nameField.setText(record.name());
+        for (int i = 0; i < subjectFields.length; i++) {
+            boolean present = i < record.marks().size();
+            StudentRecordStore.SubjectMark mark = present ? record.marks().get(i) : null;
+            subjectFields[i].setText(present ? mark.subject() : "");
+            internalMarks[i].setText(present ? String.valueOf(mark.internal()) : "");
+            externalMarks[i].setText(present ? String.valueOf(mark.external()) : "");
+        }
+        calculateResult(null);
+    }
+
     private void clearAll() {
         nameField.setText("");
         resultArea.setText("");
-        for (int i = 0; i < 5; i++) {
+        for (int i = 0; i < subjectFields.length; i++) {
             subjectFields[i].setText("");
             internalMarks[i].setText("");
             externalMarks[i].setText("");
@@ -265,7 +435,29 @@ public class StudentManagementSystem extends JFrame {
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() ->
-                new StudentManagementSystem().setVisible(true));
+        GradingPolicy policy;
+        try {
+            policy = GradingPolicy.fromSystemProperty();
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(null,
+                    "Could not load grading policy: " + ex.getMessage());
+            return;
+        }
+        StudentRecordStore store;
+        try {
+            store = StudentRecordStore.open(Paths.get(RECORDS_DIR));
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(null,
+                    "Could not open student records: " + ex.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                store.close();
+            } catch (IOException ignored) {
+                // Unflushed records are recovered from the log on next start
+            }
+        }));
+        SwingUtilities.invokeLater(() -> open(store, policy));
     }
 }
\ No newline at end of file
@@ -0,0 +1,524 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded store of graded students, looked up by name (case-insensitive).
+ *
+ * Two files live in the store's directory:
+ * <ul>
+ * <li>{@code students.dat}: an append-only log of binary records
+ * ({@code [length][crc32][type, name, subjects...]}). Saving a student again
+ * or deleting one appends a new record; the old one becomes garbage until
+ * {@link #compact()} rewrites the log with live records only, which happens
+ * automatically once garbage outweighs live data.</li>
+ * <li>{@code students.idx}: a memory-mapped open-addressing hash table of
+ * {@code (64-bit name hash, log offset)} slots. A lookup is a few probes plus
+ * one positional read of the record.</li>
+ * </ul>
+ * On open the index is mapped as-is if it matches the log (same generation,
+ * not ahead of the log) and the store was closed cleanly, and only records
+ * appended after its last update are replayed; otherwise it is rebuilt with
+ * one scan. A new or grown index is built in a temporary file and moved over
+ * the old one, which is never truncated or deleted while it may be mapped.
+ * The mapped index is written back by the OS whenever it likes, so
+ * after a crash it may be half updated: a flag in its header is cleared (and
+ * forced to disk) on open and set again only by {@link #close()}. A torn
+ * record at the end of the log (crash mid-write) fails its checksum and is
+ * cut off.
+ */
+public class StudentRecordStore implements Closeable {
+
+    public record SubjectMark(String subject, int internal, int external) {
+        public int total() {
+            return internal + external;
+        }
+    }
+
+    public record StudentRecord(String name, List<SubjectMark> marks) {
+        public StudentRecord {
+            marks = List.copyOf(marks);
+        }
+
+        public int total() {
+            int total = 0;
+            for (SubjectMark mark : marks) {
+                total += mark.total();
+            }
+            return total;
+        }
+
+        public double average() {
+            return marks.isEmpty() ? 0 : (double) total() / marks.size();
+        }
+    }
+
+    static final String DATA_FILE = "students.dat";
+    static final String INDEX_FILE = "students.idx";
+    static final String INDEX_TEMP_FILE = "students.idx.tmp"; // a new index, until moved over the old
+
+    private static final int DATA_MAGIC = 0x53544442;   // "STDB"
+    private static final int INDEX_MAGIC = 0x53544958;  // "STIX"
+    private static final int FORMAT_VERSION = 1;
+    private static final int DATA_HEADER = 16;          // magic, version, generation
+    private static final int RECORD_HEADER = 8;         // payload length, crc32
+    private static final int MAX_PAYLOAD = 64 * 1024;
+
+    // Index header: magic, capacity, generation, dataLength, count, used, garbage, clean
+    private static final int INDEX_HEADER = 64;
+    private static final int CAPACITY_AT = 4;
+    private static final int GENERATION_AT = 8;
+    private static final int DATA_LENGTH_AT = 16;
+    private static final int COUNT_AT = 24;
+    private static final int USED_AT = 28;
+    private static final int GARBAGE_AT = 32;
+    private static final int CLEAN_AT = 40;             // 1 after close(), 0 while open or after a crash
+    private static final int SLOT_SIZE = 16;            // hash, offset (~offset for a deletion)
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 26;    // keeps the mapping under 2 GB
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final long COMPACT_MIN_GARBAGE = 1 << 20;
+
+    /** A decoded log record. */
+    private record Entry(byte type, String name, List<SubjectMark> marks, int size) {
+    }
+
+    private final Path directory;
+    private FileChannel data;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private long generation;
+    private int capacity;
+    private long dataLength;
+    private int count;
+    private int used;
+    private long garbage;
+
+    private StudentRecordStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /** Opens (creating if needed) the store in a directory. */
+    public static StudentRecordStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        StudentRecordStore store = new StudentRecordStore(directory);
+        store.openFiles();
+        return store;
+    }
+
+    private void openFiles() throws IOException {
+        data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (data.size() < DATA_HEADER) {
+            generation = ThreadLocalRandom.current().nextLong();
+            writeDataHeader(data, generation);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(DATA_HEADER);
+            data.read(header, 0);
+            if (header.getInt(0) != DATA_MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Not a student record log: " + directory.resolve(DATA_FILE));
+            }
+            generation = header.getLong(8);
+        }
+
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if (!mapExistingIndex(indexFile)) {
+            dataLength = DATA_HEADER;
+            count = 0;
+            used = 0;
+            garbage = 0;
+            createIndex(capacityFor(data.size() / 64));
+        }
+        replay(dataLength); // catch up on records the index has not seen
+        index.putInt(CLEAN_AT, 0); // until close(): a crash from here on leaves the index to be rebuilt
+        index.force();
+    }
+
+    private static void writeDataHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER);
+        header.putInt(DATA_MAGIC).putInt(FORMAT_VERSION).putLong(generation).flip();
+        channel.write(header, 0);
+    }
+
+    private boolean mapExistingIndex(Path indexFile) throws IOException {
+        if (!Files.exists(indexFile) || Files.size(indexFile) < INDEX_HEADER) {
+            return false;
+        }
+        FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+        channel.read(header, 0);
+        int mappedCapacity = header.getInt(CAPACITY_AT);
+        boolean valid = header.getInt(0) == INDEX_MAGIC
+                && header.getLong(GENERATION_AT) == generation
+                && header.getLong(DATA_LENGTH_AT) <= data.size()
+                && header.getInt(CLEAN_AT) == 1
+                && Integer.bitCount(mappedCapacity) == 1
+                && channel.size() == INDEX_HEADER + (long) mappedCapacity * SLOT_SIZE;
+        if (!valid) {
+            channel.close(); // checked before mapping, so a stale index is never left mapped
+            return false;
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        indexChannel = channel;
+        index = mapped;
+        capacity = mappedCapacity;
+        dataLength = mapped.getLong(DATA_LENGTH_AT);
+        count = mapped.getInt(COUNT_AT);
+        used = mapped.getInt(USED_AT);
+        garbage = mapped.getLong(GARBAGE_AT);
+        return true;
+    }
+
+    /**
+     * Builds an index of the given capacity in {@value #INDEX_TEMP_FILE}, rehashing the live and
+     * deleted slots of the current index (if one is mapped) straight from its mapping, then moves
+     * it over {@value #INDEX_FILE} and maps it as the current index. Keys are already unique, so
+     * the counts carry over unchanged.
+     */
+    private void createIndex(int newCapacity) throws IOException {
+        Path tempFile = directory.resolve(INDEX_TEMP_FILE);
+        FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer created;
+        try {
+            created = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) newCapacity * SLOT_SIZE);
+            created.putInt(0, INDEX_MAGIC);
+            created.putInt(CAPACITY_AT, newCapacity);
+            created.putLong(GENERATION_AT, generation);
+            for (int i = 0; index != null && i < capacity; i++) {
+                long hash = index.getLong(slotAt(i));
+                if (hash != 0) {
+                    int slot = (int) hash & (newCapacity - 1);
+                    while (created.getLong(slotAt(slot)) != 0) {
+                        slot = (slot + 1) & (newCapacity - 1);
+                    }
+                    created.putLong(slotAt(slot), hash);
+                    created.putLong(slotAt(slot) + 8, index.getLong(slotAt(i) + 8));
+                }
+            }
+            Files.move(tempFile, directory.resolve(INDEX_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        FileChannel oldChannel = indexChannel;
+        indexChannel = channel;
+        index = created;
+        capacity = newCapacity;
+        writeIndexHeader();
+        if (oldChannel != null) {
+            oldChannel.close();
+        }
+    }
+
+    private void writeIndexHeader() {
+        index.putLong(DATA_LENGTH_AT, dataLength);
+        index.putInt(COUNT_AT, count);
+        index.putInt(USED_AT, used);
+        index.putLong(GARBAGE_AT, garbage);
+    }
+
+    private static int capacityFor(long entries) {
+        long wanted = Math.max(MIN_CAPACITY, entries * 2);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(wanted - 1) << 1);
+    }
+
+    /** Re-applies log records from {@code from} to the end; truncates a torn tail. */
+    private void replay(long from) throws IOException {
+        long position = from;
+        long end = data.size();
+        while (position < end) {
+            Entry entry = readEntry(position);
+            if (entry == null) {
+                data.truncate(position); // partial or corrupt record from a crash
+                break;
+            }
+            dataLength = position + entry.size();
+            apply(entry, position);
+            position += entry.size();
+        }
+        dataLength = position;
+        writeIndexHeader();
+    }
+
+    // --- Operations ---
+
+    /** Saves a student, replacing any earlier record with the same name. Unchanged records are not rewritten. */
+    public synchronized void put(StudentRecord record) throws IOException {
+        StudentRecord existing = get(record.name());
+        if (record.equals(existing)) {
+            return;
+        }
+        append(PUT, record.name(), record.marks());
+    }
+
+    /** The student's latest record, or null if there is none. */
+    public synchronized StudentRecord get(String name) throws IOException {
+        String key = keyOf(name);
+        int slot = findSlot(hashOf(key), key);
+        if (slot < 0) {
+            return null;
+        }
+        long offset = index.getLong(slotAt(slot) + 8);
+        if (offset < 0) {
+            return null; // deleted
+        }
+        Entry entry = readEntry(offset);
+        if (entry == null) {
+            throw new IOException("Damaged record for \"" + name + "\" at offset " + offset + " of "
+                    + directory.resolve(DATA_FILE));
+        }
+        return new StudentRecord(entry.name(), entry.marks());
+    }
+
+    public synchronized boolean delete(String name) throws IOException {
+        if (get(name) == null) {
+            return false;
+        }
+        append(DELETE, name.trim(), List.of());
+        return true;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /** Bytes of the log held by replaced or deleted records. */
+    public synchronized long garbageBytes() {
+        return garbage;
+    }
+
+    /** Flushes the log and the index to disk. */
+    public synchronized void sync() throws IOException {
+        data.force(false);
+        index.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        index.putInt(CLEAN_AT, 1); // only once everything it describes is on disk
+        index.force();
+        data.close();
+        indexChannel.close();
+    }
+
+    private void append(byte type, String name, List<SubjectMark> marks) throws IOException {
+        ByteBuffer record = encode(type, name, marks);
+        long offset = dataLength;
+        while (record.hasRemaining()) {
+            data.write(record, offset + record.position());
+        }
+        dataLength = offset + record.limit();
+        apply(new Entry(type, name, marks, record.limit()), offset);
+        writeIndexHeader();
+        if (garbage > COMPACT_MIN_GARBAGE && garbage > dataLength / 2) {
+            compact();
+        }
+    }
+
+    // --- Index ---
+
+    private void apply(Entry entry, long offset) throws IOException {
+        String key = keyOf(entry.name());
+        long hash = hashOf(key);
+        int slot = findSlot(hash, key);
+        long pointer = entry.type() == PUT ? offset : ~offset;
+        if (slot >= 0) {
+            long previous = index.getLong(slotAt(slot) + 8);
+            if (previous >= 0) {
+                // A replaced tombstone was counted as garbage when it was written
+                Entry replaced = readEntry(previous);
+                garbage += replaced == null ? 0 : replaced.size(); // unreadable: size unknown
+            }
+            if (previous >= 0 && entry.type() == DELETE) {
+                count--;
+            } else if (previous < 0 && entry.type() == PUT) {
+                count++;
+            }
+            index.putLong(slotAt(slot) + 8, pointer);
+        } else {
+            if (used + 1 > capacity * 0.7) {
+                if (capacity == MAX_CAPACITY) {
+                    throw new IOException("Student index is full");
+                }
+                createIndex(capacity * 2);
+            }
+            slot = (int) hash & (capacity - 1);
+            while (index.getLong(slotAt(slot)) != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            index.putLong(slotAt(slot), hash);
+            index.putLong(slotAt(slot) + 8, pointer);
+            used++;
+            if (entry.type() == PUT) {
+                count++;
+            }
+        }
+        if (entry.type() == DELETE) {
+            garbage += entry.size(); // tombstones are dropped by compaction
+        }
+    }
+
+    /** Slot holding this key (live or deleted), or -1. */
+    private int findSlot(long hash, String key) throws IOException {
+        int slot = (int) hash & (capacity - 1);
+        while (true) {
+            long slotHash = index.getLong(slotAt(slot));
+            if (slotHash == 0) {
+                return -1;
+            }
+            if (slotHash == hash) {
+                long pointer = index.getLong(slotAt(slot) + 8);
+                long offset = pointer < 0 ? ~pointer : pointer;
+                Entry entry = readEntry(offset);
+                if (entry == null) {
+                    // Almost certainly this key's record: reporting it missing would lose it silently
+                    throw new IOException("Damaged record at offset " + offset + " of " + directory.resolve(DATA_FILE));
+                }
+                if (keyOf(entry.name()).equals(key)) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    private static int slotAt(int slot) {
+        return INDEX_HEADER + slot * SLOT_SIZE;
+    }
+
+    private static String keyOf(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long hashOf(String key) {
+        long h = 0xCBF29CE484222325L; // FNV-1a
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        h ^= h >>> 31;
+        return h == 0 ? 1 : h; // 0 marks an empty slot
+    }
+
+    // --- Compaction ---
+
+    /** Rewrites the log with only the latest record of each student and rebuilds the index. */
+    public synchronized void compact() throws IOException {
+        Path compactedData = directory.resolve(DATA_FILE + ".compact");
+        long newGeneration = generation + 1;
+        try (FileChannel out = FileChannel.open(compactedData, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeDataHeader(out, newGeneration);
+            long position = DATA_HEADER;
+            for (int slot = 0; slot < capacity; slot++) {
+                long pointer = index.getLong(slotAt(slot) + 8);
+                if (index.getLong(slotAt(slot)) == 0 || pointer < 0) {
+                    continue;
+                }
+                Entry entry = readEntry(pointer);
+                ByteBuffer record = encode(PUT, entry.name(), entry.marks());
+                while (record.hasRemaining()) {
+                    position += out.write(record, position);
+                }
+            }
+            out.force(false);
+        }
+
+        // Swap in the new log; the stale index no longer matches its generation, so openFiles
+        // builds a new one and moves it over the old file (still mapped until collected)
+        data.close();
+        indexChannel.close();
+        index = null;
+        indexChannel = null;
+        Files.move(compactedData, directory.resolve(DATA_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openFiles();
+    }
+
+    // --- Record encoding ---
+
+    private static ByteBuffer encode(byte type, String name, List<SubjectMark> marks) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length and crc, filled in below
+        out.writeInt(0);
+        out.writeByte(type);
+        out.writeUTF(name);
+        out.writeByte(marks.size());
+        for (SubjectMark mark : marks) {
+            out.writeUTF(mark.subject());
+            out.writeByte(mark.internal());
+            out.writeByte(mark.external());
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int payloadLength = record.limit() - RECORD_HEADER;
+        if (payloadLength > MAX_PAYLOAD || marks.size() > 255) {
+            throw new IllegalArgumentException("Student record too large: " + name);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    /** Decodes the record at {@code offset}, or null if it is incomplete or corrupt. */
+    private Entry readEntry(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        if (readFully(header, offset) < RECORD_HEADER) {
+            return null;
+        }
+        int payloadLength = header.getInt(0);
+        if (payloadLength <= 0 || payloadLength > MAX_PAYLOAD) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        if (readFully(payload, offset + RECORD_HEADER) < payloadLength) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != header.getInt(4)) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+        byte type = in.readByte();
+        String name = in.readUTF();
+        int subjects = in.readUnsignedByte();
+        List<SubjectMark> marks = subjects == 0 ? Collections.emptyList() : new ArrayList<>(subjects);
+        for (int i = 0; i < subjects; i++) {
+            marks.add(new SubjectMark(in.readUTF(), in.readByte(), in.readByte()));
+        }
+        return new Entry(type, name, marks, RECORD_HEADER + payloadLength);
+    }
+
+    private int readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = data.read(buffer, position + buffer.position());
+            if (n < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+}